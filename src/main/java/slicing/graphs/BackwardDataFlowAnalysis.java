@@ -1,25 +1,60 @@
 package slicing.graphs;
 
 import org.jgrapht.graph.AbstractGraph;
+import slicing.nodes.IdHelper;
 import slicing.utils.ASTUtils;
+import slicing.utils.Logger;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * A fixed-point analysis algorithm that propagates changes backwards through a given graph.
+ * The graph is condensed into its strongly connected components, which are solved one at a time,
+ * each component before those that reach it. Inside a component, vertices are computed in postorder
+ * and each vertex is queued at most once.
+ * <br/>
+ * With a {@link #setParallelism(int) parallelism} greater than one, the components that do not reach each
+ * other are solved concurrently. Subclasses must then read shared state inside {@link #readLocked(Supplier)}
+ * and modify it inside {@link #writeLocked(Runnable)}. Whatever the parallelism, the nodes created by the
+ * initial value of each vertex and by the computations of each component are given ids from a range
+ * reserved for it, so that the ids do not depend on the scheduling of the threads.
  * @param <V> The graph's vertices type.
  * @param <E> The graph's edges type.
  * @param <D> The value to be computed for each vertex.
  *           It should have a valid {@link Object#equals(Object)} implementation.
  */
 public abstract class BackwardDataFlowAnalysis<V, E, D> {
+    /** The number of node ids reserved for the initial value of each vertex and for each component. */
+    protected static final long IDS_PER_TASK = 1L << 24;
+
     /** The graph on which this algorithm iterates. */
     protected final AbstractGraph<V, E> graph;
     /** A mapping of the latest value computed per node. */
-    protected final Map<V, D> vertexDataMap = new HashMap<>();
+    protected final Map<V, D> vertexDataMap = new ConcurrentHashMap<>();
+    /** The position of each vertex in a depth-first postorder of the graph. */
+    protected final Map<V, Integer> postorder = new HashMap<>();
+
+    /** Guards the graphs modified by {@link #compute(Object, Set)} when solving in parallel. */
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     protected boolean built = false;
+    /** The number of threads used to solve independent components. */
+    protected int parallelism = 1;
+    /** The number of strongly connected components solved. */
+    protected final AtomicInteger componentCount = new AtomicInteger();
+    /** The number of times {@link #compute(Object, Set)} has been called. */
+    protected final AtomicInteger iterationCount = new AtomicInteger();
+    /** The number of computations aborted by an {@link IllegalArgumentException}. */
+    protected final AtomicInteger failureCount = new AtomicInteger();
 
     public BackwardDataFlowAnalysis(AbstractGraph<V, E> graph) {
         this.graph = graph;
@@ -29,24 +64,202 @@ public abstract class BackwardDataFlowAnalysis<V, E, D> {
      *  This method only performs the analysis on its first call. */
     public void analyze() {
         assert !built;
-        List<V> workList = new LinkedList<>(graph.vertexSet());
-        graph.vertexSet().forEach(v -> vertexDataMap.put(v, initialValue(v)));
+        List<V> vertices = new ArrayList<>(graph.vertexSet());
+        List<List<V>> components = new ArrayList<>(stronglyConnectedComponents());
+        long firstId = IdHelper.getInstance().reserve((vertices.size() + components.size()) * IDS_PER_TASK);
+        if (parallelism > 1) {
+            analyzeInParallel(vertices, components, firstId);
+        } else {
+            for (int i = 0; i < vertices.size(); i++)
+                initialize(vertices.get(i), firstId + i * IDS_PER_TASK);
+            for (int i = 0; i < components.size(); i++)
+                solve(components.get(i), firstId + (vertices.size() + i) * IDS_PER_TASK);
+        }
+        built = true;
+    }
+
+    /** Solve the components level by level on a fork-join pool. The components of a level only reach
+     *  components of lower levels, so they are independent of each other. */
+    protected void analyzeInParallel(List<V> vertices, List<List<V>> components, long firstId) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, vertices.size()).parallel()
+                    .forEach(i -> initialize(vertices.get(i), firstId + i * IDS_PER_TASK))).get();
+            for (List<Integer> level : levels(components))
+                pool.submit(() -> level.parallelStream()
+                        .forEach(i -> solve(components.get(i), firstId + (vertices.size() + i) * IDS_PER_TASK))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("In BackwardDataFlowAnalysis.analyzeInParallel: " + e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException("In BackwardDataFlowAnalysis.analyzeInParallel: " + e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Groups the components (in reverse topological order) by their height: sink components are in the
+     *  first level, and each other component is one level above the highest component it reaches.
+     *  @return the indexes of the components of each level. */
+    protected List<List<Integer>> levels(List<List<V>> components) {
+        Map<V, Integer> heights = new HashMap<>();
+        List<List<Integer>> levels = new ArrayList<>();
+        for (int i = 0; i < components.size(); i++) {
+            List<V> component = components.get(i);
+            int height = 0;
+            for (V vertex : component)
+                for (E edge : graph.outgoingEdgesOf(vertex))
+                    height = Math.max(height, heights.getOrDefault(graph.getEdgeTarget(edge), -1) + 1);
+            for (V vertex : component)
+                heights.put(vertex, height);
+            while (levels.size() <= height)
+                levels.add(new ArrayList<>());
+            levels.get(height).add(i);
+        }
+        return levels;
+    }
+
+    /** Compute the initial value of a vertex, creating its nodes with ids from the range that starts at the given id. */
+    protected void initialize(V vertex, long firstId) {
+        IdHelper.getInstance().withRange(firstId, IDS_PER_TASK, () -> vertexDataMap.put(vertex, initialValue(vertex)));
+    }
+
+    /** {@link #solve(List) Solve} a component, creating its nodes with ids from the range that starts at the given id. */
+    protected void solve(List<V> component, long firstId) {
+        IdHelper.getInstance().withRange(firstId, IDS_PER_TASK, () -> {
+            solve(component);
+            return null;
+        });
+    }
+
+    /** Iterate through a strongly connected component until a fixed-point is reached. The components
+     *  reachable from it must have been solved before. */
+    protected void solve(List<V> component) {
+        Set<V> members = new HashSet<>(component);
+        Queue<V> workList = new PriorityQueue<>(Comparator.comparing(postorder::get));
+        Set<V> queued = new HashSet<>(component);
+        workList.addAll(component);
         while (!workList.isEmpty()) {
-            List<V> newWorkList = new LinkedList<>();
-            for (V vertex : workList) {
-                try {
-                    Set<V> mayAffectVertex = graph.outgoingEdgesOf(vertex).stream()
-                            .map(graph::getEdgeTarget).collect(Collectors.toCollection(ASTUtils::newIdentityHashSet));
-                    D newValue = compute(vertex, mayAffectVertex);
-                    if (!dataMatch(vertexDataMap.get(vertex), newValue)) {
-                        vertexDataMap.put(vertex, newValue);
-                        graph.incomingEdgesOf(vertex).stream().map(graph::getEdgeSource).forEach(newWorkList::add);
+            V vertex = workList.poll();
+            queued.remove(vertex);
+            iterationCount.incrementAndGet();
+            try {
+                Set<V> mayAffectVertex = graph.outgoingEdgesOf(vertex).stream()
+                        .map(graph::getEdgeTarget).collect(Collectors.toCollection(ASTUtils::newIdentityHashSet));
+                D newValue = compute(vertex, mayAffectVertex);
+                if (!dataMatch(vertexDataMap.get(vertex), newValue)) {
+                    vertexDataMap.put(vertex, newValue);
+                    // The new value is saved by the next computation of the vertex, which may affect its callers.
+                    // Callers outside the component are computed afterwards anyway.
+                    if (queued.add(vertex))
+                        workList.add(vertex);
+                    for (E edge : graph.incomingEdgesOf(vertex)) {
+                        V source = graph.getEdgeSource(edge);
+                        if (members.contains(source) && queued.add(source))
+                            workList.add(source);
                     }
-                } catch (IllegalArgumentException ignored) {}
+                }
+            } catch (IllegalArgumentException e) {
+                failureCount.incrementAndGet();
+                Logger.log(getClass().getSimpleName(), "Vertex skipped: " + e.getMessage());
             }
-            workList = newWorkList;
         }
-        built = true;
+        componentCount.incrementAndGet();
+    }
+
+    /** Computes the strongly connected components of the graph with Tarjan's algorithm, numbering the vertices
+     *  in postorder. The components are listed in reverse topological order: a component is listed after all
+     *  the components reachable from it. */
+    protected List<List<V>> stronglyConnectedComponents() {
+        Map<V, Integer> index = new HashMap<>();
+        Map<V, Integer> lowLink = new HashMap<>();
+        Deque<V> stack = new ArrayDeque<>();
+        Set<V> onStack = new HashSet<>();
+        List<List<V>> components = new LinkedList<>();
+        for (V root : graph.vertexSet()) {
+            if (index.containsKey(root))
+                continue;
+            Deque<Map.Entry<V, Iterator<E>>> path = new ArrayDeque<>();
+            index.put(root, index.size());
+            lowLink.put(root, index.get(root));
+            stack.push(root);
+            onStack.add(root);
+            path.push(Map.entry(root, graph.outgoingEdgesOf(root).iterator()));
+            while (!path.isEmpty()) {
+                V vertex = path.peek().getKey();
+                Iterator<E> edges = path.peek().getValue();
+                if (edges.hasNext()) {
+                    V target = graph.getEdgeTarget(edges.next());
+                    if (!index.containsKey(target)) {
+                        index.put(target, index.size());
+                        lowLink.put(target, index.get(target));
+                        stack.push(target);
+                        onStack.add(target);
+                        path.push(Map.entry(target, graph.outgoingEdgesOf(target).iterator()));
+                    } else if (onStack.contains(target)) {
+                        lowLink.put(vertex, Math.min(lowLink.get(vertex), index.get(target)));
+                    }
+                    continue;
+                }
+                path.pop();
+                postorder.put(vertex, postorder.size());
+                if (!path.isEmpty()) {
+                    V parent = path.peek().getKey();
+                    lowLink.put(parent, Math.min(lowLink.get(parent), lowLink.get(vertex)));
+                }
+                if (lowLink.get(vertex).equals(index.get(vertex))) {
+                    List<V> component = new LinkedList<>();
+                    V member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (member != vertex);
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    /** Run a computation that only reads the graphs modified by the analysis. */
+    protected <T> T readLocked(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Run a modification of the graphs, excluding any other computation. */
+    protected void writeLocked(Runnable runnable) {
+        lock.writeLock().lock();
+        try {
+            runnable.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Set the number of threads used to solve independent components, one by default.
+     *  This method must be called before {@link #analyze()}. */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getComponentCount() {
+        return componentCount.get();
+    }
+
+    public int getIterationCount() {
+        return iterationCount.get();
+    }
+
+    public int getFailureCount() {
+        return failureCount.get();
     }
 
     /** Checks whether the computed value has changed or not. */
@@ -1,5 +1,6 @@
 package slicing.graphs;
 
+import com.github.javaparser.Range;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
@@ -40,6 +41,12 @@ import java.util.stream.Stream;
 public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.Edge<?>> implements Buildable<NodeList<CompilationUnit>> {
     private final Map<CallableDeclaration<?>, CFG> cfgMap;
     private final ClassGraph classGraph;
+    /** Declaration (by identity) to its vertex. */
+    private final Map<CallableDeclaration<?>, Vertex> vertexIndex = new IdentityHashMap<>();
+    /** {@link Vertex#matchKey(CallableDeclaration) Match key} to its vertex, for equivalent declarations. */
+    private final Map<String, Vertex> vertexKeyIndex = new HashMap<>();
+    /** Range of the call AST node to the edges whose call is in that range, see {@link #getCallTargets}. */
+    private final Map<Optional<Range>, List<Edge<?>>> callIndex = new HashMap<>();
 
     private boolean built = false;
 
@@ -49,9 +56,11 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
         this.classGraph = classGraph;
     }
 
-    /** Resolve a call to all its possible declarations, by using the call AST nodes stored on the edges. */
+    /** Resolve a call to all its possible declarations, by using the call AST nodes stored on the edges.
+     *  The calls are compared {@link ASTUtils#equalsWithRange(Node, Node) by value and range}, so only the
+     *  edges of calls with the same range are checked. */
     public Stream<CallableDeclaration<?>> getCallTargets(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        return edgeSet().stream()
+        return callIndex.getOrDefault(((Node) call).getRange(), Collections.emptyList()).stream()
                 .filter(e -> ASTUtils.equalsWithRange(e.getCall(), call))
                 .map(this::getEdgeTarget)
                 .map(Vertex::getDeclaration)
@@ -89,9 +98,70 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
 
     /** Locate the vertex that represents in this graph the given declaration. */
     protected Vertex findVertexByDeclaration(CallableDeclaration<?> declaration) {
-        return vertexSet().stream()
-                .filter(v -> v.matches(declaration))
-                .findFirst().orElseThrow();
+        Vertex vertex = vertexIndex.get(declaration);
+        if (vertex == null) {
+            String key = Vertex.matchKey(declaration);
+            if (key != null)
+                vertex = vertexKeyIndex.get(key);
+        }
+        if (vertex == null)
+            throw new NoSuchElementException("No vertex for " + declaration.getDeclarationAsString(false, false, false));
+        return vertex;
+    }
+
+    @Override
+    public boolean addVertex(Vertex vertex) {
+        if (!super.addVertex(vertex))
+            return false;
+        vertexIndex.put(vertex.getDeclaration(), vertex);
+        String key = Vertex.matchKey(vertex.getDeclaration());
+        if (key != null)
+            vertexKeyIndex.putIfAbsent(key, vertex);
+        return true;
+    }
+
+    @Override
+    public boolean removeVertex(Vertex vertex) {
+        if (!containsVertex(vertex))
+            return false;
+        Vertex contained = findVertexByDeclaration(vertex.getDeclaration());
+        if (!super.removeVertex(vertex))
+            return false;
+        vertexIndex.remove(contained.getDeclaration());
+        String key = Vertex.matchKey(contained.getDeclaration());
+        if (key != null)
+            vertexKeyIndex.remove(key, contained);
+        return true;
+    }
+
+    @Override
+    public boolean addEdge(Vertex source, Vertex target, Edge<?> edge) {
+        if (!super.addEdge(source, target, edge))
+            return false;
+        callIndex.computeIfAbsent(((Node) edge.getCall()).getRange(), k -> new ArrayList<>(1)).add(edge);
+        return true;
+    }
+
+    @Override
+    public boolean removeEdge(Edge<?> edge) {
+        if (!super.removeEdge(edge))
+            return false;
+        Optional<Range> range = ((Node) edge.getCall()).getRange();
+        List<Edge<?>> edges = callIndex.get(range);
+        if (edges != null) {
+            edges.remove(edge);
+            if (edges.isEmpty())
+                callIndex.remove(range);
+        }
+        return true;
+    }
+
+    @Override
+    public Edge<?> removeEdge(Vertex source, Vertex target) {
+        Edge<?> edge = getEdge(source, target);
+        if (edge != null)
+            removeEdge(edge);
+        return edge;
     }
 
     @Override
@@ -326,6 +396,16 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             return declaration.toString();
         }
 
+        /** The key shared by all declarations that {@link #matches(CallableDeclaration) match} each other
+         *  without being the same node: the signature and the name of the enclosing type.
+         *  {@code null} if the declaration has no named ancestor. */
+        public static String matchKey(CallableDeclaration<?> declaration) {
+            var type = declaration.findAncestor(NodeWithSimpleName.class).orElse(null);
+            if (type == null)
+                return null;
+            return declaration.getSignature().toString() + "@" + type.getNameAsString();
+        }
+
         public boolean matches(CallableDeclaration<?> declaration) {
             if (this.declaration == declaration)
                 return true;
@@ -21,24 +21,53 @@ import slicing.utils.ASTUtils;
 import slicing.utils.StaticConfig;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static slicing.nodes.ObjectTree.ROOT_NODE;
 
+/**
+ * A graph of the types of a program, their fields and methods, connected by inheritance. Each {@link
+ * slicing.graphs.sdg.SDG SDG} owns the class graph of the compilation units it is built from, and binds it as
+ * the {@link #current() current} class graph while it is built and sliced, so that the nodes and variable actions
+ * created in the process can access it. Once built, the class graph is only read, and it may be shared by
+ * several threads.
+ */
 public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassGraph.ClassArc> implements Buildable<NodeList<CompilationUnit>> {
-    private static ClassGraph instance = null;
-
-    /** Generates and returns a new class graph. This destroys the reference to the previous instance. */
-    public static ClassGraph getNewInstance() {
-        instance = null;
-        return getInstance();
+    /** The class graph bound to each thread. Threads inherit the binding of the thread that creates them,
+     *  such as the workers of the fork-join pools created during the build of an SDG. */
+    private static final InheritableThreadLocal<ClassGraph> CURRENT = new InheritableThreadLocal<>();
+    /** The class graph used when none is bound to the current thread. */
+    private static final ClassGraph EMPTY = new ClassGraph();
+
+    /** Obtain the class graph bound to the current thread, or an empty class graph if there is none.
+     *  @see #withCurrent(Supplier) */
+    public static ClassGraph current() {
+        ClassGraph classGraph = CURRENT.get();
+        return classGraph == null ? EMPTY : classGraph;
+    }
+
+    /** Run the action with this class graph as the {@link #current() current} one in the calling thread. */
+    public <T> T withCurrent(Supplier<T> action) {
+        ClassGraph previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
     }
 
-    public static ClassGraph getInstance() {
-        if (instance == null)
-            instance = new ClassGraph();
-        return instance;
+    /** @see #withCurrent(Supplier) */
+    public void withCurrent(Runnable action) {
+        withCurrent(() -> {
+            action.run();
+            return null;
+        });
     }
 
     /** A map from the FQ class name to its corresponding vertex. Use {@code mapKey(...)} to locate the key. */
@@ -49,9 +78,13 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
     @Getter
     private final Map<String, ClassGraph.Vertex<CallableDeclaration<?>>> methodDeclarationMap = new HashMap<>();
 
+    /** The results of {@link #subclassesOf(Vertex)} and {@link #overriddenSetOf(MethodDeclaration)}, by identity. */
+    private final Map<Vertex<?>, Set<? extends TypeDeclaration<?>>> subclassesCache = Collections.synchronizedMap(ASTUtils.newIdentityHashMap());
+    private final Map<MethodDeclaration, Set<MethodDeclaration>> overriddenCache = Collections.synchronizedMap(ASTUtils.newIdentityHashMap());
+
     private boolean built = false;
 
-    private ClassGraph() {
+    public ClassGraph() {
         super(null, null, false);
     }
 
@@ -75,8 +108,12 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
         return type.isReferenceType() && classDeclarationMap.containsKey(mapKey(type.asReferenceType()));
     }
 
-    /** Set of method declarations that override the given argument. */
+    /** Set of method declarations that override the given argument. The result is computed once per method. */
     public Set<MethodDeclaration> overriddenSetOf(MethodDeclaration method) {
+        return overriddenCache.computeIfAbsent(method, m -> Collections.unmodifiableSet(computeOverriddenSetOf(m)));
+    }
+
+    protected Set<MethodDeclaration> computeOverriddenSetOf(MethodDeclaration method) {
         return subclassesStreamOf(findClassVertex(method.findAncestor(TypeDeclaration.class).orElseThrow()))
                 .flatMap(vertex -> outgoingEdgesOf(vertex).stream()
                         .filter(ClassArc.Member.class::isInstance)
@@ -121,8 +158,12 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex<?>, ClassG
         return subclassesOf(classDeclarationMap.get(mapKey(type)));
     }
 
-    /** @see #subclassesOf(TypeDeclaration) */
+    /** @see #subclassesOf(TypeDeclaration) The result is computed once per vertex. */
     protected Set<? extends TypeDeclaration<?>> subclassesOf(Vertex<? extends TypeDeclaration<?>> v) {
+        return subclassesCache.computeIfAbsent(v, vertex -> Collections.unmodifiableSet(computeSubclassesOf(v)));
+    }
+
+    protected Set<? extends TypeDeclaration<?>> computeSubclassesOf(Vertex<? extends TypeDeclaration<?>> v) {
         if (v.getDeclaration() instanceof EnumDeclaration)
             return Set.of(v.getDeclaration());
         return subclassesStreamOf(v)
@@ -65,7 +65,7 @@ public class ExpressionObjectTreeFinder {
         if (variableDeclarator.getInitializer().isEmpty())
             throw new IllegalArgumentException("The variableDeclarator must have an initializer!");
         VariableAction targetAction = locateVAVariableDeclarator(realName);
-        ClassGraph.getInstance().generateObjectTreeForType(variableDeclarator.getType().resolve())
+        ClassGraph.current().generateObjectTreeForType(variableDeclarator.getType().resolve())
                 .ifPresent(objectTree -> targetAction.getObjectTree().addAll(objectTree));
         locateExpressionResultTrees(variableDeclarator.getInitializer().get())
                 .forEach(pair -> markTransference(pair, targetAction, ""));
@@ -98,7 +98,7 @@ public class ExpressionObjectTreeFinder {
      *  If the LHS of this assignment is an array access expression, the method
      *  {@link #handleArrayAssignExpr(AssignExpr)} should be used. */
     public void handleAssignExpr(AssignExpr assignExpr, VariableAction assignTarget, String targetMember) {
-        ClassGraph.getInstance().generateObjectTreeForType(assignExpr.getTarget().calculateResolvedType())
+        ClassGraph.current().generateObjectTreeForType(assignExpr.getTarget().calculateResolvedType())
                 .ifPresent(fields -> assignTarget.getObjectTree().addAll(fields));
         List<Pair<VariableAction, String>> list = new LinkedList<>();
         if (assignExpr.getOperator() != AssignExpr.Operator.ASSIGN)
@@ -334,7 +334,7 @@ public class ExpressionObjectTreeFinder {
         String sourceMember = sourcePair.b;
         if (targetAction.hasObjectTree()) {
             boolean sourceTypesInClassGraph = sourceAction.getDynamicTypes().stream()
-                    .anyMatch(ClassGraph.getInstance()::containsType);
+                    .anyMatch(ClassGraph.current()::containsType);
             if (sourceTypesInClassGraph && !hasObjectTreeAt(sourceAction, sourceMember))
                 ObjectTree.copyTargetTreeToSource(sourceAction.getObjectTree(), targetAction.getObjectTree(), sourceMember, targetMember);
             sourceAction.setPDGTreeConnectionTo(targetAction, sourceMember, targetMember);
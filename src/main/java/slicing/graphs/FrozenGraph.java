@@ -0,0 +1,138 @@
+package slicing.graphs;
+
+import slicing.arcs.Arc;
+import slicing.arcs.pdg.ConditionalControlDependencyArc.CC1;
+import slicing.arcs.pdg.ConditionalControlDependencyArc.CC2;
+import slicing.arcs.sdg.InterproceduralArc;
+import slicing.nodes.GraphNode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only copy of the incoming arcs of a {@link Graph}, in compressed sparse row form, to be
+ * traversed by the slicing algorithms. The nodes are numbered densely, in the iteration order of the graph.
+ * The incoming arcs of node {@code i} are numbered from {@link #getIncomingStart(int) getIncomingStart(i)}
+ * to {@link #getIncomingEnd(int) getIncomingEnd(i)} (exclusive), in the iteration order of
+ * {@link Graph#incomingEdgesOf(Object)}. Each arc stores the number of its source and its kind, a set
+ * of flags computed once by {@link #kindOf(Arc)}.
+ * <br/>
+ * The copy does not reflect the changes made to the graph after its creation, see {@link Graph#freeze()}.
+ */
+public class FrozenGraph {
+    /** The arc is a control dependency, conditional or not. */
+    public static final byte CONTROL_DEPENDENCY = 1;
+    /** The arc is a {@link CC1 conditional control dependency} of the first kind. */
+    public static final byte CONDITIONAL_1 = 1 << 1;
+    /** The arc is a {@link CC2 conditional control dependency} of the second kind. */
+    public static final byte CONDITIONAL_2 = 1 << 2;
+    /** The arc is a data dependency. */
+    public static final byte DATA_DEPENDENCY = 1 << 3;
+    /** The arc {@link Arc#isObjectFlow() transfers an object}. */
+    public static final byte OBJECT_FLOW = 1 << 4;
+    /** The arc connects nodes from different procedures (e.g. call, parameter-in/out and return arcs). */
+    public static final byte INTERPROCEDURAL = 1 << 5;
+    /** @see Arc#isInterproceduralInputArc() */
+    public static final byte INTERPROCEDURAL_INPUT = 1 << 6;
+    /** @see Arc#isInterproceduralOutputArc() */
+    public static final byte INTERPROCEDURAL_OUTPUT = (byte) (1 << 7);
+
+    protected final GraphNode<?>[] nodes;
+    protected final Map<GraphNode<?>, Integer> indices;
+    /** The position of the first incoming arc of each node, and the number of arcs at the end. */
+    protected final int[] incomingOffsets;
+    /** The source, object and kind of each arc, by position. */
+    protected final int[] sources;
+    protected final Arc[] arcs;
+    protected final byte[] kinds;
+
+    public FrozenGraph(Graph graph) {
+        int size = graph.vertexSet().size();
+        nodes = new GraphNode<?>[size];
+        indices = new HashMap<>(size * 2);
+        for (GraphNode<?> node : graph.vertexSet()) {
+            nodes[indices.size()] = node;
+            indices.put(node, indices.size());
+        }
+        int arcCount = graph.edgeSet().size();
+        incomingOffsets = new int[size + 1];
+        sources = new int[arcCount];
+        arcs = new Arc[arcCount];
+        kinds = new byte[arcCount];
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            incomingOffsets[i] = position;
+            for (Arc arc : graph.incomingEdgesOf(nodes[i])) {
+                sources[position] = indices.get(graph.getEdgeSource(arc));
+                arcs[position] = arc;
+                kinds[position] = kindOf(arc);
+                position++;
+            }
+        }
+        incomingOffsets[size] = position;
+    }
+
+    /** Computes the kind of an arc, as a combination of the flags of this class. */
+    public static byte kindOf(Arc arc) {
+        int kind = 0;
+        if (arc.isControlDependencyArc())
+            kind |= CONTROL_DEPENDENCY;
+        if (arc instanceof CC1)
+            kind |= CONDITIONAL_1;
+        if (arc instanceof CC2)
+            kind |= CONDITIONAL_2;
+        if (arc.isDataDependencyArc())
+            kind |= DATA_DEPENDENCY;
+        if (arc.isObjectFlow())
+            kind |= OBJECT_FLOW;
+        if (arc instanceof InterproceduralArc)
+            kind |= INTERPROCEDURAL;
+        if (arc.isInterproceduralInputArc())
+            kind |= INTERPROCEDURAL_INPUT;
+        if (arc.isInterproceduralOutputArc())
+            kind |= INTERPROCEDURAL_OUTPUT;
+        return (byte) kind;
+    }
+
+    /** The number of nodes. */
+    public int size() {
+        return nodes.length;
+    }
+
+    /** The number of the given node, or -1 if it is not part of the graph. */
+    public int indexOf(GraphNode<?> node) {
+        return indices.getOrDefault(node, -1);
+    }
+
+    public GraphNode<?> getNode(int index) {
+        return nodes[index];
+    }
+
+    /** The position of the first incoming arc of the given node. */
+    public int getIncomingStart(int node) {
+        return incomingOffsets[node];
+    }
+
+    /** The position after the last incoming arc of the given node. */
+    public int getIncomingEnd(int node) {
+        return incomingOffsets[node + 1];
+    }
+
+    /** The number of the source of the arc at the given position. */
+    public int getSource(int arc) {
+        return sources[arc];
+    }
+
+    public Arc getArc(int arc) {
+        return arcs[arc];
+    }
+
+    public byte getKind(int arc) {
+        return kinds[arc];
+    }
+
+    /** Whether the arc at the given position has any of the given kinds. */
+    public boolean hasKind(int arc, byte kind) {
+        return (kinds[arc] & kind) != 0;
+    }
+}
@@ -1,5 +1,7 @@
 package slicing.graphs;
 
+import com.github.javaparser.Range;
+import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import org.jgrapht.graph.DirectedPseudograph;
 import slicing.arcs.Arc;
@@ -7,17 +9,88 @@ import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
 import slicing.utils.ASTUtils;
 
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /** A generic base graph with some utility methods to more easily create and locate nodes. */
 public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
+    /** Real nodes by the position of their AST node, see {@link #findAllNodesByASTNode(Node)}. */
+    private final Map<NodeKey, List<GraphNode<?>>> realNodeIndex = new HashMap<>();
+    /** Synthetic nodes by the position of their AST node. */
+    private final Map<NodeKey, List<GraphNode<?>>> syntheticNodeIndex = new HashMap<>();
+    /** The compact copy of this graph, discarded whenever a node or arc is added or removed. */
+    private FrozenGraph frozenGraph;
+
     protected Graph() {
         super(null, null, false);
     }
 
+    @Override
+    public boolean addVertex(GraphNode<?> node) {
+        if (!super.addVertex(node))
+            return false;
+        frozenGraph = null;
+        nodeIndexOf(node).computeIfAbsent(new NodeKey(node.getAstNode()), k -> new ArrayList<>(1)).add(node);
+        return true;
+    }
+
+    @Override
+    public boolean removeVertex(GraphNode<?> node) {
+        if (!super.removeVertex(node))
+            return false;
+        frozenGraph = null;
+        Map<NodeKey, List<GraphNode<?>>> index = nodeIndexOf(node);
+        NodeKey key = new NodeKey(node.getAstNode());
+        List<GraphNode<?>> bucket = index.get(key);
+        if (bucket != null) {
+            bucket.remove(node);
+            if (bucket.isEmpty())
+                index.remove(key);
+        }
+        return true;
+    }
+
+    @Override
+    public Arc addEdge(GraphNode<?> source, GraphNode<?> target) {
+        frozenGraph = null;
+        return super.addEdge(source, target);
+    }
+
+    @Override
+    public boolean addEdge(GraphNode<?> source, GraphNode<?> target, Arc arc) {
+        frozenGraph = null;
+        return super.addEdge(source, target, arc);
+    }
+
+    @Override
+    public Arc removeEdge(GraphNode<?> source, GraphNode<?> target) {
+        frozenGraph = null;
+        return super.removeEdge(source, target);
+    }
+
+    @Override
+    public boolean removeEdge(Arc arc) {
+        frozenGraph = null;
+        return super.removeEdge(arc);
+    }
+
+    /** Compile this graph into a compact, read-only {@link FrozenGraph}, which the slicing algorithms
+     *  traverse instead of this graph until a node or arc is added or removed. */
+    public FrozenGraph freeze() {
+        frozenGraph = new FrozenGraph(this);
+        return frozenGraph;
+    }
+
+    /** The compact copy of this graph, if it has been {@link #freeze() frozen} and not modified since. */
+    public Optional<FrozenGraph> getFrozenGraph() {
+        return Optional.ofNullable(frozenGraph);
+    }
+
+    private Map<NodeKey, List<GraphNode<?>>> nodeIndexOf(GraphNode<?> node) {
+        return node instanceof SyntheticNode ? syntheticNodeIndex : realNodeIndex;
+    }
+
     /** Creates and adds to the graph a normal node with the given label and AST. */
     public <T extends Node> GraphNode<T> addVertex(String label, T astNode) {
         GraphNode<T> node = new GraphNode<>(label, astNode);
@@ -31,19 +104,35 @@ public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
      *                                representing the given AST node. */
     @SuppressWarnings("unchecked")
     public <T extends Node> Optional<GraphNode<T>> findNodeByASTNode(T astNode) {
-        Set<GraphNode<?>> set = findAllNodes(n -> ASTUtils.equalsWithRangeInCU(n.getAstNode(), astNode));
-        if (set.isEmpty())
+        NodeKey key = new NodeKey(astNode);
+        Set<GraphNode<?>> real = findInBucket(realNodeIndex, key, astNode);
+        Set<GraphNode<?>> synthetic = findInBucket(syntheticNodeIndex, key, astNode);
+        if (real.size() + synthetic.size() == 1)
+            return Optional.of((GraphNode<T>) (real.isEmpty() ? synthetic : real).iterator().next());
+        if (real.isEmpty())
             return Optional.empty();
-        if (set.size() == 1)
-            return Optional.of((GraphNode<T>) set.iterator().next());
-        set.removeIf(SyntheticNode.class::isInstance);
-        if (set.isEmpty())
-            return Optional.empty();
-        if (set.size() == 1)
-            return Optional.of((GraphNode<T>) set.iterator().next());
+        if (real.size() == 1)
+            return Optional.of((GraphNode<T>) real.iterator().next());
         throw new IllegalStateException("There may only be one real node representing each AST node in the graph!");
     }
 
+    /** Search for all nodes, synthetic or not, that represent the given AST node. The AST nodes are compared
+     *  {@link ASTUtils#equalsWithRangeInCU(Node, Node) by value, range and compilation unit}. */
+    public Set<GraphNode<?>> findAllNodesByASTNode(Node astNode) {
+        NodeKey key = new NodeKey(astNode);
+        Set<GraphNode<?>> set = findInBucket(realNodeIndex, key, astNode);
+        set.addAll(findInBucket(syntheticNodeIndex, key, astNode));
+        return set;
+    }
+
+    private static Set<GraphNode<?>> findInBucket(Map<NodeKey, List<GraphNode<?>>> index, NodeKey key, Node astNode) {
+        Set<GraphNode<?>> set = new HashSet<>();
+        for (GraphNode<?> node : index.getOrDefault(key, Collections.emptyList()))
+            if (ASTUtils.equalsWithRangeInCU(node.getAstNode(), astNode))
+                set.add(node);
+        return set;
+    }
+
     /** Search for a node in the graph given a predicate it must pass.
      *  If multiple nodes match the predicate, the first one found is returned. */
     public Optional<GraphNode<?>> findNodeBy(Predicate<GraphNode<?>> p) {
@@ -55,6 +144,27 @@ public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
         return vertexSet().stream().filter(p).collect(Collectors.toSet());
     }
 
+    /** The compilation unit (by identity) and range of an AST node, the bucket of its graph nodes. */
+    private static final class NodeKey {
+        private final CompilationUnit cu;
+        private final Range range;
+
+        NodeKey(Node astNode) {
+            this.cu = astNode == null ? null : astNode.findCompilationUnit().orElse(null);
+            this.range = astNode == null ? null : astNode.getRange().orElse(null);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof NodeKey && ((NodeKey) obj).cu == cu && Objects.equals(((NodeKey) obj).range, range);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(cu) + Objects.hashCode(range);
+        }
+    }
+
     @Override
     public String toString() {
         return vertexSet().stream().sorted()
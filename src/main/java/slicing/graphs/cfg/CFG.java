@@ -59,7 +59,8 @@ public class CFG extends GraphWithRootNode<CallableDeclaration<?>> {
         return outgoingEdgesOf(graphNode).size() > 1;
     }
 
-    /** Obtain the definitions that may have reached the given variable action. */
+    /** Obtain the definitions that may have reached the given variable action.
+     *  To query many actions of a CFG that does not change, use {@link ReachingDefinitions}. */
     public List<VariableAction> findLastDefinitionsFrom(VariableAction variable) {
         return findLastVarActionsFrom(variable, VariableAction::isDefinition);
     }
@@ -0,0 +1,197 @@
+package slicing.graphs.cfg;
+
+import slicing.arcs.Arc;
+import slicing.nodes.GraphNode;
+import slicing.nodes.VariableAction;
+import slicing.utils.NodeNotFoundException;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A reaching definitions analysis of a {@link CFG}, computed once for all the variables and answering
+ * the same queries as {@link CFG#findLastVarActionsFrom(VariableAction, Predicate)}.
+ * <br/>
+ * The actions that pass the filter are numbered densely, and each node has the set of actions that
+ * reach its start and its end, as {@link BitSet}s. A node generates its last matching actions of each
+ * variable, up to the last one that is not optional, which also kills every other action of that variable.
+ * Only executable control-flow arcs are traversed.
+ * <br/>
+ * The analysis is a snapshot: it does not reflect variable actions added to the CFG after its creation.
+ */
+public class ReachingDefinitions {
+    protected final CFG cfg;
+    protected final List<GraphNode<?>> nodes = new ArrayList<>();
+    protected final Map<GraphNode<?>, Integer> nodeIndices = new HashMap<>();
+    /** The actions that pass the filter, and the index of the node that contains each of them. */
+    protected final List<VariableAction> actions = new ArrayList<>();
+    protected final List<Integer> actionNodes = new ArrayList<>();
+    /** The number of each action of each node, or -1 if it does not pass the filter. */
+    protected final List<int[]> actionNumbers = new ArrayList<>();
+    /** The actions of each variable. */
+    protected final Map<String, BitSet> variableActions = new HashMap<>();
+    protected final Predicate<VariableAction> filter;
+    protected BitSet[] in;
+    protected BitSet[] out;
+
+    public ReachingDefinitions(CFG cfg, Predicate<VariableAction> filter) {
+        this.cfg = cfg;
+        this.filter = filter;
+        for (GraphNode<?> node : cfg.vertexSet()) {
+            nodeIndices.put(node, nodes.size());
+            nodes.add(node);
+        }
+        for (int n = 0; n < nodes.size(); n++) {
+            List<VariableAction> nodeActions = nodes.get(n).getVariableActions();
+            int[] numbers = new int[nodeActions.size()];
+            for (int i = 0; i < numbers.length; i++) {
+                VariableAction action = nodeActions.get(i);
+                BitSet bits = variableActions.computeIfAbsent(action.getName(), name -> new BitSet());
+                numbers[i] = -1;
+                if (filter.test(action)) {
+                    numbers[i] = actions.size();
+                    bits.set(actions.size());
+                    actions.add(action);
+                    actionNodes.add(n);
+                }
+            }
+            actionNumbers.add(numbers);
+        }
+        solve();
+    }
+
+    /** Computes the actions that reach the start and end of each node, with a worklist in reverse postorder. */
+    protected void solve() {
+        int size = nodes.size();
+        BitSet[] gen = new BitSet[size];
+        BitSet[] kill = new BitSet[size];
+        int[][] predecessors = new int[size][];
+        int[][] successors = new int[size][];
+        for (int n = 0; n < size; n++) {
+            gen[n] = new BitSet();
+            kill[n] = new BitSet();
+            computeTransfer(n, gen[n], kill[n]);
+            predecessors[n] = neighbours(n, false);
+            successors[n] = neighbours(n, true);
+        }
+        int[] order = reversePostorder(successors);
+        int[] position = new int[size];
+        for (int i = 0; i < size; i++)
+            position[order[i]] = i;
+        in = new BitSet[size];
+        out = new BitSet[size];
+        BitSet pending = new BitSet(size);
+        for (int n = 0; n < size; n++) {
+            in[n] = new BitSet();
+            out[n] = (BitSet) gen[n].clone();
+            pending.set(position[n]);
+        }
+        for (int i = pending.nextSetBit(0); i >= 0; i = pending.nextSetBit(0)) {
+            pending.clear(i);
+            int n = order[i];
+            for (int predecessor : predecessors[n])
+                in[n].or(out[predecessor]);
+            BitSet newOut = (BitSet) in[n].clone();
+            newOut.andNot(kill[n]);
+            newOut.or(gen[n]);
+            if (!newOut.equals(out[n])) {
+                out[n] = newOut;
+                for (int successor : successors[n])
+                    pending.set(position[successor]);
+            }
+        }
+    }
+
+    /** Computes the actions generated and killed by a node, per variable. */
+    protected void computeTransfer(int n, BitSet gen, BitSet kill) {
+        Set<String> killed = new HashSet<>();
+        int[] numbers = actionNumbers.get(n);
+        for (int i = numbers.length - 1; i >= 0; i--) {
+            if (numbers[i] == -1)
+                continue;
+            VariableAction action = actions.get(numbers[i]);
+            if (killed.contains(action.getName()))
+                continue;
+            gen.set(numbers[i]);
+            if (!action.isOptional()) {
+                killed.add(action.getName());
+                kill.or(variableActions.get(action.getName()));
+            }
+        }
+    }
+
+    /** The indices of the nodes connected to the given one by executable arcs. */
+    protected int[] neighbours(int n, boolean forward) {
+        GraphNode<?> node = nodes.get(n);
+        Set<Arc> arcs = forward ? cfg.outgoingEdgesOf(node) : cfg.incomingEdgesOf(node);
+        return arcs.stream()
+                .filter(Arc::isExecutableControlFlowArc)
+                .mapToInt(arc -> nodeIndices.get(forward ? cfg.getEdgeTarget(arc) : cfg.getEdgeSource(arc)))
+                .toArray();
+    }
+
+    /** A reverse postorder of the nodes, walking the executable arcs from each node in turn. */
+    protected static int[] reversePostorder(int[][] successors) {
+        int size = successors.length;
+        int[] order = new int[size];
+        int next = size;
+        boolean[] visited = new boolean[size];
+        Deque<int[]> path = new ArrayDeque<>(); // node index, next successor position
+        for (int root = 0; root < size; root++) {
+            if (visited[root])
+                continue;
+            visited[root] = true;
+            path.push(new int[] { root, 0 });
+            while (!path.isEmpty()) {
+                int[] frame = path.peek();
+                if (frame[1] < successors[frame[0]].length) {
+                    int successor = successors[frame[0]][frame[1]++];
+                    if (!visited[successor]) {
+                        visited[successor] = true;
+                        path.push(new int[] { successor, 0 });
+                    }
+                } else {
+                    order[--next] = path.pop()[0];
+                }
+            }
+        }
+        return order;
+    }
+
+    /** Obtain the actions that may have reached the given variable action.
+     *  @see CFG#findLastVarActionsFrom(VariableAction, Predicate) */
+    public List<VariableAction> findLastActionsFrom(VariableAction variable) {
+        GraphNode<?> node = variable.getGraphNode();
+        Integer n = nodeIndices.get(node);
+        if (n == null)
+            throw new NodeNotFoundException(node, cfg);
+        List<VariableAction> result = new LinkedList<>();
+        if (findLocalActions(node, variable, result))
+            return result;
+        BitSet reaching = (BitSet) in[n].clone();
+        reaching.and(variableActions.getOrDefault(variable.getName(), new BitSet()));
+        // Actions of the same node only reach it through its start, which was checked above
+        for (int a = reaching.nextSetBit(0); a >= 0; a = reaching.nextSetBit(a + 1))
+            if (actionNodes.get(a) != n.intValue())
+                result.add(actions.get(a));
+        return result;
+    }
+
+    /** Finds the matching actions before the variable in its own node, from the last one to the first
+     *  that is not optional. @return whether an action that is not optional was found. */
+    protected boolean findLocalActions(GraphNode<?> node, VariableAction variable, List<VariableAction> result) {
+        List<VariableAction> list = new ArrayList<>();
+        for (VariableAction action : node.getVariableActions()) {
+            if (action == variable)
+                break;
+            if (variable.matches(action) && filter.test(action))
+                list.add(action);
+        }
+        for (int i = list.size() - 1; i >= 0; i--) {
+            result.add(list.get(i));
+            if (!list.get(i).isOptional())
+                return true;
+        }
+        return false;
+    }
+}
@@ -71,7 +71,7 @@ public class JSysDG extends ESSDG {
 
         @Override
         protected void buildCFG(CallableDeclaration<?> declaration, CFG cfg) {
-            ((JSysCFG) cfg).build(declaration, newlyInsertedConstructors, ClassGraph.getInstance());
+            ((JSysCFG) cfg).build(declaration, newlyInsertedConstructors, classGraph);
         }
 
         @Override
@@ -108,12 +108,14 @@ public class JSysDG extends ESSDG {
 
         @Override
         protected void createSummaryArcs() {
-            new SummaryArcAnalyzer(JSysDG.this, callGraph).analyze();
+            var analyzer = new SummaryArcAnalyzer(JSysDG.this, callGraph);
+            analyzer.setParallelism(parallelism);
+            analyzer.analyze();
         }
 
         /** Adds type nodes (classes, interfaces, enums) to the SDG, along with their static fields. */
         protected void insertTypeNodes() {
-            for (ClassGraph.Vertex<? extends TypeDeclaration<?>> cgVertex : ClassGraph.getInstance().typeVertices()) {
+            for (ClassGraph.Vertex<? extends TypeDeclaration<?>> cgVertex : classGraph.typeVertices()) {
                 String kind;
                 if (cgVertex.getDeclaration() instanceof EnumDeclaration) {
                     kind = "enum";
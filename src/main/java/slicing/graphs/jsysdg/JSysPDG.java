@@ -4,6 +4,7 @@ import slicing.arcs.pdg.FlowDependencyArc;
 import slicing.arcs.pdg.ObjectFlowDependencyArc;
 import slicing.arcs.pdg.StructuralArc;
 import slicing.arcs.pdg.TotalDefinitionDependenceArc;
+import slicing.graphs.cfg.ReachingDefinitions;
 import slicing.graphs.exceptionsensitive.ESCFG;
 import slicing.graphs.exceptionsensitive.ESPDG;
 import slicing.graphs.pdg.PDG;
@@ -93,6 +94,9 @@ public class JSysPDG extends ESPDG {
     }
 
     protected class Builder extends ESPDG.Builder {
+        /** The root definitions and declarations reaching each action of the CFG. */
+        protected ReachingDefinitions definitions;
+        protected ReachingDefinitions declarations;
 
         @Override
         protected void buildDataDependency() {
@@ -105,6 +109,8 @@ public class JSysPDG extends ESPDG {
         /** Compute flow, object flow and total definition dependence. */
         protected void buildJSysDataDependency() {
             JSysCFG jSysCFG = (JSysCFG) cfg;
+            definitions = new ReachingDefinitions(jSysCFG, VariableAction::isDefinition);
+            declarations = new ReachingDefinitions(jSysCFG, VariableAction::isDeclaration);
             for (GraphNode<?> node : vertexSet()) {
                 for (VariableAction varAct : node.getVariableActions()) {
                     // Total definition dependence
@@ -135,9 +141,9 @@ public class JSysPDG extends ESPDG {
          *  object flow for object roots and flow for object members. */
         private void buildUsageDependencies(JSysCFG jSysCFG, VariableAction varAct) {
             if (varAct.isPrimitive()) {
-                jSysCFG.findLastDefinitionOfPrimitive(varAct).forEach(def -> addFlowDependencyArc(def, varAct));
+                definitions.findLastActionsFrom(varAct).forEach(def -> addFlowDependencyArc(def, varAct));
             } else {
-                jSysCFG.findLastDefinitionOfObjectRoot(varAct).forEach(def -> addObjectFlowDependencyArc(def, varAct));
+                definitions.findLastActionsFrom(varAct).forEach(def -> addObjectFlowDependencyArc(def, varAct));
                 if (!varAct.hasObjectTree())
                     return;
                 for (String[] member : varAct.getObjectTree().nameAsArrayIterable())
@@ -149,7 +155,7 @@ public class JSysPDG extends ESPDG {
         private void buildDefinitionDependencies(JSysCFG jSysCFG, VariableAction varAct) {
             // Flow declaration --> definition
             if (!varAct.isSynthetic())
-                jSysCFG.findDeclarationFor(varAct).ifPresent(dec -> addFlowDependencyArc(dec, varAct));
+                declarations.findLastActionsFrom(varAct).forEach(dec -> addFlowDependencyArc(dec, varAct));
             // Object flow definition --> definition
             if (varAct.isPrimitive() || !varAct.hasObjectTree())
                 return;
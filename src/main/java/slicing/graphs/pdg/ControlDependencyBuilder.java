@@ -6,14 +6,13 @@ import slicing.arcs.pdg.ControlDependencyArc;
 import slicing.graphs.cfg.CFG;
 import slicing.nodes.GraphNode;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 
 /**
- * A simple but slow finder of control dependencies.
+ * A finder of control dependencies, based on the {@link PostDominatorTree post-dominator tree} of the CFG.
  * <br/>
- * It has a polynomial complexity (between cubed and n**4) with respect to the number of nodes in the CFG.
- * It uses the following definition of control dependence:
+ * It has a linear complexity with respect to the number of arcs in the CFG and the number of
+ * control dependencies found. It uses the following definition of control dependence:
  * <br/>
  * A node <i>b</i> is control dependent on another node <i>a</i> if and only if <i>b</i> post-dominates
  * one but not all of the successors of <i>a</i>.
@@ -21,13 +20,15 @@ import java.util.Set;
  * A node <i>b</i> post-dominates another node <i>a</i> if and only if <i>b</i> appears in every path
  * from <i>a</i> to the "Exit" node.
  * <br/>
- * There exist better, cheaper approaches that have linear complexity w.r.t. the number of edges in the CFG.
+ * The nodes that post-dominate a successor of <i>a</i> are its ancestors in the tree, so the control
+ * dependents of <i>a</i> are the nodes between each successor and their nearest common post-dominator.
  * <b>Usage:</b> pass an empty {@link PDG} and a filled {@link CFG} and then run {@link #build()}.
  * This builder should only be used once, and then discarded.
  */
 public class ControlDependencyBuilder {
     protected final CFG cfg;
     protected final PDG pdg;
+    protected PostDominatorTree postDominatorTree;
 
     public ControlDependencyBuilder(CFG cfg, PDG pdg) {
         this.cfg = cfg;
@@ -46,18 +47,56 @@ public class ControlDependencyBuilder {
             enterExitArc = new ControlFlowArc();
             cfg.addEdge(enterNode, exitNode, enterExitArc);
         }
+        postDominatorTree = null;
 
         Set<GraphNode<?>> nodes = pdg.vertexSet();
+        Map<GraphNode<?>, Integer> order = new HashMap<>();
+        for (GraphNode<?> node : nodes)
+            order.put(node, order.size());
         for (GraphNode<?> a : nodes) {
-            for (GraphNode<?> b : nodes) {
-                if (a == b) continue;
-                if (hasControlDependence(a, b))
-                    pdg.addControlDependencyArc(a, b);
-            }
+            List<GraphNode<?>> dependents = new ArrayList<>(findControlDependents(a, nodes));
+            dependents.removeIf(b -> a == b || !order.containsKey(b));
+            dependents.sort(Comparator.comparing(order::get));
+            for (GraphNode<?> b : dependents)
+                pdg.addControlDependencyArc(a, b);
         }
 
         if (enterExitArc != null)
             cfg.removeEdge(enterExitArc);
+        postDominatorTree = null;
+    }
+
+    /** Find the nodes whose execution is controlled by {@code a}: those that post-dominate some but not all of
+     *  its successors. The universe of nodes is needed when a successor cannot reach the Exit node. */
+    protected Set<GraphNode<?>> findControlDependents(GraphNode<?> a, Set<GraphNode<?>> universe) {
+        Set<Arc> arcs = cfg.outgoingEdgesOf(a);
+        // Nodes with less than 1 outgoing arc cannot control another node.
+        if (arcs.size() < 2)
+            return Collections.emptySet();
+        PostDominatorTree tree = getPostDominatorTree();
+        List<GraphNode<?>> successors = new LinkedList<>();
+        boolean endless = false;
+        for (Arc arc : arcs) {
+            GraphNode<?> successor = cfg.getEdgeTarget(arc);
+            if (tree.contains(successor))
+                successors.add(successor);
+            else
+                endless = true; // post-dominated by every node
+        }
+        if (successors.isEmpty())
+            return Collections.emptySet();
+        GraphNode<?> common = tree.getNearestCommonPostDominator(successors);
+        Set<GraphNode<?>> dependents = new HashSet<>();
+        if (endless) {
+            for (GraphNode<?> b : universe)
+                if (common == null || !tree.postDominates(common, b))
+                    dependents.add(b);
+        } else {
+            for (GraphNode<?> successor : successors)
+                for (GraphNode<?> b = successor; b != null && !b.equals(common); b = tree.getImmediatePostDominator(b))
+                    dependents.add(b);
+        }
+        return dependents;
     }
 
     /** Whether the first argument has a control-flow effect on the execution of the second argument. */
@@ -77,24 +116,18 @@ public class ControlDependencyBuilder {
     /** Whether the second argument post-dominates the first, i.e. whether {@code b} appears in all
      *  paths from {@code a} to the Exit node. */
     public boolean postDominates(GraphNode<?> a, GraphNode<?> b) {
-        return postDominates(a, b, new HashSet<>());
+        return getPostDominatorTree().postDominates(a, b);
     }
 
-    /** @see #postDominates(GraphNode, GraphNode) */
-    protected boolean postDominates(GraphNode<?> a, GraphNode<?> b, Set<GraphNode<?>> visited) {
-        // Stop w/ success if a == b or a has already been visited
-        if (a.equals(b) || visited.contains(a))
-            return true;
-        Set<Arc> outgoing = cfg.outgoingEdgesOf(a);
-        // Stop w/ failure if there are no edges to traverse from a
-        if (outgoing.isEmpty())
-            return false;
-        // Find all possible paths starting from a, if ALL find b, then true, else false
-        visited.add(a);
-        for (Arc out : outgoing) {
-            if (!postDominates(cfg.getEdgeTarget(out), b, visited))
-                return false;
-        }
+    /** The post-dominator tree of the CFG, computed on the first call. */
+    protected PostDominatorTree getPostDominatorTree() {
+        if (postDominatorTree == null)
+            postDominatorTree = new PostDominatorTree(cfg, this::isTraversable);
+        return postDominatorTree;
+    }
+
+    /** Whether the arc is followed when looking for the paths to the Exit node. */
+    protected boolean isTraversable(Arc arc) {
         return true;
     }
 }
@@ -6,6 +6,7 @@ import slicing.arcs.pdg.ControlDependencyArc;
 import slicing.arcs.pdg.DataDependencyArc;
 import slicing.graphs.GraphWithRootNode;
 import slicing.graphs.cfg.CFG;
+import slicing.graphs.cfg.ReachingDefinitions;
 import slicing.nodes.GraphNode;
 import slicing.nodes.VariableAction;
 import slicing.nodes.io.ActualIONode;
@@ -98,12 +99,14 @@ public class PDG extends GraphWithRootNode<CallableDeclaration<?>> {
 
         /** Computes all the data dependencies between {@link VariableAction variable actions} of this graph. */
         protected void buildDataDependency() {
+            ReachingDefinitions definitions = new ReachingDefinitions(cfg, VariableAction::isDefinition);
+            ReachingDefinitions declarations = new ReachingDefinitions(cfg, VariableAction::isDeclaration);
             for (GraphNode<?> node : vertexSet())
                 for (VariableAction varAct : node.getVariableActions())
                     if (varAct.isUsage())
-                        cfg.findLastDefinitionsFrom(varAct).forEach(def -> addDataDependencyArc(def, varAct));
+                        definitions.findLastActionsFrom(varAct).forEach(def -> addDataDependencyArc(def, varAct));
                     else if (varAct.isDefinition() && !varAct.isSynthetic())
-                        cfg.findDeclarationFor(varAct).ifPresent(dec -> addDataDependencyArc(dec, varAct));
+                        declarations.findLastActionsFrom(varAct).forEach(dec -> addDataDependencyArc(dec, varAct));
         }
 
         /**
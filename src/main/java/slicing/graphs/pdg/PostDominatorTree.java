@@ -0,0 +1,172 @@
+package slicing.graphs.pdg;
+
+import slicing.arcs.Arc;
+import slicing.graphs.cfg.CFG;
+import slicing.nodes.GraphNode;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * The post-dominator tree of a {@link CFG}, computed with the iterative algorithm of Cooper, Harvey
+ * and Kennedy ("A Simple, Fast Dominance Algorithm") on the reversed CFG.
+ * <br/>
+ * The root of the tree is a virtual exit, which succeeds every node without outgoing arcs. A node
+ * <i>b</i> post-dominates another node <i>a</i> if and only if <i>b</i> appears in every path from
+ * <i>a</i> to a node without outgoing arcs. Nodes that cannot reach any such node (e.g. in an infinite
+ * loop) are not part of the tree, and are post-dominated by every node.
+ * <br/>
+ * The tree is a snapshot: it does not reflect arcs added to the CFG after its creation.
+ */
+public class PostDominatorTree {
+    /** The nodes in the tree, by their index in a postorder of the reversed CFG. */
+    protected final List<GraphNode<?>> nodes = new ArrayList<>();
+    protected final Map<GraphNode<?>, Integer> indices = new HashMap<>();
+    /** The index of the virtual exit, the last one in postorder. */
+    protected final int exit;
+    /** The immediate post-dominator of each index. */
+    protected final int[] idom;
+    /** The preorder number of each index in the tree and the last preorder number in its subtree. */
+    protected final int[] preorder;
+    protected final int[] subtreeEnd;
+
+    /** Computes the post-dominator tree of the CFG, only traversing the arcs that satisfy the predicate. */
+    public PostDominatorTree(CFG cfg, Predicate<Arc> traversable) {
+        List<int[]> successors = new ArrayList<>();
+        exit = numberNodes(cfg, traversable);
+        for (GraphNode<?> node : nodes)
+            successors.add(cfg.outgoingEdgesOf(node).stream()
+                    .filter(traversable)
+                    .map(cfg::getEdgeTarget)
+                    .mapToInt(target -> indices.getOrDefault(target, -1))
+                    .filter(i -> i >= 0)
+                    .toArray());
+        idom = computeImmediatePostDominators(successors);
+        preorder = new int[exit + 1];
+        subtreeEnd = new int[exit + 1];
+        numberTree();
+    }
+
+    /** Numbers the nodes that reach the exit in postorder, walking the reversed CFG from the virtual exit. */
+    protected int numberNodes(CFG cfg, Predicate<Arc> traversable) {
+        Set<GraphNode<?>> visited = new HashSet<>();
+        Deque<Map.Entry<GraphNode<?>, Iterator<GraphNode<?>>>> path = new ArrayDeque<>();
+        List<GraphNode<?>> sinks = new LinkedList<>();
+        for (GraphNode<?> node : cfg.vertexSet())
+            if (cfg.outgoingEdgesOf(node).stream().noneMatch(traversable))
+                sinks.add(node);
+        Iterator<GraphNode<?>> roots = sinks.iterator();
+        while (roots.hasNext() || !path.isEmpty()) {
+            if (path.isEmpty()) {
+                GraphNode<?> root = roots.next();
+                if (visited.add(root))
+                    path.push(Map.entry(root, predecessors(cfg, traversable, root)));
+                continue;
+            }
+            Iterator<GraphNode<?>> it = path.peek().getValue();
+            if (it.hasNext()) {
+                GraphNode<?> next = it.next();
+                if (visited.add(next))
+                    path.push(Map.entry(next, predecessors(cfg, traversable, next)));
+            } else {
+                GraphNode<?> node = path.pop().getKey();
+                indices.put(node, nodes.size());
+                nodes.add(node);
+            }
+        }
+        return nodes.size();
+    }
+
+    protected static Iterator<GraphNode<?>> predecessors(CFG cfg, Predicate<Arc> traversable, GraphNode<?> node) {
+        return cfg.incomingEdgesOf(node).stream()
+                .filter(traversable)
+                .<GraphNode<?>>map(cfg::getEdgeSource)
+                .iterator();
+    }
+
+    /** Iterates in reverse postorder until the immediate post-dominators do not change. */
+    protected int[] computeImmediatePostDominators(List<int[]> successors) {
+        int[] idom = new int[exit + 1];
+        Arrays.fill(idom, -1);
+        idom[exit] = exit;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = exit - 1; i >= 0; i--) {
+                int newIdom = successors.get(i).length == 0 ? exit : -1;
+                for (int successor : successors.get(i))
+                    if (idom[successor] != -1)
+                        newIdom = newIdom == -1 ? successor : intersect(idom, successor, newIdom);
+                if (idom[i] != newIdom) {
+                    idom[i] = newIdom;
+                    changed = true;
+                }
+            }
+        }
+        return idom;
+    }
+
+    protected static int intersect(int[] idom, int a, int b) {
+        while (a != b) {
+            while (a < b)
+                a = idom[a];
+            while (b < a)
+                b = idom[b];
+        }
+        return a;
+    }
+
+    /** Numbers the tree in preorder, so that ancestors can be checked with intervals. */
+    protected void numberTree() {
+        List<List<Integer>> children = new ArrayList<>();
+        for (int i = 0; i <= exit; i++)
+            children.add(new LinkedList<>());
+        for (int i = 0; i < exit; i++)
+            children.get(idom[i]).add(i);
+        int counter = 0;
+        Deque<Map.Entry<Integer, Iterator<Integer>>> path = new ArrayDeque<>();
+        preorder[exit] = counter++;
+        path.push(Map.entry(exit, children.get(exit).iterator()));
+        while (!path.isEmpty()) {
+            Iterator<Integer> it = path.peek().getValue();
+            if (it.hasNext()) {
+                int child = it.next();
+                preorder[child] = counter++;
+                path.push(Map.entry(child, children.get(child).iterator()));
+            } else {
+                subtreeEnd[path.pop().getKey()] = counter - 1;
+            }
+        }
+    }
+
+    /** Whether the node can reach a node without outgoing arcs, and is thus part of the tree. */
+    public boolean contains(GraphNode<?> node) {
+        return indices.containsKey(node);
+    }
+
+    /** Whether {@code b} post-dominates {@code a}, i.e. whether {@code b} appears in all
+     *  paths from {@code a} to the exit. Every node post-dominates itself. */
+    public boolean postDominates(GraphNode<?> a, GraphNode<?> b) {
+        if (a.equals(b) || !contains(a))
+            return true;
+        if (!contains(b))
+            return false;
+        int ia = indices.get(a), ib = indices.get(b);
+        return preorder[ib] <= preorder[ia] && preorder[ia] <= subtreeEnd[ib];
+    }
+
+    /** @return the immediate post-dominator of a node in the tree, or {@code null} if it is the virtual exit. */
+    public GraphNode<?> getImmediatePostDominator(GraphNode<?> node) {
+        int parent = idom[indices.get(node)];
+        return parent == exit ? null : nodes.get(parent);
+    }
+
+    /** @return the nearest node that post-dominates all the given nodes of the tree,
+     *          or {@code null} if it is the virtual exit. */
+    public GraphNode<?> getNearestCommonPostDominator(Collection<GraphNode<?>> nodes) {
+        int common = -1;
+        for (GraphNode<?> node : nodes)
+            common = common == -1 ? indices.get(node) : intersect(idom, common, indices.get(node));
+        return common == -1 || common == exit ? null : this.nodes.get(common);
+    }
+}
@@ -1,15 +1,14 @@
 package slicing.graphs.sdg;
 
 import com.github.javaparser.ast.body.CallableDeclaration;
+import slicing.arcs.Arc;
 import slicing.graphs.BackwardDataFlowAnalysis;
 import slicing.graphs.CallGraph;
+import slicing.nodes.GraphNode;
 import slicing.nodes.SyntheticNode;
-import slicing.nodes.exceptionsensitive.ExitNode;
 import slicing.nodes.io.FormalIONode;
-import slicing.nodes.io.OutputNode;
 
 import java.util.*;
-import java.util.stream.Stream;
 
 /**
  * Base class for generating and placing in an SDG the summary arcs.
@@ -26,17 +25,36 @@ public abstract class AbstractSummaryArcAnalyzer<ActualIn extends SyntheticNode<
         this.sdg = sdg;
     }
 
+    /** Generate the summary arcs, and then place them in the SDG in the order of the ids of their nodes,
+     *  so that the order of its arcs does not depend on the order in which the components were solved. */
+    @Override
+    public void analyze() {
+        super.analyze();
+        List<Arc> summaryArcs = new ArrayList<>();
+        for (Arc arc : sdg.edgeSet())
+            if (arc.isSummaryArc())
+                summaryArcs.add(arc);
+        summaryArcs.sort(Comparator.comparingLong((Arc arc) -> sdg.getEdgeSource(arc).getId())
+                .thenComparingLong(arc -> sdg.getEdgeTarget(arc).getId()));
+        for (Arc arc : summaryArcs) {
+            GraphNode<?> source = sdg.getEdgeSource(arc);
+            GraphNode<?> target = sdg.getEdgeTarget(arc);
+            sdg.removeEdge(arc);
+            sdg.addEdge(source, target, arc);
+        }
+    }
+
     @Override
     protected Map<FormalOut, Set<FormalIn>> compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
         saveDeclaration(vertex);
-        return initialValue(vertex);
+        return readLocked(() -> initialValue(vertex));
     }
 
     @Override
     protected Map<FormalOut, Set<FormalIn>> initialValue(CallGraph.Vertex vertex) {
         Map<FormalOut, Set<FormalIn>> value;
         if (vertexDataMap.containsKey(vertex)) {
-            value = vertexDataMap.get(vertex);
+            value = new HashMap<>(vertexDataMap.get(vertex)); // a copy, so that changes are detected
         } else {
             value = new HashMap<>();
             for (var formalOut : getFormalOutNodes(vertex.getDeclaration()))
@@ -48,23 +66,12 @@ public abstract class AbstractSummaryArcAnalyzer<ActualIn extends SyntheticNode<
 
     /** Obtain all nodes that represent the output of a method declaration. These include formal-out,
      *  return nodes and normal/exception exit nodes (for exception handling). */
+    @SuppressWarnings("unchecked")
     protected Set<FormalOut> getFormalOutNodes(CallableDeclaration<?> declaration) {
         Set<FormalOut> set = new HashSet<>();
-        Stream.concat(
-                Stream.concat(
-                        sdg.vertexSet().stream() // formal-out nodes
-                                .filter(FormalIONode.class::isInstance)
-                                .map(FormalIONode.class::cast)
-                                .filter(FormalIONode::isOutput),
-                        sdg.vertexSet().stream() // output nodes (the value returned)
-                                .filter(OutputNode.class::isInstance)
-                                .map(OutputNode.class::cast)),
-                sdg.vertexSet().stream() // normal/exception exit nodes (for exception handling)
-                        .filter(ExitNode.class::isInstance)
-                        .map(ExitNode.class::cast))
-                // Only nodes that match the current declaration
-                .filter(node -> node.getAstNode() == declaration)
-                .forEach(e -> set.add((FormalOut) e));
+        for (SyntheticNode<?> node : sdg.getFormalNodes(declaration))
+            if (!(node instanceof FormalIONode) || ((FormalIONode) node).isOutput()) // formal-in nodes are not outputs
+                set.add((FormalOut) node);
         return set;
     }
 
@@ -76,6 +83,18 @@ public abstract class AbstractSummaryArcAnalyzer<ActualIn extends SyntheticNode<
     /** Generate all summary arcs for a given call. Arc generation should be idempotent:
      *  if this method is called repeatedly it should not create duplicate summary arcs. */
     protected void saveDeclaration(CallGraph.Vertex vertex) {
+        List<Map.Entry<ActualIn, SyntheticNode<?>>> summaryArcs = readLocked(() -> findSummaryArcs(vertex));
+        writeLocked(() -> {
+            for (var arc : summaryArcs)
+                if (!sdg.containsEdge(arc.getKey(), arc.getValue()))
+                    sdg.addSummaryArc(arc.getKey(), arc.getValue());
+        });
+    }
+
+    /** Find the actual-in and actual-out pairs that should be connected by a summary arc in
+     *  each call to the given declaration. */
+    protected List<Map.Entry<ActualIn, SyntheticNode<?>>> findSummaryArcs(CallGraph.Vertex vertex) {
+        List<Map.Entry<ActualIn, SyntheticNode<?>>> summaryArcs = new LinkedList<>();
         var result = vertexDataMap.get(vertex);
         for (CallGraph.Edge<?> edge : graph.incomingEdgesOf(vertex)) {
             for (var entry : result.entrySet()) {
@@ -88,11 +107,11 @@ public abstract class AbstractSummaryArcAnalyzer<ActualIn extends SyntheticNode<
                         continue;
                     for (SyntheticNode<?> actualOut : actualOuts)
                         for (ActualIn actualIn : actualIns)
-                            if (!sdg.containsEdge(actualIn, actualOut))
-                                sdg.addSummaryArc(actualIn, actualOut);
+                            summaryArcs.add(Map.entry(actualIn, actualOut));
                 }
             }
         }
+        return summaryArcs;
     }
 
     /** Find the actual-in that represents the given formal-in in the given call.
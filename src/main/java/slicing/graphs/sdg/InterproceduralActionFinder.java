@@ -12,6 +12,7 @@ import slicing.utils.Logger;
 import slicing.utils.Utils;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -25,7 +26,7 @@ import java.util.stream.Stream;
 public abstract class InterproceduralActionFinder<A extends VariableAction> extends BackwardDataFlowAnalysis<CallGraph.Vertex, CallGraph.Edge<?>, Set<A>> {
     protected final Map<CallableDeclaration<?>, CFG> cfgMap;
     /** A map from vertex and action to its corresponding stored action, to avoid generating duplicate nodes. */
-    protected final Map<CallGraph.Vertex, Map<A, StoredAction>> actionStoredMap = new HashMap<>();
+    protected final Map<CallGraph.Vertex, Map<A, StoredAction>> actionStoredMap = new ConcurrentHashMap<>();
 
     protected InterproceduralActionFinder(CallGraph callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
         super(callGraph);
@@ -110,8 +111,8 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
 
     @Override
     protected Set<A> compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
-        saveDeclarationActualNodes(vertex);
-        return initialValue(vertex);
+        writeLocked(() -> saveDeclarationActualNodes(vertex));
+        return readLocked(() -> initialValue(vertex));
     }
 
     @Override
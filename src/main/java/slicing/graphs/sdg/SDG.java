@@ -1,6 +1,7 @@
 package slicing.graphs.sdg;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
@@ -9,12 +10,14 @@ import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.stmt.TryStmt;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
 import lombok.Getter;
+import lombok.Setter;
 import slicing.arcs.pdg.ControlDependencyArc;
 import slicing.arcs.pdg.DataDependencyArc;
 import slicing.arcs.sdg.CallArc;
 import slicing.arcs.sdg.InterproceduralArc;
 import slicing.arcs.sdg.ParameterInOutArc;
 import slicing.arcs.sdg.SummaryArc;
+import slicing.graphs.BackwardDataFlowAnalysis;
 import slicing.graphs.Buildable;
 import slicing.graphs.CallGraph;
 import slicing.graphs.ClassGraph;
@@ -22,14 +25,21 @@ import slicing.graphs.Graph;
 import slicing.graphs.cfg.CFG;
 import slicing.graphs.pdg.PDG;
 import slicing.nodes.GraphNode;
+import slicing.nodes.IdHelper;
 import slicing.nodes.SyntheticNode;
+import slicing.nodes.exceptionsensitive.ExitNode;
+import slicing.nodes.io.FormalIONode;
+import slicing.nodes.io.OutputNode;
 import slicing.slicing.*;
 import slicing.utils.ASTUtils;
+import slicing.utils.SynchronizedSymbolResolver;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.NoSuchElementException;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * The <b>System Dependence Graph</b> represents the statements of a program in
@@ -48,9 +58,21 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
     protected final Map<CallableDeclaration<?>, CFG> cfgMap = ASTUtils.newIdentityHashMap();
     @Getter
     protected CallGraph callGraph;
+    /** The class graph of the compilation units, bound as the {@link ClassGraph#current() current} one
+     *  while this graph is built and sliced. */
+    @Getter
+    protected ClassGraph classGraph;
+
+    /** Formal-in/out, output and exit nodes by the declaration they belong to (by identity). */
+    protected final Map<Node, Set<SyntheticNode<?>>> formalNodeIndex = ASTUtils.newIdentityHashMap();
 
     protected boolean built = false;
     protected NodeList<CompilationUnit> compilationUnits;
+    /** The number of threads used to build the CFGs and PDGs and by the interprocedural analyses,
+     *  see {@link BackwardDataFlowAnalysis#setParallelism(int)}. */
+    @Getter
+    @Setter
+    protected int parallelism = 1;
 
     /** Obtain the list of compilation units used to create this graph. */
     public NodeList<CompilationUnit> getCompilationUnits() {
@@ -59,14 +81,16 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
 
     @Override
     public Slice slice(SlicingCriterion slicingCriterion) {
-        Set<GraphNode<?>> slicingCriterionNodes;
-        try {
-            slicingCriterionNodes = slicingCriterion.findNode(this);
-            assert !slicingCriterionNodes.isEmpty();
-        } catch (NoSuchElementException e) {
-            throw new IllegalArgumentException("Could not locate the slicing criterion " + slicingCriterion);
-        }
-        return createSlicingAlgorithm().traverse(slicingCriterionNodes);
+        return classGraph.withCurrent(() -> {
+            Set<GraphNode<?>> slicingCriterionNodes;
+            try {
+                slicingCriterionNodes = slicingCriterion.findNode(this);
+                assert !slicingCriterionNodes.isEmpty();
+            } catch (NoSuchElementException e) {
+                throw new IllegalArgumentException("Could not locate the slicing criterion " + slicingCriterion);
+            }
+            return createSlicingAlgorithm().traverse(slicingCriterionNodes);
+        });
     }
 
     protected SlicingAlgorithm createSlicingAlgorithm() {
@@ -75,8 +99,11 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
 
     @Override
     public void build(NodeList<CompilationUnit> nodeList) {
+        classGraph = new ClassGraph();
+        if (parallelism > 1)
+            SynchronizedSymbolResolver.install(nodeList);
         var builder = createBuilder();
-        builder.build(nodeList);
+        classGraph.withCurrent(() -> builder.build(nodeList));
         this.callGraph = builder.callGraph;
         compilationUnits = nodeList;
         built = true;
@@ -98,6 +125,36 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
         return cfgMap.values();
     }
 
+    @Override
+    public boolean addVertex(GraphNode<?> node) {
+        if (!super.addVertex(node))
+            return false;
+        if (isFormalNode(node))
+            formalNodeIndex.computeIfAbsent(node.getAstNode(), k -> new HashSet<>()).add((SyntheticNode<?>) node);
+        return true;
+    }
+
+    @Override
+    public boolean removeVertex(GraphNode<?> node) {
+        if (!super.removeVertex(node))
+            return false;
+        if (isFormalNode(node)) {
+            Set<SyntheticNode<?>> set = formalNodeIndex.get(node.getAstNode());
+            if (set != null && set.remove(node) && set.isEmpty())
+                formalNodeIndex.remove(node.getAstNode());
+        }
+        return true;
+    }
+
+    protected static boolean isFormalNode(GraphNode<?> node) {
+        return node instanceof FormalIONode || node instanceof OutputNode || node instanceof ExitNode;
+    }
+
+    /** Obtain the formal-in, formal-out, output and normal/exception exit nodes of the given declaration. */
+    public Set<SyntheticNode<?>> getFormalNodes(CallableDeclaration<?> declaration) {
+        return Collections.unmodifiableSet(formalNodeIndex.getOrDefault(declaration, Collections.emptySet()));
+    }
+
     /** @see CFG#isPredicate(GraphNode) */
     public boolean isPredicate(GraphNode<?> node) {
         if (node instanceof SyntheticNode)
@@ -124,7 +181,12 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
      *  building the PDGs, connecting the calls to declarations and computing the summary arcs.
      *  By default, it uses {@link PDG}s and {@link CFG}s. */
     public class Builder {
+        /** The number of node ids reserved for each element processed by {@link #inParallel(List, Function)}. */
+        protected static final long IDS_PER_ELEMENT = 1L << 24;
+
         protected CallGraph callGraph;
+        /** The CFGs of {@link #cfgMap}, in the order in which their declarations appear. */
+        protected final List<CFG> cfgs = new ArrayList<>();
 
         public void build(NodeList<CompilationUnit> nodeList) {
             // See creation strategy at http://kaz2.dsic.upv.es:3000/Fzg46cQvT1GzHQG9hFnP1g#Using-data-flow-in-the-SDG
@@ -138,8 +200,22 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             createSummaryArcs();        // 6
         }
 
-        /** Build a CFG per declaration found in the list of compilation units. */
+        /** Build a CFG per declaration found in the list of compilation units.
+         *  The CFGs are stored in the order in which the declarations appear. */
         protected void buildCFGs(NodeList<CompilationUnit> nodeList) {
+            List<CallableDeclaration<?>> declarations = findDeclarations(nodeList);
+            cfgs.addAll(inParallel(declarations, declaration -> {
+                CFG cfg = createCFG();
+                buildCFG(declaration, cfg);
+                return cfg;
+            }));
+            for (int i = 0; i < declarations.size(); i++)
+                cfgMap.put(declarations.get(i), cfgs.get(i));
+        }
+
+        /** Find the declarations that have a CFG, in pre-order. */
+        protected List<CallableDeclaration<?>> findDeclarations(NodeList<CompilationUnit> nodeList) {
+            List<CallableDeclaration<?>> declarations = new LinkedList<>();
             nodeList.accept(new VoidVisitorAdapter<Void>() {
                 @Override
                 public void visit(MethodDeclaration n, Void arg) {
@@ -151,9 +227,7 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
                     }
                     if (n.isAbstract() || isInInterface)
                         return; // Allow abstract methods
-                    CFG cfg = createCFG();
-                    buildCFG(n, cfg);
-                    cfgMap.put(n, cfg);
+                    declarations.add(n);
                     super.visit(n, arg);
                 }
 
@@ -164,12 +238,11 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
                     isInInterface = isInInterface && !n.isStatic();
                     if (n.isAbstract() || isInInterface)
                         return; // Allow abstract methods
-                    CFG cfg = createCFG();
-                    buildCFG(n, cfg);
-                    cfgMap.put(n, cfg);
+                    declarations.add(n);
                     super.visit(n, arg);
                 }
             }, null);
+            return declarations;
         }
 
         private boolean containTryWithResources(CallableDeclaration<?> n) {
@@ -188,35 +261,80 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
 
         /** Create call graph from the list of compilation units. */
         protected void createCallGraph(NodeList<CompilationUnit> nodeList) {
-            callGraph = new CallGraph(cfgMap, ClassGraph.getInstance());
+            callGraph = new CallGraph(cfgMap, classGraph);
             callGraph.build(nodeList);
         }
 
         /** Create class graph from the list of compilation units. */
         protected void createClassGraph(NodeList<CompilationUnit> nodeList){
-            ClassGraph.getNewInstance().build(nodeList);
+            classGraph.build(nodeList);
         }
 
 
         /** Perform interprocedural analyses to determine the actual and formal nodes. */
         protected void dataFlowAnalysis() {
-            new InterproceduralDefinitionFinder(callGraph, cfgMap).save(); // 3.1
-            new InterproceduralUsageFinder(callGraph, cfgMap).save();      // 3.2
+            var definitionFinder = new InterproceduralDefinitionFinder(callGraph, cfgMap);
+            definitionFinder.setParallelism(parallelism);
+            definitionFinder.save(); // 3.1
+            var usageFinder = new InterproceduralUsageFinder(callGraph, cfgMap);
+            usageFinder.setParallelism(parallelism);
+            usageFinder.save();      // 3.2
         }
 
-        /** Build a PDG per declaration, based on the CFGs built previously and enhanced by data analyses. */
+        /** Build a PDG per declaration, based on the CFGs built previously and enhanced by data analyses.
+         *  The PDGs are copied to this graph once all of them have been built, in the order of the CFGs. */
         protected void buildAndCopyPDGs() {
-            for (CFG cfg : cfgMap.values()) {
+            List<PDG> pdgs = inParallel(cfgs, cfg -> {
                 // 4.1, 4.2, 4.3
                 try {
                     PDG pdg = createPDG(cfg);
                     pdg.build(cfg.getDeclaration());
-                    // 4.4
-                    pdg.vertexSet().forEach(SDG.this::addVertex);
-                    pdg.edgeSet().forEach(arc -> addEdge(pdg.getEdgeSource(arc), pdg.getEdgeTarget(arc), arc));
+                    return pdg;
                 } catch (Exception e) {
                     e.printStackTrace();
+                    return null;
                 }
+            });
+            // 4.4
+            for (PDG pdg : pdgs) {
+                if (pdg == null)
+                    continue;
+                pdg.vertexSet().forEach(SDG.this::addVertex);
+                pdg.edgeSet().forEach(arc -> addEdge(pdg.getEdgeSource(arc), pdg.getEdgeTarget(arc), arc));
+            }
+        }
+
+        /**
+         * Apply the function to each element, and return the results in the same order. With a {@link #parallelism}
+         * greater than one, the elements are processed concurrently on a fork-join pool. The function may then only
+         * read the shared state built by the previous steps (e.g. the {@link ClassGraph}), and its symbol resolutions
+         * are serialized by the {@link SynchronizedSymbolResolver} installed in {@link SDG#build(NodeList)}.
+         * The nodes created for each element are given ids from a range reserved for its position, whatever the
+         * parallelism, so that the ids (and the iteration order of the graphs) do not depend on the threads.
+         */
+        protected <T, R> List<R> inParallel(List<T> elements, Function<T, R> function) {
+            IdHelper ids = IdHelper.getInstance();
+            long firstId = ids.reserve(elements.size() * IDS_PER_ELEMENT);
+            if (parallelism <= 1)
+                return IntStream.range(0, elements.size())
+                        .mapToObj(i -> ids.withRange(firstId + i * IDS_PER_ELEMENT, IDS_PER_ELEMENT,
+                                () -> function.apply(elements.get(i))))
+                        .collect(Collectors.toList());
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                return pool.submit(() -> IntStream.range(0, elements.size()).parallel()
+                        .mapToObj(i -> ids.withRange(firstId + i * IDS_PER_ELEMENT, IDS_PER_ELEMENT,
+                                () -> function.apply(elements.get(i))))
+                        .collect(Collectors.toList())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("In SDG.Builder.inParallel: " + e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new RuntimeException("In SDG.Builder.inParallel: " + e.getCause());
+            } finally {
+                pool.shutdown();
             }
         }
 
@@ -227,7 +345,9 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
 
         /** Connect actual-in to actual-out nodes, summarizing the interprocedural arcs. */
         protected void createSummaryArcs() {
-            new SummaryArcAnalyzer(SDG.this, callGraph).analyze();
+            var analyzer = new SummaryArcAnalyzer(SDG.this, callGraph);
+            analyzer.setParallelism(parallelism);
+            analyzer.analyze();
         }
 
         /** Create a new CFG, of the appropriate type for the kind of SDG we're building. */
@@ -1,21 +1,57 @@
 package slicing.nodes;
 
-/** A singleton class that provides unique ids for {@link GraphNode}s. */
+import java.util.function.Supplier;
+
+/** A singleton class that provides unique ids for {@link GraphNode}s. A thread may instead
+ *  draw its ids from a range reserved beforehand, see {@link #withRange(long, long, Supplier)}. */
 public class IdHelper {
     private static final int START_ID = 0;
     private static final IdHelper INSTANCE = new IdHelper();
 
     private long nextId;
+    /** The next id and the end (exclusive) of the range of the current thread, if any. */
+    private final ThreadLocal<long[]> ranges = new ThreadLocal<>();
 
     private IdHelper() {
         nextId = START_ID;
     }
 
-    synchronized long getNextId() {
+    long getNextId() {
+        long[] range = ranges.get();
+        if (range == null)
+            return getNextSharedId();
+        if (range[0] >= range[1])
+            throw new IllegalStateException("The range of ids of this thread has been exhausted");
+        return range[0]++;
+    }
+
+    private synchronized long getNextSharedId() {
         return nextId++;
     }
 
-    static IdHelper getInstance() {
+    /** Reserve a range of consecutive ids, which will not be returned by {@link #getNextId()}.
+     *  @return the first id of the range. */
+    public synchronized long reserve(long count) {
+        long first = nextId;
+        nextId += count;
+        return first;
+    }
+
+    /** Run the action in the current thread, creating the nodes with ids from the given range. */
+    public <T> T withRange(long first, long count, Supplier<T> action) {
+        long[] previous = ranges.get();
+        ranges.set(new long[] { first, first + count });
+        try {
+            return action.get();
+        } finally {
+            if (previous == null)
+                ranges.remove();
+            else
+                ranges.set(previous);
+        }
+    }
+
+    public static IdHelper getInstance() {
         return INSTANCE;
     }
 }
@@ -169,8 +169,9 @@ public abstract class VariableAction {
         this.staticType = staticType;
         dynamicTypes.clear();
         dynamicTypes.add(staticType);
-        if (staticType.isReferenceType() && ClassGraph.getInstance().containsType(staticType.asReferenceType())) {
-            ClassGraph.getInstance().subclassesOf(staticType.asReferenceType()).stream()
+        ClassGraph classGraph = ClassGraph.current();
+        if (staticType.isReferenceType() && classGraph.containsType(staticType.asReferenceType())) {
+            classGraph.subclassesOf(staticType.asReferenceType()).stream()
                     .map(TypeDeclaration::resolve)
                     .map(ASTUtils::resolvedTypeDeclarationToResolvedType)
                     .forEach(dynamicTypes::add);
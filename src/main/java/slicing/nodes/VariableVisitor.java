@@ -280,7 +280,7 @@ public class VariableVisitor extends GraphNodeContentVisitor<VariableVisitor.Act
             ResolvedReferenceType type = n.getExpression().calculateResolvedType().asReferenceType();
             va.setStaticType(type);
             definitionStack.pop();
-            va.getObjectTree().addAll(ClassGraph.getInstance().generateObjectTreeFor(type));
+            va.getObjectTree().addAll(ClassGraph.current().generateObjectTreeFor(type));
             new ExpressionObjectTreeFinder(graphNode).locateAndMarkTransferenceToRoot(n.getExpression(), -1);
         } catch (RuntimeException ignored) {}
     }
@@ -633,7 +633,7 @@ public class VariableVisitor extends GraphNodeContentVisitor<VariableVisitor.Act
         if (resolved instanceof AssociableToAST) {
             Optional<? extends Node> n = ((AssociableToAST<? extends Node>) resolved).toAst();
             if (n.isPresent() && n.get() instanceof CallableDeclaration)
-                return ClassGraph.getInstance().generateObjectTreeForReturnOf((CallableDeclaration<?>) n.get());
+                return ClassGraph.current().generateObjectTreeForReturnOf((CallableDeclaration<?>) n.get());
         }
         return Optional.empty();
     }
@@ -685,7 +685,7 @@ public class VariableVisitor extends GraphNodeContentVisitor<VariableVisitor.Act
      *  contained in the class graph, (b) the polymorphic variable has fields and (c) there
      *  aren't any polymorphic nodes in the object tree already. */
     protected void generatePolyTrees(GraphNode<?> graphNode) {
-        ClassGraph classGraph = ClassGraph.getInstance();
+        ClassGraph classGraph = ClassGraph.current();
         for (VariableAction va : graphNode.getVariableActions()) {
             if (va.isStatic() || !va.hasObjectTree())
                 continue;
@@ -1,19 +1,23 @@
 package slicing.slicing;
 
 import slicing.arcs.Arc;
-import slicing.arcs.sdg.InterproceduralArc;
+import slicing.graphs.FrozenGraph;
 import slicing.graphs.Graph;
 import slicing.nodes.GraphNode;
 import slicing.utils.Utils;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
-import java.util.function.Predicate;
+import java.util.*;
 
 /** The classic slicing algorithm: traverse all arcs backwards except interprocedural output arcs until
  *  no new node is added, then repeat the process but ignoring interprocedural input arcs instead. */
 public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
+    /** The kinds of arcs ignored in intraprocedural slicing. */
+    protected static final byte INTRAPROCEDURAL = FrozenGraph.INTERPROCEDURAL;
+    /** The kinds of arcs ignored in the first pass of the algorithm. */
+    protected static final byte SDG_PASS_1 = FrozenGraph.INTERPROCEDURAL_OUTPUT;
+    /** The kinds of arcs ignored in the second pass of the algorithm. */
+    protected static final byte SDG_PASS_2 = FrozenGraph.INTERPROCEDURAL_INPUT;
+
     protected final Graph graph;
 
     public ClassicSlicingAlgorithm(Graph graph) {
@@ -23,36 +27,33 @@ public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
     @Override
     public Slice traverseProcedure(GraphNode<?> slicingCriterion) {
         Slice slice = new Slice(Set.of(slicingCriterion));
-        pass(slice, this::ignoreProcedure);
+        pass(slice, INTRAPROCEDURAL);
         return slice;
     }
 
     @Override
     public Slice traverse(Set<GraphNode<?>> slicingCriterion) {
         Slice slice = new Slice(slicingCriterion);
-        pass(slice, this::ignorePass1);
-        pass(slice, this::ignorePass2);
+        pass(slice, SDG_PASS_1);
+        pass(slice, SDG_PASS_2);
         return slice;
     }
 
-    /** The condition to ignore arcs in the first pass of the algorithm. */
-    protected boolean ignorePass1(Arc arc) {
-        return arc.isInterproceduralOutputArc();
-    }
-
-    /** The condition to ignore arcs in the second pass of the algorithm. */
-    protected boolean ignorePass2(Arc arc) {
-        return arc.isInterproceduralInputArc();
-    }
-
-    /** The condition to ignore arcs in intraprocedural slicing. */
-    public boolean ignoreProcedure(Arc arc) {
-        return arc instanceof InterproceduralArc;
+    /** Whether to ignore an arc in every pass, in addition to the ignored kinds of the pass.
+     *  No arc is ignored by default. */
+    protected boolean ignore(Arc arc) {
+        return false;
     }
 
     /** A single pass: the edges are traversed until no new node can be added. Reached nodes
-     *  are stored in the first parameter, and arcs that match the second are ignored. */
-    protected void pass(Slice slice, Predicate<Arc> ignoreCondition) {
+     *  are stored in the first parameter, and arcs of the {@link FrozenGraph kinds} in the second
+     *  or that match {@link #ignore(Arc)} are ignored. */
+    protected void pass(Slice slice, byte ignoredKinds) {
+        Optional<FrozenGraph> frozenGraph = graph.getFrozenGraph();
+        if (frozenGraph.isPresent()) {
+            pass(slice, frozenGraph.get(), ignoredKinds);
+            return;
+        }
         // `toVisit` behaves like a set and using iterable we can use it as a queue
         // More info: https://stackoverflow.com/a/2319126
         LinkedHashSet<GraphNode<?>> toVisit = new LinkedHashSet<>(slice.getGraphNodes());
@@ -66,7 +67,7 @@ public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
             visited.add(node);
             // Traverse all edges backwards
             for (Arc arc : graph.incomingEdgesOf(node)) {
-                if (ignoreCondition.test(arc))
+                if ((FrozenGraph.kindOf(arc) & ignoredKinds) != 0 || ignore(arc))
                     continue;
                 GraphNode<?> source = graph.getEdgeSource(arc);
                 if (!visited.contains(source))
@@ -74,6 +75,36 @@ public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
             }
         }
 
-        visited.forEach(slice::add);
+        for (GraphNode<?> node : visited)
+            if (!slice.contains(node))
+                slice.add(node);
+    }
+
+    /** A single pass over the {@link FrozenGraph frozen} form of the graph, with the same result as
+     *  {@link #pass(Slice, byte)}. The nodes are visited depth-first. */
+    protected void pass(Slice slice, FrozenGraph frozenGraph, byte ignoredKinds) {
+        BitSet visited = new BitSet(frozenGraph.size());
+        int[] toVisit = new int[frozenGraph.size()];
+        int pending = 0;
+        for (GraphNode<?> node : slice.getGraphNodes()) {
+            int index = frozenGraph.indexOf(node);
+            if (index >= 0 && !visited.get(index)) {
+                visited.set(index);
+                toVisit[pending++] = index;
+            }
+        }
+        while (pending > 0) {
+            int node = toVisit[--pending];
+            for (int arc = frozenGraph.getIncomingStart(node); arc < frozenGraph.getIncomingEnd(node); arc++) {
+                int source = frozenGraph.getSource(arc);
+                if (visited.get(source) || frozenGraph.hasKind(arc, ignoredKinds) || ignore(frozenGraph.getArc(arc)))
+                    continue;
+                visited.set(source);
+                toVisit[pending++] = source;
+            }
+        }
+        for (int node = visited.nextSetBit(0); node >= 0; node = visited.nextSetBit(node + 1))
+            if (!slice.contains(frozenGraph.getNode(node)))
+                slice.add(frozenGraph.getNode(node));
     }
 }
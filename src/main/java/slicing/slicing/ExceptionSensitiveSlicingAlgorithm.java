@@ -4,13 +4,12 @@ import slicing.arcs.Arc;
 import slicing.arcs.pdg.ConditionalControlDependencyArc;
 import slicing.arcs.pdg.ConditionalControlDependencyArc.CC1;
 import slicing.arcs.pdg.ConditionalControlDependencyArc.CC2;
-import slicing.arcs.sdg.InterproceduralArc;
+import slicing.graphs.FrozenGraph;
 import slicing.graphs.exceptionsensitive.ESSDG;
 import slicing.nodes.GraphNode;
 import slicing.utils.Utils;
 
 import java.util.*;
-import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 /**
@@ -28,11 +27,12 @@ import java.util.stream.Stream;
  * </ol>
  */
 public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
-    protected static final Predicate<Arc> INTRAPROCEDURAL = InterproceduralArc.class::isInstance;
+    /** The kinds of arcs ignored in intraprocedural slicing. */
+    protected static final byte INTRAPROCEDURAL = FrozenGraph.INTERPROCEDURAL;
     /** Applies rule 1a of the algorithm. */
-    protected static final Predicate<Arc> SDG_PASS_1 = Arc::isInterproceduralOutputArc;
+    protected static final byte SDG_PASS_1 = FrozenGraph.INTERPROCEDURAL_OUTPUT;
     /** Applies rule 1b of the algorithm. */
-    protected static final Predicate<Arc> SDG_PASS_2 = Arc::isInterproceduralInputArc;
+    protected static final byte SDG_PASS_2 = FrozenGraph.INTERPROCEDURAL_INPUT;
 
     protected final ESSDG graph;
     protected Set<GraphNode<?>> slicingCriterion;
@@ -41,6 +41,8 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     protected final Set<Arc> traversedArcSet = new HashSet<>();
     /** Similar to {@link #traversedArcSet} */
     protected final Map<GraphNode<?>, Set<Arc>> traversedArcMap = new HashMap<>();
+    /** The arcs of {@link #traversedArcSet}, by their source. */
+    protected final Map<GraphNode<?>, List<Arc>> reachedArcMap = new HashMap<>();
 
     public ExceptionSensitiveSlicingAlgorithm(ESSDG graph) {
         this.graph = Objects.requireNonNull(graph);
@@ -50,8 +52,8 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     public Slice traverse(Set<GraphNode<?>> slicingCriterion) {
         this.slicingCriterion = slicingCriterion;
         Slice slice = new Slice(slicingCriterion);
-        pass(slice, SDG_PASS_1.or(this::commonIgnoreConditions));
-        pass(slice, SDG_PASS_2.or(this::commonIgnoreConditions));
+        pass(slice, SDG_PASS_1);
+        pass(slice, SDG_PASS_2);
         return slice;
     }
 
@@ -59,7 +61,7 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     public Slice traverseProcedure(GraphNode<?> slicingCriterion) {
         this.slicingCriterion = Set.of(slicingCriterion);
         Slice slice = new Slice(this.slicingCriterion);
-        pass(slice, INTRAPROCEDURAL.or(this::commonIgnoreConditions));
+        pass(slice, INTRAPROCEDURAL);
         return slice;
     }
 
@@ -70,32 +72,36 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     /**
      * Perform a round of traversal, until no new nodes can be added to the slice. Then, apply rule 5.
      * @param slice A slice object that will serve as initial work-list and where nodes will be added.
-     * @param ignoreCondition A predicate used to ignore arcs, when they test true.
+     * @param ignoredKinds The {@link FrozenGraph kinds} of arcs to ignore, in addition to
+     *                     {@link #commonIgnoreConditions(Arc)}.
      */
-    protected void pass(Slice slice, Predicate<Arc> ignoreCondition) {
-        pass(slice, slice.getGraphNodes(), ignoreCondition);
+    protected void pass(Slice slice, byte ignoredKinds) {
+        pass(slice, slice.getGraphNodes(), ignoredKinds);
     }
 
     /**
      * Perform a round of traversal, until no new nodes can be added to the slice. Then, apply rule 5.
+     * If the graph has been {@link slicing.graphs.Graph#freeze() frozen}, its compact form is traversed instead.
      * @param slice A slice object where nodes will be added.
      * @param workList The initial work-list.
-     * @param ignoreCondition A predicate used to ignore arcs, when they test true.
+     * @param ignoredKinds The {@link FrozenGraph kinds} of arcs to ignore, in addition to
+     *                     {@link #commonIgnoreConditions(Arc)}.
      */
-    protected void pass(Slice slice, Set<GraphNode<?>> workList, Predicate<Arc> ignoreCondition) {
+    protected void pass(Slice slice, Set<GraphNode<?>> workList, byte ignoredKinds) {
+        FrozenGraph frozenGraph = graph.getFrozenGraph().orElse(null);
         Set<GraphNode<?>> pending = new HashSet<>(workList);
         Set<Arc> cc1s = new HashSet<>();
         while (!pending.isEmpty()) {
             GraphNode<?> node = Utils.setPop(pending);
             // Populate the map for this node (if empty)
             traversedArcMap.computeIfAbsent(node, n -> new HashSet<>());
-            for (Arc arc : graph.incomingEdgesOf(node)) {
-                if (arc instanceof CC1)
-                    cc1s.add(arc);
-                // Only traverse the arc if (1) it hasn't been traversed, (2) it hasn't been ignored
-                if (!traversedArcMap.get(node).contains(arc) && !ignoreCondition.test(arc))
-                    if (traverseArc(arc, slice))
-                        pending.add(graph.getEdgeSource(arc));
+            int index = frozenGraph == null ? -1 : frozenGraph.indexOf(node);
+            if (index >= 0) {
+                for (int arc = frozenGraph.getIncomingStart(index); arc < frozenGraph.getIncomingEnd(index); arc++)
+                    visitArc(frozenGraph.getArc(arc), frozenGraph.getKind(arc), ignoredKinds, slice, pending, cc1s);
+            } else {
+                for (Arc arc : graph.incomingEdgesOf(node))
+                    visitArc(arc, FrozenGraph.kindOf(arc), ignoredKinds, slice, pending, cc1s);
             }
         }
         // Consider transitivity when there are no more arcs to traverse.
@@ -113,6 +119,18 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
         }
     }
 
+    /** Considers an incoming arc of a node in the work-list, adding its source to the work-list
+     *  if the arc is traversed. CC1 arcs are collected to apply rule 5. */
+    protected void visitArc(Arc arc, byte kind, byte ignoredKinds, Slice slice, Set<GraphNode<?>> pending, Set<Arc> cc1s) {
+        if ((kind & FrozenGraph.CONDITIONAL_1) != 0)
+            cc1s.add(arc);
+        // Only traverse the arc if (1) it hasn't been traversed, (2) it hasn't been ignored
+        if (!traversedArcMap.get(graph.getEdgeTarget(arc)).contains(arc)
+                && (kind & ignoredKinds) == 0 && !commonIgnoreConditions(arc))
+            if (traverseArc(arc, slice))
+                pending.add(graph.getEdgeSource(arc));
+    }
+
     /** Applies rule 2 of the algorithm. */
     protected boolean ppdgIgnore(Arc arc) {
         GraphNode<?> target = graph.getEdgeTarget(arc);
@@ -137,17 +155,27 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
      */
     protected boolean traverseArc(Arc arc, Slice slice) {
         traversedArcMap.get(graph.getEdgeTarget(arc)).add(arc);
-        traversedArcSet.add(arc);
         GraphNode<?> source = graph.getEdgeSource(arc);
+        if (traversedArcSet.add(arc))
+            reachedArcMap.computeIfAbsent(source, n -> new LinkedList<>()).add(arc);
         if (!hasOnlyBeenReachedBy(source, CC1.class) && !hasOnlyBeenReachedBy(source, CC2.class)) {
             if (!slice.contains(source))
                 slice.add(source);
             int sourceArcsTraversed = traversedArcMap.getOrDefault(source, Collections.emptySet()).size();
-            return  sourceArcsTraversed != graph.incomingEdgesOf(source).size();
+            return sourceArcsTraversed != incomingArcCount(source);
         }
         return false;
     }
 
+    /** The number of arcs that reach the given node. */
+    protected int incomingArcCount(GraphNode<?> node) {
+        Optional<FrozenGraph> frozenGraph = graph.getFrozenGraph();
+        int index = frozenGraph.map(frozen -> frozen.indexOf(node)).orElse(-1);
+        if (index < 0)
+            return graph.incomingEdgesOf(node).size();
+        return frozenGraph.get().getIncomingEnd(index) - frozenGraph.get().getIncomingStart(index);
+    }
+
     /** Check if a node only has been reached by arcs of a given class. */
     protected boolean hasOnlyBeenReachedBy(GraphNode<?> node, Class<? extends Arc> type) {
         return reachedStream(node).count() > 0 && reachedStream(node).allMatch(type::isInstance);
@@ -155,6 +183,6 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
 
     /** Obtain a stream of arcs that have reached the given node. */
     protected Stream<Arc> reachedStream(GraphNode<?> node) {
-        return traversedArcSet.stream().filter(arc -> graph.getEdgeSource(arc).equals(node));
+        return reachedArcMap.getOrDefault(node, Collections.emptyList()).stream();
     }
 }
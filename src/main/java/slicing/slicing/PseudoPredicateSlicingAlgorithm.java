@@ -25,22 +25,9 @@ public class PseudoPredicateSlicingAlgorithm extends ClassicSlicingAlgorithm {
         return super.traverse(slicingCriterion);
     }
 
+    /** Control dependencies on pseudo-predicates are not traversed, unless they are part of the slicing criterion. */
     @Override
-    protected boolean ignorePass1(Arc arc) {
-        return super.ignorePass1(arc) || ignorePseudoPredicate(arc);
-    }
-
-    @Override
-    protected boolean ignorePass2(Arc arc) {
-        return super.ignorePass2(arc) || ignorePseudoPredicate(arc);
-    }
-
-    @Override
-    public boolean ignoreProcedure(Arc arc) {
-        return super.ignoreProcedure(arc) || ignorePseudoPredicate(arc);
-    }
-
-    protected boolean ignorePseudoPredicate(Arc arc) {
+    protected boolean ignore(Arc arc) {
         GraphNode<?> target = graph.getEdgeTarget(arc);
         return ((PSDG) graph).isPseudoPredicate(target)
                 && arc.isControlDependencyArc()
@@ -140,13 +140,13 @@ public class ASTUtils {
     public static Optional<? extends CallableDeclaration<?>> getResolvedAST(ResolvedMethodLikeDeclaration resolvedDeclaration) {
         if (resolvedDeclaration instanceof ResolvedMethodDeclaration)
             if (((ResolvedMethodDeclaration) resolvedDeclaration).toAst().isEmpty()) {
-                return Optional.ofNullable(ClassGraph.getInstance().getMethodDeclarationBySig(processSignature(resolvedDeclaration.getQualifiedSignature())));
+                return Optional.ofNullable(ClassGraph.current().getMethodDeclarationBySig(processSignature(resolvedDeclaration.getQualifiedSignature())));
             } else {
                 return ((ResolvedMethodDeclaration) resolvedDeclaration).toAst();
             }
         if (resolvedDeclaration instanceof ResolvedConstructorDeclaration)
             if (((ResolvedConstructorDeclaration) resolvedDeclaration).toAst().isEmpty()) {
-                return Optional.ofNullable(ClassGraph.getInstance().getMethodDeclarationBySig(processSignature(resolvedDeclaration.getQualifiedSignature())));
+                return Optional.ofNullable(ClassGraph.current().getMethodDeclarationBySig(processSignature(resolvedDeclaration.getQualifiedSignature())));
             } else {
                 return ((ResolvedConstructorDeclaration) resolvedDeclaration).toAst();
             }
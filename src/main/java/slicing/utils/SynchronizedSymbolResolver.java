@@ -0,0 +1,61 @@
+package slicing.utils;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * A symbol resolver that serializes the resolutions of the resolver it wraps. <br/>
+ * JavaParser's symbol solver is not thread-safe: it caches the type of each expression it resolves in the data
+ * of the AST nodes, a plain {@link java.util.IdentityHashMap}. Every resolution started from the AST of a
+ * compilation unit with this resolver ({@code resolve()}, {@code calculateResolvedType()}, {@code Type.resolve()})
+ * holds the {@link #LOCK}, so the compilation units may be processed concurrently while the resolutions run one
+ * at a time.
+ */
+public class SynchronizedSymbolResolver implements SymbolResolver {
+    /** The lock held by every resolution, shared by all the instances. Resolutions may nest. */
+    public static final Object LOCK = new Object();
+
+    protected final SymbolResolver delegate;
+
+    public SynchronizedSymbolResolver(SymbolResolver delegate) {
+        this.delegate = delegate;
+    }
+
+    /** Replace the symbol resolver of each compilation unit (or the one of {@link StaticJavaParser}, if
+     *  the unit has none) by a synchronized one. Units that already have a synchronized resolver are skipped. */
+    public static void install(Iterable<CompilationUnit> compilationUnits) {
+        for (CompilationUnit cu : compilationUnits) {
+            SymbolResolver resolver = cu.containsData(Node.SYMBOL_RESOLVER_KEY) ?
+                    cu.getData(Node.SYMBOL_RESOLVER_KEY) :
+                    StaticJavaParser.getConfiguration().getSymbolResolver().orElse(null);
+            if (resolver != null && !(resolver instanceof SynchronizedSymbolResolver))
+                cu.setData(Node.SYMBOL_RESOLVER_KEY, new SynchronizedSymbolResolver(resolver));
+        }
+    }
+
+    @Override
+    public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
+        synchronized (LOCK) {
+            return delegate.resolveDeclaration(node, resultClass);
+        }
+    }
+
+    @Override
+    public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
+        synchronized (LOCK) {
+            return delegate.toResolvedType(javaparserType, resultClass);
+        }
+    }
+
+    @Override
+    public ResolvedType calculateType(Expression expression) {
+        synchronized (LOCK) {
+            return delegate.calculateType(expression);
+        }
+    }
+}
@@ -12,10 +12,13 @@ import zju.cst.aces.parser.ProjectParser;
 import zju.cst.aces.prompt.PromptGenerator;
 import zju.cst.aces.runner.MethodRunner;
 import zju.cst.aces.util.CodeExtractor;
+import zju.cst.aces.util.TestProcessor;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 
 import static zju.cst.aces.runner.AbstractRunner.runTest;
@@ -61,13 +64,15 @@ public class Phase {
          * @return {@code pc} prompt word generator
          */
         public PromptConstructorImpl execute(int num) {
-            //
-            String testName = classInfo.getClassName() + separator + methodInfo.methodName + separator
-                    + classInfo.methodSigs.get(methodInfo.methodSignature) + separator + num + separator + "Test";
-            String fullTestName = classInfo.getFullClassName() + separator + methodInfo.methodName + separator
-                    + classInfo.methodSigs.get(methodInfo.methodSignature) + separator + num + separator + "Test";
-            config.getLogger().info(String.format("\n==========================\n[%s] Generating test for method < ",config.pluginSign)
-                    + methodInfo.methodName + " > number " + num + "...\n");
+            return execute(num, prepare());
+        }
+
+        /**
+         * Build the prompt information of the focal method, which is the same for all attempts.
+         * The round-0 messages are rendered here once and shared through {@link PromptInfo#initialPrompt}.
+         * @return prompt information without test names
+         */
+        public PromptInfo prepare() {
             try {
                 PromptConstructorImpl pc = new PromptConstructorImpl(config);
                 if (!methodInfo.dependentMethods.isEmpty()) {
@@ -75,21 +80,49 @@ public class Phase {
                 } else {
                     pc.setPromptInfoWithoutDep(classInfo, methodInfo);
                 }
-                pc.setFullTestName(fullTestName);
-                pc.setTestName(testName);
-
                 PromptInfo promptInfo = pc.getPromptInfo();
-                promptInfo.setFullTestName(fullTestName);
-                Path savePath = config.getTestOutput().resolve(fullTestName.replace(".", File.separator) + ".java");
-                promptInfo.setTestPath(savePath);
-
-                promptInfo.setTestNum(num);
-                return pc;
-
+                if (!config.isEnableObfuscate()) { // obfuscated prompts are rendered per attempt
+                    promptInfo.setInitialPrompt(new PromptGenerator(config).renderInitialPrompt(promptInfo));
+                }
+                return promptInfo;
             } catch (IOException e) {
-                throw  new RuntimeException("In PromptGeneration.execute: " + e);
+                throw  new RuntimeException("In PromptGeneration.prepare: " + e);
             }
         }
+
+        /**
+         * Execution of the prompt word generator on top of the shared prompt information,
+         * only the test names and the records of the attempt are set.
+         * @param num The number of current loops
+         * @param basePromptInfo prompt information returned by {@link #prepare()}
+         * @return {@code pc} prompt word generator
+         */
+        public PromptConstructorImpl execute(int num, PromptInfo basePromptInfo) {
+            String testName = classInfo.getClassName() + separator + methodInfo.methodName + separator
+                    + classInfo.methodSigs.get(methodInfo.methodSignature) + separator + num + separator + "Test";
+            String fullTestName = classInfo.getFullClassName() + separator + methodInfo.methodName + separator
+                    + classInfo.methodSigs.get(methodInfo.methodSignature) + separator + num + separator + "Test";
+            config.getLogger().info(String.format("\n==========================\n[%s] Generating test for method < ",config.pluginSign)
+                    + methodInfo.methodName + " > number " + num + "...\n");
+            PromptConstructorImpl pc = new PromptConstructorImpl(config);
+            PromptInfo promptInfo = new PromptInfo(basePromptInfo);
+            promptInfo.setRecords(new ArrayList<>());
+            promptInfo.setCorrectTests(new HashMap<>());
+            pc.setPromptInfo(promptInfo);
+            if (promptInfo.getInitialPrompt() != null) {
+                pc.setChatMessages(promptInfo.getInitialPrompt().getMessages());
+                pc.setTokenCount(promptInfo.getInitialPrompt().getTokenCount());
+            }
+            pc.setFullTestName(fullTestName);
+            pc.setTestName(testName);
+
+            promptInfo.setFullTestName(fullTestName);
+            Path savePath = config.getTestOutput().resolve(fullTestName.replace(".", File.separator) + ".java");
+            promptInfo.setTestPath(savePath);
+
+            promptInfo.setTestNum(num);
+            return pc;
+        }
     }
 
     /**
@@ -139,6 +172,7 @@ public class Phase {
             if (config.isEnableObfuscate()) {
                 Obfuscator obfuscator = new Obfuscator(config);
                 PromptInfo obfuscatedPromptInfo = new PromptInfo(promptInfo);
+                obfuscatedPromptInfo.setInitialPrompt(null);
                 obfuscator.obfuscatePromptInfo(obfuscatedPromptInfo);
                 prompt = promptGenerator.generateMessages(obfuscatedPromptInfo);
                 code = generateTest(prompt, record);
@@ -149,13 +183,25 @@ public class Phase {
                 code = obfuscator.deobfuscateJava(code);
             } else {
                 prompt = promptGenerator.generateMessages(promptInfo);
-                code = generateTest(prompt, record);
+                if (rounds == 0 && promptInfo.getInitialPrompt() != null) {
+                    code = generateTest(prompt, record, promptInfo.getInitialPrompt().getTokenCount());
+                } else {
+                    code = generateTest(prompt, record);
+                }
                 if (!record.isHasCode()) {
                     promptInfo.setUnitTest("");
                     return;
                 }
             }
 
+            if (rounds > 0 && promptInfo.getRetainedTest() != null) { // diff repair, splice the fixed methods
+                String spliced = new TestProcessor(promptInfo.getFullTestName()).spliceMethods(promptInfo.getRetainedTest(), code);
+                if (spliced != null) {
+                    code = spliced;
+                }
+                promptInfo.setRetainedTest(null);
+            }
+
             if (CodeExtractor.isTestMethod(code)) {
                 TestSkeleton skeleton = new TestSkeleton(promptInfo); // test skeleton to wrap a test method
                 code = skeleton.build(code);
@@ -175,8 +221,19 @@ public class Phase {
          * @return unit test code
          */
         public String generateTest(List<ChatMessage> prompt, RoundRecord record) {
+            return generateTest(prompt, record, MethodRunner.countTokens(prompt));
+        }
+
+        /**
+         * Core process to chat with LLM and get code in its response
+         * @param prompt prompt words for the system and the user
+         * @param record Information recorder
+         * @param promptTokens token count of the prompt, known in advance for shared round-0 prompts
+         * @return unit test code
+         */
+        public String generateTest(List<ChatMessage> prompt, RoundRecord record, int promptTokens) {
 
-            if (MethodRunner.isExceedMaxTokens(config.getMaxPromptTokens(), prompt)) {
+            if (promptTokens > config.getMaxPromptTokens()) {
                 config.getLogger().error("Exceed max prompt tokens: " + methodInfo.methodName + " Skipped.");
                 record.setPromptToken(-1);
                 record.setHasCode(false);
@@ -8,12 +8,8 @@ import zju.cst.aces.runner.AbstractRunner;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -109,6 +105,7 @@ public class Task {
         }
 
         log.info(String.format("\n==========================\n[%s] Generation finished", config.pluginSign));
+        log.debug("Class info cache: " + AbstractRunner.INFO_CACHE.stats());
     }
 
     /**
@@ -135,6 +132,7 @@ public class Task {
             log.warn("Class not found: " + className + " in " + config.getProject().getArtifactId());
         }
         log.info(String.format("\n==========================\n[%s] Generation finished",config.pluginSign));
+        log.debug("Class info cache: " + AbstractRunner.INFO_CACHE.stats());
     }
 
     /**
@@ -185,6 +183,7 @@ public class Task {
         }
 
         log.info(String.format("\n==========================\n[%s] Generation finished",config.pluginSign));
+        log.debug("Class info cache: " + AbstractRunner.INFO_CACHE.stats());
     }
 
     /**
@@ -239,14 +238,13 @@ public class Task {
         if (isFullName(name)) {
             return name;
         }
-        Path classMapPath = config.getClassNameMapPath();
-        Map<String, List<String>> classMap = config.getGSON().fromJson(Files.readString(classMapPath, StandardCharsets.UTF_8), Map.class);
-        if (classMap.containsKey(name)) {
-            if (classMap.get(name).size() > 1) {
-                throw new RuntimeException((String.format("[%s] Multiple classes Named ",config.pluginSign)) + name + ": " + classMap.get(name)
-                        + " Please use full qualified name!");
-            }
-            return classMap.get(name).get(0);
+        List<String> fullNames = config.getClassNameIndex().getFullNames(name);
+        if (fullNames.size() > 1) {
+            throw new RuntimeException((String.format("[%s] Multiple classes Named ",config.pluginSign)) + name + ": " + fullNames
+                    + " Please use full qualified name!");
+        }
+        if (fullNames.size() == 1) {
+            return fullNames.get(0);
         }
         return name;
     }
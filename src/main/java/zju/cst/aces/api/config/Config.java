@@ -2,7 +2,6 @@ package zju.cst.aces.api.config;
 
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 import zju.cst.aces.api.PreProcess;
@@ -19,6 +18,9 @@ import zju.cst.aces.api.impl.LoggerImpl;
 import zju.cst.aces.api.Logger;
 import zju.cst.aces.api.impl.ValidatorImpl;
 import zju.cst.aces.dto.OCM;
+import zju.cst.aces.parser.ClassNameIndex;
+import zju.cst.aces.parser.IndexedJarTypeSolver;
+import zju.cst.aces.parser.JarTypeIndex;
 import zju.cst.aces.parser.ProjectParser;
 import zju.cst.aces.prompt.PromptTemplate;
 
@@ -60,10 +62,16 @@ public class Config {
     public boolean enableRuleRepair;
     public boolean enableMerge;
     public boolean enableObfuscate;
+    public boolean enableDiffRepair;
+    public boolean exportClassInfoJson;
+    public boolean enableBytecodeParse;
     public String[] obfuscateGroupIds;
     public int maxThreads;
     public int classThreads;
     public int methodThreads;
+    public int parseThreads;
+    public int parseBatchSize;
+    public int sdgThreads;
     public int testNumber;
     public int maxRounds;
     public int maxPromptTokens;
@@ -82,6 +90,7 @@ public class Config {
     public Path parseOutput;
     public Path errorOutput;
     public Path classNameMapPath;
+    private volatile ClassNameIndex classNameIndex;
     public Path historyPath;
     public Path examplePath;
     public Path symbolFramePath;
@@ -120,10 +129,16 @@ public class Config {
         public boolean enableRuleRepair = true;
         public boolean enableMerge = true;
         public boolean enableObfuscate = false;
+        public boolean enableDiffRepair = false;
+        public boolean exportClassInfoJson = false;
+        public boolean enableBytecodeParse = false;
         public String[] obfuscateGroupIds;
         public int maxThreads = Runtime.getRuntime().availableProcessors() * 5;
         public int classThreads = (int) Math.ceil((double)  this.maxThreads / 10);
         public int methodThreads = (int) Math.ceil((double) this.maxThreads / this.classThreads);
+        public int parseThreads = Runtime.getRuntime().availableProcessors();
+        public int parseBatchSize = 1000;
+        public int sdgThreads = 1;
         public int testNumber = 5;
         public int maxRounds = 5;
         public int maxPromptTokens = 2600;
@@ -315,6 +330,30 @@ public class Config {
             return this;
         }
 
+        /**
+         * Send only the failing test methods in repair rounds and splice the fixed methods back into the test.
+         */
+        public ConfigBuilder enableDiffRepair(boolean enableDiffRepair) {
+            this.enableDiffRepair = enableDiffRepair;
+            return this;
+        }
+
+        /**
+         * Also export the parsed class and method infos as JSON files, besides the binary class info store.
+         */
+        public ConfigBuilder exportClassInfoJson(boolean exportClassInfoJson) {
+            this.exportClassInfoJson = exportClassInfoJson;
+            return this;
+        }
+
+        /**
+         * Take the method dependencies and subclasses from the compiled classes instead of resolving the sources.
+         */
+        public ConfigBuilder enableBytecodeParse(boolean enableBytecodeParse) {
+            this.enableBytecodeParse = enableBytecodeParse;
+            return this;
+        }
+
         public ConfigBuilder properties(String configFile) {
             try {
                 Properties properties = new Properties();
@@ -343,6 +382,39 @@ public class Config {
             return this;
         }
 
+        public ConfigBuilder parseThreads(int parseThreads) {
+            if (parseThreads <= 0) {
+                this.parseThreads = Runtime.getRuntime().availableProcessors();
+            } else {
+                this.parseThreads = parseThreads;
+            }
+            return this;
+        }
+
+        /**
+         * Parse the project and mine its method examples in batches of this many source files, to bound the
+         * heap. The SDG of a batch also spans the callers of its classes and the callees of those callers, but
+         * not the classes further away, so with a batch smaller than the project the method examples are an
+         * approximation of the ones mined from the SDG of the whole project.
+         */
+        public ConfigBuilder parseBatchSize(int parseBatchSize) {
+            this.parseBatchSize = parseBatchSize;
+            return this;
+        }
+
+        /**
+         * Build the CFGs and PDGs and solve independent parts of the call graph concurrently when building the SDG
+         * of the method examples. Symbol resolution stays sequential, and the SDG is the same as with one thread.
+         */
+        public ConfigBuilder sdgThreads(int sdgThreads) {
+            if (sdgThreads <= 0) {
+                this.sdgThreads = Runtime.getRuntime().availableProcessors();
+            } else {
+                this.sdgThreads = sdgThreads;
+            }
+            return this;
+        }
+
         public ConfigBuilder url(String url) {
             if (!this.model.getModelName().contains("gpt-4") && !this.model.getModelName().contains("gpt-3.5") && url.equals("https://api.openai.com/v1/chat/completions")) {
                 throw new RuntimeException("Invalid url for model: " + this.model + ". Please configure the url in plugin configuration.");
@@ -523,17 +595,16 @@ public class Config {
         public JavaSymbolSolver getSymbolSolver() {
             CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
             combinedTypeSolver.add(new ReflectionTypeSolver());
+            List<Path> jars = new ArrayList<>();
             for (String dep : this.getClassPaths()) {
-                try {
-                    File depFile = new File(dep);
-                    if (!depFile.exists() || !dep.endsWith("jar")) {
-                        continue;
-                    }
-                    combinedTypeSolver.add(new JarTypeSolver(depFile));
-                } catch (Exception e) {
-                    this.getLogger().warn(e.getMessage());
-                    this.getLogger().debug(e.getMessage());
+                File depFile = new File(dep);
+                if (!depFile.exists() || !dep.endsWith("jar")) {
+                    continue;
                 }
+                jars.add(depFile.toPath());
+            }
+            if (!jars.isEmpty()) { // jars are indexed once and opened on the first lookup of one of their types
+                combinedTypeSolver.add(new IndexedJarTypeSolver(jars, JarTypeIndex.DEFAULT_INDEX_DIR, this.getLogger()));
             }
             for (String src : this.getProject().getCompileSourceRoots()) { // TODO: remove MavenProject
                 if (new File(src).exists()) {
@@ -565,10 +636,16 @@ public class Config {
             config.setEnableRuleRepair(this.enableRuleRepair);
             config.setEnableMerge(this.enableMerge);
             config.setEnableObfuscate(this.enableObfuscate);
+            config.setEnableDiffRepair(this.enableDiffRepair);
+            config.setExportClassInfoJson(this.exportClassInfoJson);
+            config.setEnableBytecodeParse(this.enableBytecodeParse);
             config.setObfuscateGroupIds(this.obfuscateGroupIds);
             config.setMaxThreads(this.maxThreads);
             config.setClassThreads(this.classThreads);
             config.setMethodThreads(this.methodThreads);
+            config.setParseThreads(this.parseThreads);
+            config.setParseBatchSize(this.parseBatchSize);
+            config.setSdgThreads(this.sdgThreads);
             config.setTestNumber(this.testNumber);
             config.setMaxRounds(this.maxRounds);
             config.setMaxPromptTokens(this.maxPromptTokens);
@@ -610,6 +687,23 @@ public class Config {
         return apiKey;
     }
 
+    /**
+     * Get the simple name → full class names index of the project, it is loaded once from {@code classNameMapPath}.
+     * @throws IOException if the class name mapping cannot be read
+     */
+    public ClassNameIndex getClassNameIndex() throws IOException {
+        ClassNameIndex index = this.classNameIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (this.classNameIndex == null) {
+                    this.classNameIndex = ClassNameIndex.load(getClassNameMapPath());
+                }
+                index = this.classNameIndex;
+            }
+        }
+        return index;
+    }
+
     public void print() {
         logger.info("\n========================== Configuration ==========================\n");
         logger.info("PluginSign >>>>"+this.getPluginSign() );
@@ -620,6 +714,8 @@ public class Config {
         logger.info(" Stop when success >>>> " + this.isStopWhenSuccess());
         logger.info(" No execution >>>> " + this.isNoExecution());
         logger.info(" Enable Merge >>>> " + this.isEnableMerge());
+        logger.info(" Enable Diff Repair >>>> " + this.isEnableDiffRepair());
+        logger.info(" Enable Bytecode Parse >>>> " + this.isEnableBytecodeParse());
         logger.info(" --- ");
         logger.info(" TestOutput Path >>> " + this.getTestOutput());
         logger.info(" TmpOutput Path >>> " + this.getTmpOutput());
@@ -632,6 +728,9 @@ public class Config {
         logger.info(" MaxResponseTokens >>> " + this.getMaxResponseTokens());
         logger.info(" MinErrorTokens >>> " + this.getMinErrorTokens());
         logger.info(" MaxThreads >>> " + this.getMaxThreads());
+        logger.info(" ParseThreads >>> " + this.getParseThreads());
+        logger.info(" ParseBatchSize >>> " + this.getParseBatchSize());
+        logger.info(" SdgThreads >>> " + this.getSdgThreads());
         logger.info(" TestNumber >>> " + this.getTestNumber());
         logger.info(" MaxRounds >>> " + this.getMaxRounds());
         logger.info(" MinErrorTokens >>> " + this.getMinErrorTokens());
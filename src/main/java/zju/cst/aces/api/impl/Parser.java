@@ -3,6 +3,7 @@ package zju.cst.aces.api.impl;
 import lombok.Data;
 import zju.cst.aces.api.*;
 import zju.cst.aces.api.config.Config;
+import zju.cst.aces.parser.ParseManifest;
 import zju.cst.aces.parser.ProjectParser;
 
 import zju.cst.aces.api.PreProcess;
@@ -36,7 +37,8 @@ public class Parser implements PreProcess {
 
     /**
      * Check whether the current project is installed successfully.
-     * If it is the first time to run ChatUniTest, call {@link Parser#parse} to perform detailed analysis of the project.
+     * If it is the first time to run ChatUniTest, call {@link Parser#parse} to perform detailed analysis of the project,
+     * otherwise only the source files changed since the last parse are re-parsed.
      */
     public void parse() {
         try {
@@ -53,6 +55,10 @@ public class Parser implements PreProcess {
             log.info("\n==========================\n[ChatUniTest] Parsing class info ...");
             parser.parse();
             log.info("\n==========================\n[ChatUniTest] Parse finished");
+        } else if (ParseManifest.exists(parseOutput)) {
+            log.info("\n==========================\n[ChatUniTest] Updating class info of changed files ...");
+            parser.parseIncremental();
+            log.info("\n==========================\n[ChatUniTest] Parse finished");
         } else {
             log.info("\n==========================\n[ChatUniTest] Parse output already exists, skip parsing!");
         }
@@ -38,6 +38,8 @@ public class ClassInfo {
     public String classDeclarationCode;
     public List<String> subClasses;
 
+    public ClassInfo() {}
+
     public ClassInfo(CompilationUnit cu, ClassOrInterfaceDeclaration classNode, int index, String classSignature,
                      List<String> imports, List<String> fields, List<String> superClasses, Map<String, String> methodSigs,
                      List<String> methodsBrief, boolean hasConstructor, List<String> constructorSigs,
@@ -2,18 +2,38 @@ package zju.cst.aces.dto;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import zju.cst.aces.api.config.Config;
+import com.google.gson.reflect.TypeToken;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Example usages of the methods in a class.
+ *
+ * <P>
+ * The example file is an indexed store: class name → method signature → usages sorted by length,
+ * written by {@link #export}. A sibling index file records the byte range of each class entry,
+ * so a lookup only reads the entry of the requested class. Each store is loaded once per run and
+ * shared by all prompts. Example files without an index are loaded once as a whole.
+ * </P>
+ */
 public class ExampleUsage {
     public String className;
     public Map<String, List<String>> methodUsages;
     public static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+    private static final Type USAGES_TYPE = new TypeToken<Map<String, List<String>>>() {}.getType();
+    private static final Type CLASS_USAGES_TYPE = new TypeToken<Map<String, Map<String, List<String>>>>() {}.getType();
+    private static final Type OFFSETS_TYPE = new TypeToken<Map<String, long[]>>() {}.getType();
+    private static final Map<Path, Store> STORES = new ConcurrentHashMap<>();
 
     public ExampleUsage(Path examplePath, String className) {
         this.className = className;
@@ -21,30 +41,146 @@ public class ExampleUsage {
     }
 
     public Map<String, List<String>> loadUsages(Path path, String name) {
-        // read examplePath and load methodUsages
-        Map<String, List<String>> usages = null;
         if (!path.toFile().exists()) {
             return null;
         }
         try {
-            usages = (Map<String, List<String>>) GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), Map.class).get(name);
+            return STORES.computeIfAbsent(path.toAbsolutePath().normalize(), Store::new).get(name);
         } catch (Exception e) {
             throw new RuntimeException("In ExampleUsage.loadUsages: " + e);
         }
-        return usages;
     }
 
     public String getShortestUsage(String methodSig) {
         if (methodUsages == null) {
             return null;
         }
-        // sort the list and return the shortest usage of the list
-        if (methodUsages.containsKey(methodSig)) {
-            List<String> usages = methodUsages.get(methodSig);
-            usages.sort((a, b) -> a.length() - b.length());
-            return usages.get(0);
-        } else {
+        // usages are sorted by length in the store
+        List<String> usages = methodUsages.get(methodSig);
+        if (usages == null || usages.isEmpty()) {
             return null;
         }
+        return usages.get(0);
+    }
+
+    /**
+     * Write the usages as an indexed store.
+     * @param path the example file
+     * @param usages class name → method signature → usages sorted by length
+     */
+    public static void export(Path path, Map<String, Map<String, List<String>>> usages) throws IOException {
+        if (!Files.exists(path.toAbsolutePath().getParent())) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        Gson compact = new GsonBuilder().disableHtmlEscaping().create();
+        Map<String, long[]> offsets = new TreeMap<>();
+        try (OutputStream out = Files.newOutputStream(path)) {
+            long position = 0;
+            position += write(out, "{\n");
+            Iterator<Map.Entry<String, Map<String, List<String>>>> it = usages.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Map<String, List<String>>> entry = it.next();
+                position += write(out, "  " + compact.toJson(entry.getKey()) + ": ");
+                long length = write(out, compact.toJson(entry.getValue()));
+                offsets.put(entry.getKey(), new long[]{position, length});
+                position += length;
+                position += write(out, it.hasNext() ? ",\n" : "\n");
+            }
+            write(out, "}\n");
+        }
+        Files.writeString(indexPathOf(path), compact.toJson(offsets), StandardCharsets.UTF_8);
+        STORES.remove(path.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Load all usages of an example file, e.g. to update them after an incremental parse.
+     * @return class name → method signature → usages, empty if the file is missing
+     */
+    public static Map<String, Map<String, List<String>>> loadAll(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new TreeMap<>();
+        }
+        Map<String, Map<String, List<String>>> all = GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), CLASS_USAGES_TYPE);
+        return all == null ? new TreeMap<>() : new TreeMap<>(all);
+    }
+
+    public static Path indexPathOf(Path examplePath) {
+        String name = examplePath.getFileName().toString();
+        String base = name.endsWith(".json") ? name.substring(0, name.length() - ".json".length()) : name;
+        return examplePath.resolveSibling(base + ".index.json");
+    }
+
+    private static long write(OutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        return bytes.length;
+    }
+
+    /**
+     * Usages of one example file, loaded once and shared between threads.
+     */
+    private static class Store {
+        private final Path path;
+        private final Map<String, long[]> offsets;
+        private final Map<String, Optional<Map<String, List<String>>>> classUsages = new ConcurrentHashMap<>();
+
+        Store(Path path) {
+            this.path = path;
+            Path indexPath = indexPathOf(path);
+            Map<String, long[]> index = null;
+            if (Files.exists(indexPath)) {
+                try {
+                    index = GSON.fromJson(Files.readString(indexPath, StandardCharsets.UTF_8), OFFSETS_TYPE);
+                } catch (Exception e) {
+                    index = null;
+                }
+            }
+            this.offsets = index;
+            if (this.offsets == null) {
+                loadAll();
+            }
+        }
+
+        Map<String, List<String>> get(String className) throws IOException {
+            Optional<Map<String, List<String>>> usages = classUsages.get(className);
+            if (usages != null) {
+                return usages.orElse(null);
+            }
+            long[] range = offsets == null ? null : offsets.get(className);
+            Map<String, List<String>> loaded = range == null ? null : read(range[0], range[1]);
+            classUsages.put(className, Optional.ofNullable(loaded));
+            return loaded;
+        }
+
+        private Map<String, List<String>> read(long offset, long length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate((int) length);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, offset + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+            }
+            return GSON.fromJson(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8), USAGES_TYPE);
+        }
+
+        private void loadAll() {
+            Map<String, Map<String, List<String>>> all;
+            try {
+                all = GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), CLASS_USAGES_TYPE);
+            } catch (Exception e) {
+                // not an example usage file, e.g. one exported by an older version
+                return;
+            }
+            if (all == null) {
+                return;
+            }
+            all.forEach((name, usages) -> {
+                if (usages != null) {
+                    usages.values().forEach(list -> list.sort(Comparator.comparingInt(String::length)));
+                }
+                classUsages.put(name, Optional.ofNullable(usages));
+            });
+        }
     }
 }
@@ -1,9 +1,6 @@
 package zju.cst.aces.dto;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeSet;
+import java.util.*;
 
 /**
  * Method Example Map
@@ -25,6 +22,30 @@ public class MethodExampleMap {
         return this.mem;
     }
 
+    /**
+     * Group the example code by class and method for {@link ExampleUsage}.
+     * The keys of the map are qualified signatures, e.g. {@code pkg.Foo.bar(int, String)}.
+     * @return simple class name → method signature → example code sorted by length
+     */
+    public Map<String, Map<String, List<String>>> getUsages() {
+        Map<String, Map<String, List<String>>> usages = new TreeMap<>();
+        mem.forEach((qualifiedSig, invocations) -> {
+            int paren = qualifiedSig.indexOf('(');
+            int methodStart = qualifiedSig.lastIndexOf('.', paren < 0 ? qualifiedSig.length() : paren);
+            if (methodStart < 0) {
+                return;
+            }
+            String fullClassName = qualifiedSig.substring(0, methodStart);
+            String className = fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
+            String methodSig = qualifiedSig.substring(methodStart + 1);
+            List<String> codes = usages.computeIfAbsent(className, k -> new TreeMap<>())
+                    .computeIfAbsent(methodSig, k -> new ArrayList<>());
+            invocations.forEach(mec -> codes.add(mec.code));
+            codes.sort(Comparator.comparingInt(String::length));
+        });
+        return usages;
+    }
+
     static class MEC {
         String className;
         String methodName;
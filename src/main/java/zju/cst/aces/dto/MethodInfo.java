@@ -25,6 +25,8 @@ public class MethodInfo {
     public String method_comment;
     public String method_annotation;
 
+    public MethodInfo() {}
+
     public MethodInfo(String className, String methodName, String brief, String methodSignature,
                       String sourceCode, List<String> parameters, Map<String, Set<String>> dependentMethods,String full_method_info,String method_comment,String method_annotation ){
         this.className = className;
@@ -29,6 +29,8 @@ public class PromptInfo {
     public List<RoundRecord> records = new ArrayList<>();
     public MethodInfo methodInfo;
     public ClassInfo classInfo;
+    public RenderedPrompt initialPrompt; // shared round-0 prompt of the focal method
+    public String retainedTest; // unit test that the methods fixed by a diff repair are spliced into
 
     public PromptInfo(boolean hasDep, String fullClassName, String methodName,
                       String methodSignature) {
@@ -50,6 +52,7 @@ public class PromptInfo {
         this.setMethodSignature(p.getMethodSignature());
         this.setContext(p.getContext());
         this.setOtherMethodBrief(p.getOtherMethodBrief());
+        this.setOtherMethodBodies(p.getOtherMethodBodies());
         this.setConstructorDeps(p.getConstructorDeps());
         this.setMethodDeps(p.getMethodDeps());
         this.setErrorMsg(p.getErrorMsg());
@@ -60,6 +63,8 @@ public class PromptInfo {
         this.setRecords(p.getRecords());
         this.setMethodInfo(p.getMethodInfo());
         this.setClassInfo(p.getClassInfo());
+        this.setInitialPrompt(p.getInitialPrompt());
+        this.setRetainedTest(p.getRetainedTest());
     }
 
     public void addMethodDeps(String depClassName, String methodDep) {
@@ -0,0 +1,34 @@
+package zju.cst.aces.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Round-0 prompt of a focal method, rendered once and shared by all attempts.
+ * The attempts only differ in their test names, which are not part of the prompt.
+ */
+public final class RenderedPrompt {
+    private final List<ChatMessage> messages;
+    private final int tokenCount;
+
+    public RenderedPrompt(List<ChatMessage> messages, int tokenCount) {
+        List<ChatMessage> copy = new ArrayList<>();
+        messages.forEach(m -> copy.add(new ChatMessage(m.getRole(), m.getContent())));
+        this.messages = Collections.unmodifiableList(copy);
+        this.tokenCount = tokenCount;
+    }
+
+    /**
+     * @return a copy of the rendered messages that the caller may modify
+     */
+    public List<ChatMessage> getMessages() {
+        List<ChatMessage> copy = new ArrayList<>();
+        messages.forEach(m -> copy.add(new ChatMessage(m.getRole(), m.getContent())));
+        return copy;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+}
@@ -0,0 +1,349 @@
+package zju.cst.aces.parser;
+
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Method dependencies and class hierarchy of a project, read from its compiled classes with ASM.
+ *
+ * <P>
+ * A method is summarized by its descriptor, the lines of its code (from the debug info) and the methods it
+ * invokes. The calls of its lambdas and of the anonymous and local classes declared in it are counted as its own,
+ * as they are in the source. A callable of the source is matched to its compiled method by name, line range and
+ * parameter types, so the compiled classes must be up to date with the sources.
+ * </P>
+ */
+public class BytecodeIndex {
+
+    private static final String CLASS_EXTENSION = ".class";
+
+    private final Map<String, ClassSummary> classes;
+    private final Map<String, List<String>> subClasses = new HashMap<>();
+
+    private BytecodeIndex(Map<String, ClassSummary> classes) {
+        this.classes = classes;
+        classes.values().forEach(c -> {
+            if (c.outerMethod != null && classes.containsKey(c.outerClass)) {
+                Method outer = classes.get(c.outerClass).methods.get(c.outerMethod);
+                if (outer != null) {
+                    outer.nestedClasses.add(c.name);
+                }
+            }
+            if (isAnonymousOrLocal(c.name)) {
+                return;
+            }
+            // super types as written after "extends": the super class, or the super interfaces of an interface
+            List<String> extendedTypes = c.isInterface ? c.interfaces : Collections.singletonList(c.superName);
+            for (String extendedType : extendedTypes) {
+                if (extendedType != null) {
+                    subClasses.computeIfAbsent(toClassName(extendedType), k -> new ArrayList<>()).add(toClassName(c.name));
+                }
+            }
+        });
+    }
+
+    /**
+     * Read the class files under the directory in parallel.
+     * @param classesDir the build output directory, e.g. {@code target/classes}
+     */
+    public static BytecodeIndex load(Path classesDir) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> paths = Files.walk(classesDir)) {
+            classFiles = paths.filter(p -> p.toString().endsWith(CLASS_EXTENSION)).collect(Collectors.toList());
+        }
+        Map<String, ClassSummary> classes = classFiles.parallelStream()
+                .map(BytecodeIndex::readClass)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(c -> c.name, c -> c, (a, b) -> a));
+        return new BytecodeIndex(classes);
+    }
+
+    private static ClassSummary readClass(Path classFile) {
+        ClassNode classNode = new ClassNode();
+        try {
+            new ClassReader(Files.readAllBytes(classFile)).accept(classNode, ClassReader.SKIP_FRAMES);
+        } catch (Exception e) {
+            return null; // not a valid class file, e.g. module-info of a newer release
+        }
+        return new ClassSummary(classNode);
+    }
+
+    public int size() {
+        return classes.size();
+    }
+
+    /**
+     * Get the full names of the project classes that extend the given class (or interface).
+     */
+    public List<String> getSubClasses(String fullClassName) {
+        return new ArrayList<>(subClasses.getOrDefault(fullClassName, Collections.emptyList()));
+    }
+
+    /**
+     * Find the compiled method of a method or constructor declared in a class of the project.
+     * @return the method, or {@code null} if it is not found, cannot be told apart from its overloads or has no
+     * line in the declaration (no code, no debug info or a stale class file)
+     */
+    public Method findMethod(CallableDeclaration<?> node) {
+        ClassOrInterfaceDeclaration classNode = node.findAncestor(ClassOrInterfaceDeclaration.class).orElse(null);
+        if (classNode == null || classNode.getFullyQualifiedName().isEmpty()) {
+            return null;
+        }
+        ClassSummary c = findClass(classNode.getFullyQualifiedName().get());
+        if (c == null) {
+            return null;
+        }
+        String name = node.isConstructorDeclaration() ? "<init>" : node.getNameAsString();
+        int parameterCount = node.getParameters().size();
+        List<Method> candidates = new ArrayList<>();
+        for (Method m : c.methods.values()) {
+            int extra = m.parameterTypes.length - parameterCount;
+            // constructors of inner classes take the outer instance first
+            if (m.name.equals(name) && (extra == 0 || (extra == 1 && node.isConstructorDeclaration()))) {
+                candidates.add(m);
+            }
+        }
+        if (node.getRange().isPresent()) {
+            int begin = node.getRange().get().begin.line;
+            int end = node.getRange().get().end.line;
+            // code outside the declaration belongs to an overload, or the class was compiled from another version
+            candidates.removeIf(m -> !m.hasLineIn(begin, end));
+        }
+        if (candidates.size() > 1) {
+            candidates.removeIf(m -> !m.matchesParameters(node.getParameters()));
+        }
+        return candidates.size() == 1 ? candidates.get(0) : null;
+    }
+
+    /**
+     * Get the methods invoked by the method, grouped by their declaring type, in the form
+     * {@code name(SimpleType, ...)}. Calls generated by the compiler (boxing, iterators, string concatenation, ...)
+     * are left out by keeping only the names of the calls written in the source.
+     * @param calledNames the names of the method calls in the source of the method
+     */
+    public Map<String, Set<String>> getInvocations(Method method, Set<String> calledNames) {
+        Map<String, Set<String>> invocations = new LinkedHashMap<>();
+        collectInvocations(method, calledNames, invocations, new HashSet<>());
+        return invocations;
+    }
+
+    private void collectInvocations(Method method, Set<String> calledNames, Map<String, Set<String>> invocations,
+                                    Set<Method> visited) {
+        if (!visited.add(method)) {
+            return;
+        }
+        for (Call call : method.calls) {
+            if (!calledNames.contains(call.name)) {
+                continue;
+            }
+            String declaringType = toClassName(findDeclaringClass(call.owner, call.name + call.desc));
+            invocations.computeIfAbsent(declaringType, k -> new HashSet<>()).add(call.getSignature());
+        }
+        ClassSummary owner = classes.get(method.owner);
+        for (String lambda : method.lambdas) {
+            Method lambdaMethod = owner.methods.get(lambda);
+            if (lambdaMethod != null) {
+                collectInvocations(lambdaMethod, calledNames, invocations, visited);
+            }
+        }
+        for (String nestedClass : method.nestedClasses) {
+            for (Method nestedMethod : classes.get(nestedClass).methods.values()) {
+                collectInvocations(nestedMethod, calledNames, invocations, visited);
+            }
+        }
+    }
+
+    /**
+     * The class declaring (or inheriting from outside the project) the method invoked on the owner.
+     */
+    private String findDeclaringClass(String owner, String methodKey) {
+        String current = owner;
+        while (current != null && classes.containsKey(current)) {
+            ClassSummary c = classes.get(current);
+            if (c.methods.containsKey(methodKey)) {
+                return current;
+            }
+            for (String i : c.interfaces) {
+                ClassSummary ic = classes.get(i);
+                if (ic != null && ic.methods.containsKey(methodKey)) {
+                    return i;
+                }
+            }
+            if (c.superName == null) {
+                return current;
+            }
+            current = c.superName;
+        }
+        return current == null ? owner : current;
+    }
+
+    /**
+     * Find a class by its source name, where nested classes are separated by dots.
+     */
+    private ClassSummary findClass(String fullClassName) {
+        String internalName = fullClassName.replace('.', '/');
+        ClassSummary c = classes.get(internalName);
+        int separator = internalName.lastIndexOf('/');
+        while (c == null && separator > 0) {
+            internalName = internalName.substring(0, separator) + "$" + internalName.substring(separator + 1);
+            c = classes.get(internalName);
+            separator = internalName.lastIndexOf('/', separator - 1);
+        }
+        return c;
+    }
+
+    private static boolean isAnonymousOrLocal(String internalName) {
+        int separator = internalName.lastIndexOf('$');
+        return separator >= 0 && separator + 1 < internalName.length()
+                && Character.isDigit(internalName.charAt(separator + 1));
+    }
+
+    /**
+     * @return the source form of an internal class name, e.g. {@code java.util.Map.Entry}
+     */
+    public static String toClassName(String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    /**
+     * @return the source form of a type, e.g. {@code java.lang.String[]}
+     */
+    public static String toClassName(Type type) {
+        return type.getClassName().replace('$', '.');
+    }
+
+    private static String getSimpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    private static class ClassSummary {
+        final String name;
+        final String superName;
+        final List<String> interfaces;
+        final boolean isInterface;
+        final String outerClass;
+        final String outerMethod;
+        final Map<String, Method> methods = new HashMap<>();
+
+        ClassSummary(ClassNode classNode) {
+            this.name = classNode.name;
+            this.superName = classNode.superName;
+            this.interfaces = classNode.interfaces;
+            this.isInterface = (classNode.access & Opcodes.ACC_INTERFACE) != 0;
+            this.outerClass = classNode.outerClass;
+            this.outerMethod = classNode.outerMethod == null ? null : classNode.outerMethod + classNode.outerMethodDesc;
+            for (MethodNode methodNode : classNode.methods) {
+                methods.put(methodNode.name + methodNode.desc, new Method(name, methodNode));
+            }
+        }
+    }
+
+    /**
+     * Summary of a compiled method.
+     */
+    public static class Method {
+        final String owner;
+        final String name;
+        final Type[] parameterTypes;
+        final int[] lines;
+        final List<Call> calls = new ArrayList<>();
+        final List<String> lambdas = new ArrayList<>();
+        final List<String> nestedClasses = new ArrayList<>();
+
+        Method(String owner, MethodNode methodNode) {
+            this.owner = owner;
+            this.name = methodNode.name;
+            this.parameterTypes = Type.getArgumentTypes(methodNode.desc);
+            SortedSet<Integer> lineSet = new TreeSet<>();
+            for (AbstractInsnNode insn : methodNode.instructions) {
+                if (insn instanceof LineNumberNode) {
+                    lineSet.add(((LineNumberNode) insn).line);
+                } else if (insn instanceof MethodInsnNode) {
+                    MethodInsnNode methodInsn = (MethodInsnNode) insn;
+                    if (!methodInsn.name.startsWith("<") && !methodInsn.name.startsWith("access$")
+                            && !methodInsn.owner.startsWith("[")) {
+                        calls.add(new Call(methodInsn.owner, methodInsn.name, methodInsn.desc));
+                    }
+                } else if (insn instanceof InvokeDynamicInsnNode) {
+                    for (Object arg : ((InvokeDynamicInsnNode) insn).bsmArgs) {
+                        if (arg instanceof Handle && ((Handle) arg).getOwner().equals(owner)
+                                && ((Handle) arg).getName().startsWith("lambda$")) {
+                            lambdas.add(((Handle) arg).getName() + ((Handle) arg).getDesc());
+                        }
+                    }
+                }
+            }
+            this.lines = lineSet.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        /**
+         * @return the types of the parameters declared in the source, in source form
+         */
+        public List<String> getParameterTypes(int parameterCount) {
+            List<String> types = new ArrayList<>();
+            for (int i = parameterTypes.length - parameterCount; i < parameterTypes.length; i++) {
+                types.add(toClassName(parameterTypes[i]));
+            }
+            return types;
+        }
+
+        boolean hasLineIn(int begin, int end) {
+            int i = Arrays.binarySearch(lines, begin);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            return i < lines.length && lines[i] <= end;
+        }
+
+        /**
+         * Whether the erased parameter types have the simple names of the types written in the source.
+         */
+        boolean matchesParameters(List<Parameter> parameters) {
+            List<String> types = getParameterTypes(parameters.size());
+            for (int i = 0; i < parameters.size(); i++) {
+                Parameter p = parameters.get(i);
+                String written = p.getType().getElementType().asString().split("<")[0];
+                String compiled = types.get(i).replace("[]", "");
+                if (!getSimpleName(compiled).equals(getSimpleName(written))
+                        && !compiled.equals("java.lang.Object")) { // type variables are erased
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class Call {
+        final String owner;
+        final String name;
+        final String desc;
+
+        Call(String owner, String name, String desc) {
+            this.owner = owner;
+            this.name = name;
+            this.desc = desc;
+        }
+
+        /**
+         * @return the signature with the simple names of the parameter types, e.g. {@code put(String, Object)}
+         */
+        String getSignature() {
+            return name + Arrays.stream(Type.getArgumentTypes(desc))
+                    .map(t -> getSimpleName(toClassName(t)))
+                    .collect(Collectors.joining(", ", "(", ")"));
+        }
+    }
+}
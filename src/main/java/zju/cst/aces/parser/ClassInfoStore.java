@@ -0,0 +1,463 @@
+package zju.cst.aces.parser;
+
+import zju.cst.aces.dto.ClassInfo;
+import zju.cst.aces.dto.MethodInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binary store of the parsed {@link ClassInfo} and {@link MethodInfo} records.
+ *
+ * <P>
+ * All records of a project are appended to a single segment file, and a sorted index
+ * (key → offset, length) is written next to it when the parsing finishes.
+ * The segment is read through a {@link MappedByteBuffer}, and a record is a list of named fields,
+ * so a lookup only decodes the fields it asks for, see {@link #getClassInfo(String, String...)}.
+ * Parse outputs written by older versions only have JSON files, the readers fall back to them
+ * when there is no store.
+ * </P>
+ */
+public class ClassInfoStore {
+
+    public static final String SEGMENT_FILE = "classInfo.seg";
+    public static final String INDEX_FILE = "classInfo.idx";
+    /**
+     * The fraction of the segment taken by replaced or removed records above which it is rewritten on close.
+     */
+    public static final double COMPACTION_THRESHOLD = 0.5;
+    private static final Map<Path, ClassInfoStore> INSTANCES = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, Field>> RECORD_FIELDS = new ConcurrentHashMap<>();
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LIST = 4;
+    private static final byte SET = 5;
+    private static final byte MAP = 6;
+
+    private final Path segmentPath;
+    private final String[] keys;
+    private final long[] offsets;
+    private final int[] lengths;
+    private volatile MappedByteBuffer segment;
+
+    private ClassInfoStore(Path segmentPath, String[] keys, long[] offsets, int[] lengths) {
+        this.segmentPath = segmentPath;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Get the store of a parse output, it is opened only once per run.
+     * @param parseOutput the parse output directory
+     * @return the store, or {@code null} if the project was parsed without one
+     */
+    public static ClassInfoStore getInstance(Path parseOutput) {
+        Path key = parseOutput.toAbsolutePath().normalize();
+        ClassInfoStore store = INSTANCES.get(key);
+        if (store == null && Files.exists(key.resolve(INDEX_FILE)) && Files.exists(key.resolve(SEGMENT_FILE))) {
+            store = INSTANCES.computeIfAbsent(key, ClassInfoStore::open);
+        }
+        return store;
+    }
+
+    private static ClassInfoStore open(Path parseOutput) {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(parseOutput.resolve(INDEX_FILE)))) {
+            int count = in.readInt();
+            String[] keys = new String[count];
+            long[] offsets = new long[count];
+            int[] lengths = new int[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = in.readUTF();
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+            return new ClassInfoStore(parseOutput.resolve(SEGMENT_FILE), keys, offsets, lengths);
+        } catch (IOException e) {
+            throw new RuntimeException("In ClassInfoStore.open: " + e);
+        }
+    }
+
+    public static String classKey(String fullClassName) {
+        return "C:" + fullClassName;
+    }
+
+    public static String methodKey(String fullClassName, String methodSignature) {
+        return "M:" + fullClassName + "#" + methodSignature;
+    }
+
+    /**
+     * The full name of the class, as set by the parser. Infos of older parse outputs may lack it,
+     * it is then built from the package and class names.
+     */
+    public static String fullClassName(ClassInfo info) {
+        if (info.fullClassName != null) {
+            return info.fullClassName;
+        }
+        String packageName = info.packageName == null ? "" : info.packageName.replace("package ", "").replace(";", "").trim();
+        return packageName.isEmpty() ? info.className : packageName + "." + info.className;
+    }
+
+    public boolean contains(String key) {
+        return Arrays.binarySearch(keys, key) >= 0;
+    }
+
+    /**
+     * Get the class info, only the given fields are decoded if any.
+     * @param fullClassName the full class name
+     * @param fields names of the fields to decode, all fields if empty
+     * @return the class info, or {@code null} if the class is not in the store
+     */
+    public ClassInfo getClassInfo(String fullClassName, String... fields) {
+        ByteBuffer record = record(classKey(fullClassName));
+        return record == null ? null : decode(record, new ClassInfo(), fields);
+    }
+
+    /**
+     * Get the method or constructor info, only the given fields are decoded if any.
+     */
+    public MethodInfo getMethodInfo(String fullClassName, String methodSignature, String... fields) {
+        ByteBuffer record = record(methodKey(fullClassName, methodSignature));
+        return record == null ? null : decode(record, new MethodInfo(), fields);
+    }
+
+    /**
+     * @return full names of all classes in the store, in alphabetical order
+     */
+    public List<String> getClassNames() {
+        List<String> classNames = new ArrayList<>();
+        for (String key : keys) {
+            if (key.startsWith("C:")) {
+                classNames.add(key.substring(2));
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * @return signatures of the methods and constructors of a class in the store, in alphabetical order
+     */
+    public List<String> getMethodSignatures(String fullClassName) {
+        String prefix = methodKey(fullClassName, "");
+        int i = Arrays.binarySearch(keys, prefix);
+        List<String> signatures = new ArrayList<>();
+        for (i = i < 0 ? -i - 1 : i; i < keys.length && keys[i].startsWith(prefix); i++) {
+            signatures.add(keys[i].substring(prefix.length()));
+        }
+        return signatures;
+    }
+
+    private ByteBuffer record(String key) {
+        int i = Arrays.binarySearch(keys, key);
+        if (i < 0) {
+            return null;
+        }
+        try {
+            return slice(offsets[i], lengths[i]);
+        } catch (IOException e) {
+            throw new RuntimeException("In ClassInfoStore.record: " + e);
+        }
+    }
+
+    private ByteBuffer slice(long offset, int length) throws IOException {
+        if (segment == null) {
+            synchronized (this) {
+                if (segment == null) {
+                    try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+                        if (channel.size() <= Integer.MAX_VALUE) {
+                            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                        }
+                    }
+                }
+            }
+        }
+        if (segment != null) {
+            ByteBuffer buffer = segment.duplicate();
+            buffer.position((int) offset);
+            buffer.limit((int) offset + length);
+            return buffer.slice();
+        }
+        // segments larger than 2GB cannot be mapped as a whole
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static <T> T decode(ByteBuffer record, T info, String... fields) {
+        Set<String> wanted = fields.length == 0 ? null : new HashSet<>(Arrays.asList(fields));
+        int fieldCount = record.getInt();
+        for (int i = 0; i < fieldCount; i++) {
+            String name = readString(record);
+            int length = record.getInt();
+            int end = record.position() + length;
+            Field field = wanted == null || wanted.contains(name) ? recordFields(info.getClass()).get(name) : null;
+            if (field != null) {
+                try {
+                    field.set(info, readValue(record));
+                } catch (IllegalAccessException | IllegalArgumentException e) {
+                    throw new RuntimeException("In ClassInfoStore.decode: " + e);
+                }
+            }
+            record.position(end);
+        }
+        return info;
+    }
+
+    private static Map<String, Field> recordFields(Class<?> type) {
+        return RECORD_FIELDS.computeIfAbsent(type, t -> {
+            Map<String, Field> fields = new LinkedHashMap<>();
+            for (Field field : t.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    fields.put(field.getName(), field);
+                }
+            }
+            return fields;
+        });
+    }
+
+    private static byte[] encode(Object info) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Map<String, Field> fields = recordFields(info.getClass());
+        out.writeInt(fields.size());
+        for (Field field : fields.values()) {
+            ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+            try {
+                writeValue(new DataOutputStream(valueBytes), field.get(info));
+            } catch (IllegalAccessException e) {
+                throw new IOException(e);
+            }
+            writeString(out, field.getName());
+            out.writeInt(valueBytes.size());
+            valueBytes.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Collection) {
+            out.writeByte(value instanceof Set ? SET : LIST);
+            out.writeInt(((Collection<?>) value).size());
+            for (Object element : (Collection<?>) value) {
+                writeValue(out, element);
+            }
+        } else if (value instanceof Map) {
+            out.writeByte(MAP);
+            out.writeInt(((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(out, entry.getKey());
+                writeValue(out, entry.getValue());
+            }
+        } else {
+            throw new IOException("Unsupported value type: " + value.getClass().getName());
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) {
+        byte type = in.get();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(in);
+            case BOOLEAN:
+                return in.get() != 0;
+            case INTEGER:
+                return in.getInt();
+            case LIST:
+            case SET: {
+                int size = in.getInt();
+                Collection<Object> values = type == SET ? new LinkedHashSet<>() : new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    values.add(readValue(in));
+                }
+                return values;
+            }
+            case MAP: {
+                int size = in.getInt();
+                Map<Object, Object> values = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    values.put(readValue(in), readValue(in));
+                }
+                return values;
+            }
+            default:
+                throw new IllegalStateException("Unknown value type: " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        String value;
+        if (in.hasArray()) {
+            value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            in.duplicate().get(bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        in.position(in.position() + length);
+        return value;
+    }
+
+    /**
+     * Appends the records during parsing and writes the sorted index on {@link #close()}.
+     * Records of a key that is written again replace the older ones. The replaced and removed records
+     * stay in the segment until they take more than {@link #COMPACTION_THRESHOLD} of it, the live
+     * records are then copied to a new segment on close.
+     */
+    public static class Writer implements Closeable {
+        private final Path parseOutput;
+        private final FileChannel channel;
+        private final Map<String, long[]> index = new HashMap<>();
+
+        public Writer(Path parseOutput) throws IOException {
+            this.parseOutput = parseOutput;
+            Files.createDirectories(parseOutput);
+            ClassInfoStore existing = Files.exists(parseOutput.resolve(INDEX_FILE)) ? open(parseOutput) : null;
+            if (existing != null) {
+                for (int i = 0; i < existing.keys.length; i++) {
+                    index.put(existing.keys[i], new long[]{existing.offsets[i], existing.lengths[i]});
+                }
+            }
+            this.channel = FileChannel.open(parseOutput.resolve(SEGMENT_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.channel.position(existing == null ? 0 : this.channel.size());
+            if (existing == null) {
+                this.channel.truncate(0);
+            }
+        }
+
+        public void addClassInfo(ClassInfo classInfo) throws IOException {
+            append(classKey(fullClassName(classInfo)), encode(classInfo));
+        }
+
+        public void addMethodInfo(String fullClassName, String methodSignature, MethodInfo methodInfo) throws IOException {
+            append(methodKey(fullClassName, methodSignature), encode(methodInfo));
+        }
+
+        /**
+         * Drop the class and method records of a class, e.g. one whose source file was deleted or changed.
+         * The records stay in the segment file but are no longer indexed.
+         */
+        public synchronized void remove(String fullClassName) {
+            index.remove(classKey(fullClassName));
+            String methodPrefix = methodKey(fullClassName, "");
+            index.keySet().removeIf(key -> key.startsWith(methodPrefix));
+        }
+
+        private synchronized void append(String key, byte[] record) throws IOException {
+            long offset = channel.position();
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            index.put(key, new long[]{offset, record.length});
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            channel.force(false);
+            long segmentSize = channel.size();
+            channel.close();
+            long liveSize = index.values().stream().mapToLong(entry -> entry[1]).sum();
+            if (segmentSize > 0 && (double) (segmentSize - liveSize) / segmentSize > COMPACTION_THRESHOLD) {
+                compact();
+            }
+            List<String> keys = new ArrayList<>(index.keySet());
+            Collections.sort(keys);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(parseOutput.resolve(INDEX_FILE))))) {
+                out.writeInt(keys.size());
+                for (String key : keys) {
+                    long[] entry = index.get(key);
+                    out.writeUTF(key);
+                    out.writeLong(entry[0]);
+                    out.writeInt((int) entry[1]);
+                }
+            }
+            INSTANCES.remove(parseOutput.toAbsolutePath().normalize());
+        }
+
+        /**
+         * Copy the live records to a new segment in the order of their offsets, and replace the old one.
+         * The old segment is kept if it cannot be replaced, e.g. while a reader still maps it on Windows.
+         */
+        private void compact() throws IOException {
+            Path segmentPath = parseOutput.resolve(SEGMENT_FILE);
+            Path compactedPath = parseOutput.resolve(SEGMENT_FILE + ".tmp");
+            List<Map.Entry<String, long[]>> entries = new ArrayList<>(index.entrySet());
+            entries.sort(Comparator.comparingLong(entry -> entry.getValue()[0]));
+            Map<String, long[]> compactedIndex = new HashMap<>();
+            try (FileChannel source = FileChannel.open(segmentPath, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(compactedPath, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Map.Entry<String, long[]> entry : entries) {
+                    long offset = target.position();
+                    long length = entry.getValue()[1];
+                    for (long copied = 0; copied < length; ) {
+                        long transferred = source.transferTo(entry.getValue()[0] + copied, length - copied, target);
+                        if (transferred <= 0) {
+                            throw new IOException("Truncated record " + entry.getKey() + " in " + segmentPath);
+                        }
+                        copied += transferred;
+                    }
+                    compactedIndex.put(entry.getKey(), new long[]{offset, length});
+                }
+                target.force(false);
+            }
+            try {
+                Files.move(compactedPath, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.deleteIfExists(compactedPath);
+                return;
+            }
+            index.clear();
+            index.putAll(compactedIndex);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package zju.cst.aces.parser;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Immutable index of simple class name → full class names of the project.
+ *
+ * <P>
+ * The simple names are kept in a sorted array and looked up by binary search, the full names of
+ * the i-th simple name are {@code fullNames[starts[i] .. starts[i + 1])}. The index is loaded once
+ * per {@link zju.cst.aces.api.config.Config} and can be read concurrently.
+ * </P>
+ */
+public final class ClassNameIndex {
+
+    private static final Type CLASS_NAME_MAP_TYPE = new TypeToken<Map<String, List<String>>>() {}.getType();
+
+    private final String[] simpleNames;
+    private final int[] starts;
+    private final String[] fullNames;
+
+    public ClassNameIndex(Map<String, ? extends Collection<String>> classNameMap) {
+        this.simpleNames = classNameMap.keySet().stream().map(String::intern).sorted().toArray(String[]::new);
+        this.starts = new int[simpleNames.length + 1];
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < simpleNames.length; i++) {
+            starts[i] = names.size();
+            for (String fullName : classNameMap.get(simpleNames[i])) {
+                names.add(fullName.intern());
+            }
+        }
+        starts[simpleNames.length] = names.size();
+        this.fullNames = names.toArray(new String[0]);
+    }
+
+    /**
+     * Load the index from the class name mapping exported by {@link ProjectParser}.
+     * @throws IOException if the mapping cannot be read, e.g. the project is not parsed yet
+     */
+    public static ClassNameIndex load(Path classNameMapPath) throws IOException {
+        Map<String, List<String>> classNameMap = new Gson().fromJson(
+                Files.readString(classNameMapPath, StandardCharsets.UTF_8), CLASS_NAME_MAP_TYPE);
+        return new ClassNameIndex(classNameMap == null ? Collections.emptyMap() : classNameMap);
+    }
+
+    /**
+     * @return the full names of the classes with the simple name, empty if there is none
+     */
+    public List<String> getFullNames(String simpleName) {
+        int i = Arrays.binarySearch(simpleNames, simpleName);
+        if (i < 0) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(fullNames).subList(starts[i], starts[i + 1]));
+    }
+
+    public boolean contains(String simpleName) {
+        return Arrays.binarySearch(simpleNames, simpleName) >= 0;
+    }
+
+    public int size() {
+        return simpleNames.length;
+    }
+}
@@ -14,9 +14,6 @@ import com.github.javaparser.ast.nodeTypes.NodeWithSimpleName;
 import com.github.javaparser.ast.stmt.ExpressionStmt;
 import com.github.javaparser.ast.stmt.ReturnStmt;
 import com.github.javaparser.ast.type.ClassOrInterfaceType;
-import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
-import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
-import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import com.google.gson.Gson;
 import org.jetbrains.annotations.NotNull;
 import slicing.graphs.CallGraph;
@@ -26,6 +23,7 @@ import zju.cst.aces.api.Project;
 import zju.cst.aces.dto.ClassInfo;
 import zju.cst.aces.dto.MethodInfo;
 import zju.cst.aces.dto.OCM;
+import zju.cst.aces.prompt.ContextIndex;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -37,11 +35,19 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Extracts the class and method infos of a compilation unit.
+ *
+ * <P>
+ * All extraction state (parser, output path, current class) is held by the instance, so a parser is confined
+ * to one thread and the compilation units of a project can be extracted in parallel, each with its own instance.
+ * </P>
+ */
 public class ClassParser {
     private static final String separator = "_";
-    private static Path classOutputPath;
-    private static ClassInfo classInfo;
-    private static JavaParser parser;
+    private final Path classOutputPath;
+    private ClassInfo classInfo;
+    private final JavaParser parser;
     public int methodCount = 0;
     Project project;
     Logger logger;
@@ -49,6 +55,11 @@ public class ClassParser {
     AtomicInteger sharedInteger;
     Map<String, Map<String, String>> classMapping;
     OCM ocm;
+    ContextIndex contextIndex;
+    ResolutionCache resolutionCache = new ResolutionCache();
+    BytecodeIndex bytecodeIndex;
+    ClassInfoStore.Writer infoStore;
+    boolean exportJson = true;
 
     public ClassParser(JavaParser javaParser, Project project, Path path,
                        Logger logger, Gson gson, AtomicInteger sharedInteger,
@@ -63,6 +74,33 @@ public class ClassParser {
         this.ocm = ocm;
     }
 
+    public void setContextIndex(ContextIndex contextIndex) {
+        this.contextIndex = contextIndex;
+    }
+
+    /**
+     * Share the symbol resolution cache with the other parsers of the run.
+     */
+    public void setResolutionCache(ResolutionCache resolutionCache) {
+        this.resolutionCache = resolutionCache;
+    }
+
+    /**
+     * Take the method dependencies and subclasses from the compiled classes, the source is resolved
+     * only for the callables that are not found in them.
+     */
+    public void setBytecodeIndex(BytecodeIndex bytecodeIndex) {
+        this.bytecodeIndex = bytecodeIndex;
+    }
+
+    /**
+     * Write the class and method infos to the store, and also as JSON files if {@code exportJson}.
+     */
+    public void setInfoStore(ClassInfoStore.Writer infoStore, boolean exportJson) {
+        this.infoStore = infoStore;
+        this.exportJson = exportJson;
+    }
+
     public int extractClass(String classPath) throws FileNotFoundException {
         File file = new File(classPath);
         ParseResult<CompilationUnit> parseResult = parser.parse(file);
@@ -72,6 +110,7 @@ public class ClassParser {
             try {
                 classInfo = getInfoByClass(cu, classDeclaration);
                 exportClassInfo(classInfo, classDeclaration);
+                indexContext(classInfo.classSignature);
                 extractConstructors(cu, classDeclaration);
                 extractMethods(cu, classDeclaration);
 
@@ -90,6 +129,7 @@ public class ClassParser {
             try {
                 classInfo = getInfoByClass(cu, classDeclaration);
                 exportClassInfo(classInfo, classDeclaration);
+                indexContext(classInfo.classSignature);
                 extractConstructors(cu, classDeclaration);
                 extractMethods(cu, classDeclaration);
 
@@ -113,6 +153,7 @@ public class ClassParser {
             if (m.hasRange()) {
                 MethodInfo info = getInfoByMethod(cu, classDeclaration, m);
                 exportMethodInfo(info, classDeclaration, m);
+                indexContext(info.brief + "\n" + info.sourceCode);
             }
         }
     }
@@ -123,10 +164,17 @@ public class ClassParser {
             if (c.hasRange()) {
                 MethodInfo info = getInfoByMethod(cu, classDeclaration, c);
                 exportConstructorInfo(info, classDeclaration, c);
+                indexContext(info.brief + "\n" + info.sourceCode);
             }
         }
     }
 
+    private void indexContext(String text) {
+        if (contextIndex != null) {
+            contextIndex.addDocument(text);
+        }
+    }
+
     /**
      * Extract class information to json format
      */
@@ -265,29 +313,10 @@ public class ClassParser {
 
     public List<String> getSubClasses(ClassOrInterfaceDeclaration node) {
         String targetClassName = node.getFullyQualifiedName().orElseThrow().toString();
-        List<String> subClasses = new ArrayList<>();
-        List<String> classPaths = ProjectParser.scanSourceDirectory(this.project);
-        if (classPaths.isEmpty()) {
-            return null;
-        }
-        try {
-            for (String classPath : classPaths) {
-                ParseResult<CompilationUnit> parseResult = parser.parse(new File(classPath));
-                CompilationUnit cu = parseResult.getResult().orElseThrow();
-                String packageName=cu.getPackageDeclaration().isEmpty()?"":cu.getPackageDeclaration().get().getNameAsString();
-                List<ClassOrInterfaceDeclaration> classes = cu.findAll(ClassOrInterfaceDeclaration.class);
-                for (ClassOrInterfaceDeclaration classDeclaration : classes) {
-                    for (ClassOrInterfaceType extendedType : classDeclaration.getExtendedTypes()) {
-                        if (targetClassName.equals(packageName+"."+extendedType.getNameAsString())) {
-                            subClasses.add(classDeclaration.getFullyQualifiedName().orElseThrow().toString());
-                        }
-                    }
-                }
-            }
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException(e);
+        if (bytecodeIndex != null) {
+            return bytecodeIndex.getSubClasses(targetClassName);
         }
-        return subClasses;
+        return resolutionCache.getSubClasses(targetClassName, this.project, parser);
     }
 
     private List<String> getInterfaces(ClassOrInterfaceDeclaration node) {
@@ -512,6 +541,12 @@ public class ClassParser {
     }
 
     private Map<String, Set<String>> getDependentMethods(CompilationUnit cu, CallableDeclaration node) {
+        if (bytecodeIndex != null) {
+            BytecodeIndex.Method method = bytecodeIndex.findMethod(node);
+            if (method != null) {
+                return getDependentMethods(node, method);
+            }
+        }
         Map<String, Set<String>> dependentMethods = new LinkedHashMap<>();
         List<MethodCallExpr> methodCalls = node.findAll(MethodCallExpr.class);
         List<Parameter> pars = node.getParameters();
@@ -522,7 +557,7 @@ public class ClassParser {
                     continue;
                 }
                 if (p.getType().isArrayType()) {
-                    String dependentType = p.resolve().getType().asArrayType().getComponentType().describe();
+                    String dependentType = resolutionCache.resolveParameterType(p).orElseThrow();
                     dependentMethods.put(dependentType, new HashSet<String>());
                     continue;
                 } else if (p.getTypeAsString().split("<")[0].endsWith("Map")
@@ -530,7 +565,7 @@ public class ClassParser {
                         || p.getTypeAsString().split("<")[0].endsWith("Set")) {
                     continue;
                 } else if (p.getType().getChildNodes().size() == 1) {
-                    String dependentType = p.resolve().describeType();
+                    String dependentType = resolutionCache.resolveParameterType(p).orElseThrow();
                     dependentMethods.put(dependentType, new HashSet<String>());
                 }
             } catch (Exception e) {
@@ -539,9 +574,9 @@ public class ClassParser {
         }
         for (MethodCallExpr m : methodCalls) {
             try {
-                ResolvedMethodDeclaration md = m.resolve();
-                String dependentType = md.declaringType().getQualifiedName();
-                String mSig = getParamTypeInSig(md); // change parameters' type to non-qualified name
+                ResolutionCache.ResolvedCall call = resolutionCache.resolveMethod(m).orElseThrow();
+                String dependentType = call.declaringType;
+                String mSig = call.signature; // parameters' type with non-qualified name
                 Set<String> invocations = dependentMethods.get(dependentType);
                 if (invocations == null) {
                     invocations = new HashSet<>();
@@ -555,22 +590,47 @@ public class ClassParser {
         return dependentMethods;
     }
 
-    private static String getParamTypeInSig(ResolvedMethodDeclaration md) {
-        String sig = md.getName() + "(";
-        for (int i = 0; i < md.getNumberOfParams(); i++) {
-//            String paramType = md.getParam(i).getType().erasure().describe();
-            String paramType = md.getParam(i).getType().describe();
-            if (paramType.contains(".")) {
-                paramType = paramType.substring(paramType.lastIndexOf(".") + 1);
+    /**
+     * Get the dependent methods from the compiled method, with the same parameter filters as the source resolution.
+     */
+    private Map<String, Set<String>> getDependentMethods(CallableDeclaration<?> node, BytecodeIndex.Method method) {
+        Map<String, Set<String>> dependentMethods = new LinkedHashMap<>();
+        List<String> parameterTypes = method.getParameterTypes(node.getParameters().size());
+        for (int i = 0; i < node.getParameters().size(); i++) {
+            Parameter p = node.getParameter(i);
+            String dependentType = parameterTypes.get(i);
+            if (p.getType().isPrimitiveType()) {
+                continue;
             }
-            if (i == md.getNumberOfParams() - 1) {
-                sig += paramType;
-            } else {
-                sig += paramType + ", ";
+            if (p.getType().isArrayType()) {
+                dependentType = dependentType.substring(0, dependentType.length() - "[]".length());
+            } else if (p.getTypeAsString().split("<")[0].endsWith("Map")
+                    || p.getTypeAsString().split("<")[0].endsWith("List")
+                    || p.getTypeAsString().split("<")[0].endsWith("Set")) {
+                continue;
+            } else if (p.getType().getChildNodes().size() != 1) {
+                continue;
+            }
+            if (isTypeParameter(node, p.getType().getElementType().asString())) {
+                dependentType = p.getType().getElementType().asString(); // erased in the bytecode
             }
+            dependentMethods.put(dependentType, new HashSet<String>());
         }
-        sig += ")";
-        return sig;
+        Set<String> calledNames = node.findAll(MethodCallExpr.class).stream()
+                .map(MethodCallExpr::getNameAsString)
+                .collect(Collectors.toSet());
+        bytecodeIndex.getInvocations(method, calledNames).forEach((dependentType, invocations) ->
+                dependentMethods.computeIfAbsent(dependentType, k -> new HashSet<>()).addAll(invocations));
+        return dependentMethods;
+    }
+
+    private static boolean isTypeParameter(CallableDeclaration<?> node, String typeName) {
+        if (node.getTypeParameters().stream().anyMatch(t -> t.getNameAsString().equals(typeName))) {
+            return true;
+        }
+        return node.findAncestor(ClassOrInterfaceDeclaration.class)
+                .map(c -> c.getTypeParameters().stream().anyMatch(t -> t.getNameAsString().equals(typeName)))
+                .orElse(false);
     }
 
     public String getLastType(String type) {
@@ -614,6 +674,12 @@ public class ClassParser {
     }
 
     private void exportClassInfo(ClassInfo classInfo, ClassOrInterfaceDeclaration classNode) throws IOException {
+        if (infoStore != null) {
+            infoStore.addClassInfo(classInfo);
+        }
+        if (!exportJson) {
+            return;
+        }
         Path classOutputDir = classOutputPath.resolve(classNode.getName().getIdentifier());
         if (!Files.exists(classOutputDir)) {
             Files.createDirectories(classOutputDir);
@@ -626,6 +692,12 @@ public class ClassParser {
     }
 
     private void exportMethodInfo(MethodInfo methodInfo, ClassOrInterfaceDeclaration classNode, MethodDeclaration node) throws IOException {
+        if (infoStore != null) {
+            infoStore.addMethodInfo(ClassInfoStore.fullClassName(classInfo), node.getSignature().asString(), methodInfo);
+        }
+        if (!exportJson) {
+            return;
+        }
         Path classOutputDir = classOutputPath.resolve(classNode.getName().getIdentifier());
         if (!Files.exists(classOutputDir)) {
             Files.createDirectories(classOutputDir);
@@ -638,6 +710,12 @@ public class ClassParser {
     }
 
     private void exportConstructorInfo(MethodInfo methodInfo, ClassOrInterfaceDeclaration classNode, ConstructorDeclaration node) throws IOException {
+        if (infoStore != null) {
+            infoStore.addMethodInfo(ClassInfoStore.fullClassName(classInfo), node.getSignature().asString(), methodInfo);
+        }
+        if (!exportJson) {
+            return;
+        }
         Path classOutputDir = classOutputPath.resolve(classNode.getName().getIdentifier());
         if (!Files.exists(classOutputDir)) {
             Files.createDirectories(classOutputDir);
@@ -721,8 +799,7 @@ public class ClassParser {
                 if (!expr.getType().isReferenceType()) {
                     continue;
                 }
-                ResolvedReferenceTypeDeclaration objType = expr.resolve().declaringType();
-                String typeName = objType.getQualifiedName();
+                String typeName = resolutionCache.resolveConstructor(expr).orElseThrow();
 
                 ExpressionStmt stmt = findExpressionStmt(expr);
                 if (stmt == null) {
@@ -774,15 +851,14 @@ public class ClassParser {
 
         for (MethodCallExpr expr : methodCalls) {
             try {
-                ResolvedMethodDeclaration md = expr.resolve();
+                ResolutionCache.ResolvedCall call = resolutionCache.resolveMethod(expr).orElseThrow();
 
                 // save return type
-                if (!md.getReturnType().isReferenceType()) {
+                if (call.returnType == null) {
                     continue;
                 }
 
-                ResolvedReferenceType returnType = md.getReturnType().asReferenceType();
-                String typeName = returnType.getQualifiedName();
+                String typeName = call.returnType;
 
                 NodeList<Expression> argumentExprs = expr.getArguments();
                 List<String> argNames = argumentExprs.stream().map(Node::toString).collect(Collectors.toList());
@@ -0,0 +1,92 @@
+package zju.cst.aces.parser;
+
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.JarTypeSolver;
+import zju.cst.aces.api.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type solver over the dependency jars of a project, backed by {@link JarTypeIndex}.
+ *
+ * <P>
+ * Each lookup is routed to the jar that owns the type instead of trying the jars in order, and the
+ * {@link JarTypeSolver} of a jar is only created on the first lookup of one of its types. If several jars
+ * contain the same type, the first one in the classpath order is used.
+ * </P>
+ */
+public class IndexedJarTypeSolver implements TypeSolver {
+
+    private final List<Path> jars;
+    private final Map<String, Integer> owners = new HashMap<>();
+    private final JarTypeSolver[] solvers;
+    private final boolean[] failed;
+    private final Logger logger;
+    private TypeSolver parent;
+
+    public IndexedJarTypeSolver(List<Path> jars, Path indexDir, Logger logger) {
+        this.jars = jars;
+        this.solvers = new JarTypeSolver[jars.size()];
+        this.failed = new boolean[jars.size()];
+        this.logger = logger;
+        for (int i = 0; i < jars.size(); i++) {
+            try {
+                for (String className : JarTypeIndex.load(indexDir, jars.get(i))) {
+                    owners.putIfAbsent(className, i);
+                }
+            } catch (IOException e) {
+                logger.warn("In IndexedJarTypeSolver: cannot index " + jars.get(i) + ": " + e);
+            }
+        }
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        if (parent == this) {
+            throw new IllegalStateException("The parent of this TypeSolver cannot be itself.");
+        }
+        this.parent = parent;
+    }
+
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        Integer owner = owners.get(name);
+        if (owner == null) {
+            return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+        }
+        JarTypeSolver solver = solverOf(owner);
+        if (solver == null) {
+            return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+        }
+        return solver.tryToSolveType(name);
+    }
+
+    public int size() {
+        return owners.size();
+    }
+
+    private synchronized JarTypeSolver solverOf(int jar) {
+        if (solvers[jar] == null && !failed[jar]) {
+            try {
+                JarTypeSolver solver = new JarTypeSolver(jars.get(jar));
+                solver.setParent(this);
+                solvers[jar] = solver;
+            } catch (IOException e) {
+                logger.warn("In IndexedJarTypeSolver: cannot open " + jars.get(jar) + ": " + e);
+                failed[jar] = true;
+            }
+        }
+        return solvers[jar];
+    }
+}
@@ -0,0 +1,119 @@
+package zju.cst.aces.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Persistent index of the classes in a dependency jar.
+ *
+ * <P>
+ * The index file of a jar records the jar size and modification time followed by the names of its classes,
+ * in the form used by JavaParser's {@code JarTypeSolver} (e.g. {@code java.util.Map.Entry}). It is rebuilt
+ * only when the jar changes, and read through a memory mapping. The index files are shared by all projects.
+ * </P>
+ */
+public class JarTypeIndex {
+
+    public static final Path DEFAULT_INDEX_DIR = Paths.get(System.getProperty("java.io.tmpdir"), "chatunitest-info", "jar-index");
+    private static final int MAGIC = 0x4A544958; // "JTIX"
+    private static final String CLASS_EXTENSION = ".class";
+
+    /**
+     * Load the class names of a jar from its index, the index is (re)built if it is missing or stale.
+     * @param indexDir directory of the index files
+     * @param jar the jar file
+     * @return full names of the classes in the jar
+     */
+    public static List<String> load(Path indexDir, Path jar) throws IOException {
+        long size = Files.size(jar);
+        long modified = Files.getLastModifiedTime(jar).toMillis();
+        Path indexPath = indexDir.resolve(indexName(jar));
+        if (Files.exists(indexPath)) {
+            List<String> classNames = read(indexPath, size, modified);
+            if (classNames != null) {
+                return classNames;
+            }
+        }
+        List<String> classNames = scan(jar);
+        write(indexPath, size, modified, classNames);
+        return classNames;
+    }
+
+    private static String indexName(Path jar) {
+        String name = jar.getFileName().toString();
+        return name + "-" + ParseManifest.hash(jar.toAbsolutePath().normalize().toString()).substring(0, 16) + ".idx";
+    }
+
+    /**
+     * @return the class names, or {@code null} if the index is of another version of the jar or unreadable
+     */
+    private static List<String> read(Path indexPath, long size, long modified) {
+        try (FileChannel channel = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getLong() != size || buffer.getLong() != modified) {
+                return null;
+            }
+            int count = buffer.getInt();
+            List<String> classNames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(bytes);
+                classNames.add(new String(bytes, StandardCharsets.UTF_8));
+            }
+            return classNames;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static void write(Path indexPath, long size, long modified, List<String> classNames) throws IOException {
+        Files.createDirectories(indexPath.getParent());
+        // write to a temporary file first, other processes may read the index at the same time
+        Path tmpPath = Files.createTempFile(indexPath.getParent(), indexPath.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+            out.writeInt(MAGIC);
+            out.writeLong(size);
+            out.writeLong(modified);
+            out.writeInt(classNames.size());
+            for (String className : classNames) {
+                byte[] bytes = className.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+        }
+        try {
+            Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(tmpPath, indexPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static List<String> scan(Path jar) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                String entryName = entries.nextElement().getName();
+                if (entryName.endsWith(CLASS_EXTENSION) && !entryName.endsWith("module-info.class")) {
+                    classNames.add(entryName.substring(0, entryName.length() - CLASS_EXTENSION.length())
+                            .replace('/', '.').replace('$', '.'));
+                }
+            }
+        }
+        return classNames;
+    }
+}
@@ -0,0 +1,91 @@
+package zju.cst.aces.parser;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content hashes of the parsed source files, exported next to the parse output.
+ *
+ * <P>
+ * Each source file records the SHA-256 of its content and the hash of each class record extracted from it
+ * (the class declaration and the imports of its file). {@link ProjectParser#parseIncremental()} compares them
+ * with the current sources to re-parse only the changed files and to drop the records of the deleted ones.
+ * </P>
+ */
+public class ParseManifest {
+
+    public static final String MANIFEST_FILE = "parseManifest.json";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+
+    /**
+     * source file path → content hash and class records
+     */
+    public Map<String, Entry> files = new TreeMap<>();
+
+    public static class Entry {
+        public String hash;
+        /**
+         * full class name → hash of the class record
+         */
+        public Map<String, String> classes = new TreeMap<>();
+
+        public Entry() {
+        }
+
+        public Entry(String hash, Map<String, String> classes) {
+            this.hash = hash;
+            this.classes = classes;
+        }
+    }
+
+    public static boolean exists(Path parseOutput) {
+        return Files.exists(parseOutput.resolve(MANIFEST_FILE));
+    }
+
+    /**
+     * @return the manifest of the parse output, or {@code null} if it is missing or unreadable
+     */
+    public static ParseManifest load(Path parseOutput) {
+        Path path = parseOutput.resolve(MANIFEST_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            ParseManifest manifest = GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), ParseManifest.class);
+            return manifest == null || manifest.files == null ? null : manifest;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public void export(Path parseOutput) throws IOException {
+        Files.createDirectories(parseOutput);
+        Files.writeString(parseOutput.resolve(MANIFEST_FILE), GSON.toJson(this), StandardCharsets.UTF_8);
+    }
+
+    public static String hash(String text) {
+        return hash(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("In ParseManifest.hash: " + e);
+        }
+    }
+}
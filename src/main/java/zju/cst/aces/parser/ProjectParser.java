@@ -5,16 +5,21 @@ import com.github.javaparser.ParseResult;
 import com.github.javaparser.ParserConfiguration;
 import com.github.javaparser.ParserConfiguration.LanguageLevel;
 import com.github.javaparser.Position;
+import com.github.javaparser.ast.Modifier;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.resolution.SymbolResolver;
 import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.types.ResolvedType;
+import com.google.gson.reflect.TypeToken;
 import org.apache.maven.shared.dependency.graph.DependencyNode;
+import org.codehaus.plexus.util.FileUtils;
 import slicing.graphs.CallGraph;
 import slicing.graphs.CallGraph.Edge;
 import slicing.graphs.CallGraph.Vertex;
@@ -22,9 +27,15 @@ import slicing.graphs.jsysdg.JSysDG;
 import slicing.graphs.sdg.SDG;
 import slicing.slicing.MultiVariableCriterion;
 import slicing.slicing.Slice;
+import slicing.utils.SynchronizedSymbolResolver;
 import zju.cst.aces.api.Project;
 import zju.cst.aces.api.config.Config;
+import zju.cst.aces.dto.ClassInfo;
+import zju.cst.aces.dto.ExampleUsage;
 import zju.cst.aces.dto.MethodExampleMap;
+import zju.cst.aces.dto.MethodInfo;
+import zju.cst.aces.prompt.ContextIndex;
+import zju.cst.aces.runner.AbstractRunner;
 
 import java.io.File;
 import java.io.FileOutputStream;
@@ -35,7 +46,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class ProjectParser {
 
@@ -43,83 +59,632 @@ public class ProjectParser {
     public Path srcFolderPath;
     public Path outputPath;
     public Map<String, Set<String>> classNameMap = new HashMap<>();
+    public ContextIndex contextIndex = new ContextIndex();
+    public ResolutionCache resolutionCache = new ResolutionCache();
+    public BytecodeIndex bytecodeIndex;
     public static Config config;
     public int classCount = 0;
     public int methodCount = 0;
+    private final ThreadLocal<JavaParser> workerParser = ThreadLocal.withInitial(this::newWorkerParser);
+    /** The symbol resolver of the worker parsers, see {@link #newWorkerParser()}. */
+    private final SymbolResolver workerResolver;
+    /** The workers of the current parse run, see {@link #withPool(Runnable)}. */
+    private ForkJoinPool pool;
 
     public ProjectParser(Config config) {
         this.srcFolderPath = Paths.get(config.getProject().getBasedir().getAbsolutePath(), "src", "main", "java");
         this.config = config;
         this.outputPath = config.getParseOutput();
         this.parser = config.getParser();
+        this.workerResolver = parser.getParserConfiguration().getSymbolResolver()
+                .map(SynchronizedSymbolResolver::new).orElse(null);
     }
 
     /**
      * Parse the project.
+     *
+     * <P>
+     * The class infos are extracted in a streaming pass: the files are parsed, extracted and discarded in batches
+     * of {@link Config#getParseBatchSize()} files. The method examples are then mined batch by batch as well,
+     * see {@link #mineMethodExamples}, so the peak heap depends on the batch size rather than the project size.
+     * A project that fits in one batch is mined from the units already parsed for the extraction.
+     * </P>
      */
     public void parse() {
-        List<String> classPaths = scanSourceDirectory(config.getProject());
+        withPool(this::parseProject);
+    }
+
+    private void parseProject() {
+        List<String> classPaths = new ArrayList<>(SourceFileIndex.refresh(config.getProject()).getPaths());
         if (classPaths.isEmpty()) {
-            config.getLogger().warn("No java file found in " + srcFolderPath);
+            config.getLogger().warn("No java file found in " + config.getProject().getCompileSourceRoots());
             return;
         }
-        NodeList<CompilationUnit> cus = new NodeList<>();
-        for (String classPath : classPaths) {
-            File file = new File(classPath);
-            try {
-                ParseResult<CompilationUnit> parseResult = parser.parse(file);
-                CompilationUnit cu = parseResult.getResult().orElseThrow();
-                cus.add(cu);
-            } catch (Exception e) {
-                throw new RuntimeException("In ProjectParser.parse: " + e);
+        ParseManifest manifest = new ParseManifest();
+        loadBytecodeIndex();
+        ClassInfoStore.Writer infoStore = openInfoStore();
+        List<List<String>> batches = batches(classPaths);
+        NodeList<CompilationUnit> extracted = null;
+        for (List<String> batch : batches) {
+            NodeList<CompilationUnit> cus = parseFiles(batch);
+            List<ParseManifest.Entry> entries = runParallel(() -> IntStream.range(0, cus.size()).parallel()
+                    .mapToObj(i -> new ParseManifest.Entry(hashFile(batch.get(i)), recordHashes(cus.get(i))))
+                    .collect(Collectors.toList()));
+            for (int i = 0; i < batch.size(); i++) {
+                manifest.files.put(batch.get(i), entries.get(i));
             }
+            extractClasses(cus, infoStore);
+            extracted = cus;
         }
-        MethodExampleMap methodExampleMap = createMethodExampleMap(cus);
+        closeInfoStore(infoStore);
 
-        for (var cu : cus) {
-            try {
-                Path output = outputPath;
-                String packageName = "";
-                if (cu.getPackageDeclaration().isPresent()) {
-                    packageName = cu.getPackageDeclaration().get().getNameAsString();
-                    output = outputPath.resolve(packageName.replace(".", File.separator));
-                }
-                ClassParser classParser = new ClassParser(parser, config.getProject(), output,
-                        config.getLogger(),  config.getGSON(), config.sharedInteger, config.classMapping, config.ocm);
-                int classNum = classParser.extractClass(cu);
+        MethodExampleMap methodExampleMap = batches.size() == 1
+                ? createMethodExampleMap(extracted, extracted, new MethodExampleMap())
+                : mineMethodExamples(batches, manifest);
+        exportParseOutput(methodExampleMap.getUsages(), manifest);
+    }
 
-                if (classNum == 0) {
-                    continue;
+    /**
+     * Mine the method examples of the target files in batches. The SDG of a batch is built over its files, the
+     * files that mention a class declared in them (their possible callers) and the files declaring a class those
+     * callers mention (the callees of the callers), all matched by simple name. Only the methods declared in the
+     * batch get examples. Deeper callees and the callers of the callers are left out, so calls into them have no
+     * summary arcs and the examples may miss statements that an SDG of the whole project would keep. The files are
+     * parsed again for each batch, since the units of the extraction have been discarded.
+     */
+    private MethodExampleMap mineMethodExamples(List<List<String>> batches, ParseManifest manifest) {
+        MethodExampleMap methodExampleMap = new MethodExampleMap();
+        Map<String, Set<String>> mentions = summarizeMentions(manifest);
+        Map<String, List<String>> declaringPaths = new HashMap<>();
+        mentions.keySet().forEach(classPath -> simpleNames(manifest.files.get(classPath).classes.keySet())
+                .forEach(name -> declaringPaths.computeIfAbsent(name, k -> new ArrayList<>()).add(classPath)));
+        for (List<String> batch : batches) {
+            Set<String> batchNames = new HashSet<>();
+            batch.forEach(classPath -> batchNames.addAll(simpleNames(manifest.files.get(classPath).classes.keySet())));
+            Set<String> sdgPaths = new LinkedHashSet<>(batch);
+            List<String> callers = new ArrayList<>();
+            mentions.forEach((classPath, names) -> {
+                if (!sdgPaths.contains(classPath) && !Collections.disjoint(names, batchNames)) {
+                    callers.add(classPath);
                 }
-                addClassMap(cu);
-                classCount += classNum;
-                methodCount += classParser.methodCount;
-            } catch (Exception e) {
-                throw new RuntimeException("In ProjectParser.parse: " + e);
+            });
+            sdgPaths.addAll(callers);
+            for (String caller : callers) {
+                for (String name : mentions.get(caller)) {
+                    sdgPaths.addAll(declaringPaths.getOrDefault(name, Collections.emptyList()));
+                }
+            }
+            NodeList<CompilationUnit> cus = parseFiles(new ArrayList<>(sdgPaths));
+            createMethodExampleMap(cus, cus.subList(0, batch.size()), methodExampleMap);
+        }
+        return methodExampleMap;
+    }
+
+    /**
+     * Lightweight summary of the project for batching: the project classes each file mentions, by simple name.
+     */
+    private Map<String, Set<String>> summarizeMentions(ParseManifest manifest) {
+        Set<String> declaredNames = new HashSet<>();
+        manifest.files.values().forEach(entry -> declaredNames.addAll(simpleNames(entry.classes.keySet())));
+        List<String> paths = new ArrayList<>(manifest.files.keySet());
+        List<Set<String>> mentions = runParallel(() -> paths.parallelStream()
+                .map(classPath -> {
+                    Set<String> names = readIdentifiers(classPath);
+                    names.retainAll(declaredNames);
+                    return names;
+                })
+                .collect(Collectors.toList()));
+        Map<String, Set<String>> summary = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            summary.put(paths.get(i), mentions.get(i));
+        }
+        return summary;
+    }
+
+    private List<List<String>> batches(List<String> classPaths) {
+        int batchSize = Math.max(1, config.getParseBatchSize());
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < classPaths.size(); i += batchSize) {
+            batches.add(classPaths.subList(i, Math.min(i + batchSize, classPaths.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * Update the parse output of a previous run by the {@link ParseManifest}: only the changed and added files
+     * are re-parsed, the records of deleted files are dropped, and the method examples are recomputed only
+     * for the neighbourhood of the changed classes, see {@link #findNeighbourhood}.
+     */
+    public void parseIncremental() {
+        withPool(this::parseChanges);
+    }
+
+    private void parseChanges() {
+        ParseManifest previous = ParseManifest.load(outputPath);
+        ClassInfoStore store = ClassInfoStore.getInstance(outputPath);
+        if (previous == null || store == null) {
+            config.getLogger().warn("No parse manifest found in " + outputPath + ", skip incremental parsing");
+            return;
+        }
+        List<String> classPaths = new ArrayList<>(SourceFileIndex.refresh(config.getProject()).getPaths());
+        ParseManifest manifest = new ParseManifest();
+        Set<String> changedPaths = new LinkedHashSet<>();
+        for (String classPath : classPaths) {
+            String hash = hashFile(classPath);
+            ParseManifest.Entry entry = previous.files.get(classPath);
+            if (entry != null && hash.equals(entry.hash)) {
+                manifest.files.put(classPath, entry);
+            } else {
+                changedPaths.add(classPath);
+                manifest.files.put(classPath, new ParseManifest.Entry(hash, new TreeMap<>()));
+            }
+        }
+        List<String> deletedPaths = new ArrayList<>();
+        for (String classPath : previous.files.keySet()) {
+            if (!manifest.files.containsKey(classPath)) {
+                deletedPaths.add(classPath);
+            }
+        }
+        if (changedPaths.isEmpty() && deletedPaths.isEmpty()) {
+            config.getLogger().info("Parse output is up to date, skip parsing!");
+            return;
+        }
+        config.getLogger().info("Re-parsing " + changedPaths.size() + " changed files, dropping "
+                + deletedPaths.size() + " deleted files ...");
+
+        // records of the previous run that are replaced or dropped
+        Map<String, String> staleRecords = new TreeMap<>();
+        for (String classPath : previous.files.keySet()) {
+            if (changedPaths.contains(classPath) || deletedPaths.contains(classPath)) {
+                staleRecords.putAll(previous.files.get(classPath).classes);
+            }
+        }
+        NodeList<CompilationUnit> changedCus = parseFiles(changedPaths);
+        Map<String, String> newRecords = new TreeMap<>();
+        int cuIndex = 0;
+        for (String classPath : changedPaths) {
+            Map<String, String> records = recordHashes(changedCus.get(cuIndex++));
+            manifest.files.get(classPath).classes = records;
+            newRecords.putAll(records);
+        }
+        // classes whose record is added, modified or removed
+        Set<String> changedClasses = new TreeSet<>();
+        staleRecords.forEach((name, hash) -> {
+            if (!hash.equals(newRecords.get(name))) {
+                changedClasses.add(name);
+            }
+        });
+        newRecords.forEach((name, hash) -> {
+            if (!hash.equals(staleRecords.get(name))) {
+                changedClasses.add(name);
+            }
+        });
+
+        Map<String, Map<String, List<String>>> usages;
+        try {
+            usages = ExampleUsage.loadAll(config.tmpOutput.resolve("methodExampleCode.json"));
+        } catch (Exception e) {
+            throw new RuntimeException("In ProjectParser.parseIncremental: " + e);
+        }
+        if (!changedClasses.isEmpty()) {
+            NodeList<CompilationUnit> neighbourhood = findNeighbourhood(changedCus, changedPaths, changedClasses, manifest);
+            MethodExampleMap methodExampleMap = createMethodExampleMap(neighbourhood, neighbourhood, new MethodExampleMap());
+            updateExampleUsages(usages, methodExampleMap.getUsages(), simpleNames(changedClasses));
+        }
+
+        loadParseOutput();
+        loadBytecodeIndex();
+        ClassInfoStore.Writer infoStore = openInfoStore();
+        for (String fullClassName : staleRecords.keySet()) {
+            dropClass(fullClassName, store, infoStore);
+        }
+        extractClasses(changedCus, infoStore);
+        closeInfoStore(infoStore);
+        config.getLogger().info("Re-parsed classes: " + classCount + "\nRe-parsed methods: " + methodCount);
+        countStoredClasses();
+        exportParseOutput(usages, manifest);
+    }
+
+    /**
+     * Set the class and method counts to the totals of the info store, i.e. of the whole project.
+     */
+    private void countStoredClasses() {
+        ClassInfoStore store = ClassInfoStore.getInstance(outputPath);
+        classCount = 0;
+        methodCount = 0;
+        for (String fullClassName : store.getClassNames()) {
+            ClassInfo classInfo = store.getClassInfo(fullClassName, "className", "methodSigs");
+            classCount++;
+            if (classInfo.methodSigs != null) { // the signatures of the constructors are named after the class
+                methodCount += (int) classInfo.methodSigs.keySet().stream()
+                        .filter(sig -> !sig.startsWith(classInfo.className + "(")).count();
+            }
+        }
+    }
+
+    /**
+     * Parse the files in parallel, each worker thread with its own parser.
+     * @return the compilation units, in the order of the files
+     */
+    private NodeList<CompilationUnit> parseFiles(Collection<String> classPaths) {
+        List<String> paths = new ArrayList<>(classPaths);
+        return new NodeList<>(runParallel(() -> paths.parallelStream()
+                .map(this::parseFile)
+                .collect(Collectors.toList())));
+    }
+
+    private CompilationUnit parseFile(String classPath) {
+        try {
+            ParseResult<CompilationUnit> parseResult = workerParser.get().parse(new File(classPath));
+            return parseResult.getResult().orElseThrow();
+        } catch (Exception e) {
+            throw new RuntimeException("In ProjectParser.parseFile: " + e);
+        }
+    }
+
+    private static String hashFile(String classPath) {
+        try {
+            return ParseManifest.hash(Files.readAllBytes(Paths.get(classPath)));
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.hashFile: " + e);
+        }
+    }
+
+    /**
+     * @return full class name → hash of the class declaration and the imports it is resolved with
+     */
+    private Map<String, String> recordHashes(CompilationUnit cu) {
+        String imports = cu.getImports().toString();
+        Map<String, String> records = new TreeMap<>();
+        cu.findAll(ClassOrInterfaceDeclaration.class).forEach(classNode ->
+                records.put(getFullClassName(cu, classNode), ParseManifest.hash(imports + "\n" + classNode)));
+        return records;
+    }
+
+    /**
+     * Extract the class infos of the compilation units in parallel. The class indexes are assigned by prefix sums
+     * of the class counts, so they are the same as in a sequential run, and the results are merged in order.
+     */
+    private void extractClasses(List<CompilationUnit> cus, ClassInfoStore.Writer infoStore) {
+        int[] firstIndexes = new int[cus.size()];
+        int nextIndex = config.sharedInteger.get();
+        for (int i = 0; i < cus.size(); i++) {
+            firstIndexes[i] = nextIndex;
+            nextIndex += cus.get(i).findAll(ClassOrInterfaceDeclaration.class).size();
+        }
+        List<Extraction> extractions = runParallel(() -> IntStream.range(0, cus.size()).parallel()
+                .mapToObj(i -> extractClasses(cus.get(i), firstIndexes[i], infoStore))
+                .collect(Collectors.toList()));
+        config.sharedInteger.set(nextIndex);
+        config.getLogger().debug("Symbol resolution cache: " + resolutionCache.stats());
+
+        for (int i = 0; i < cus.size(); i++) {
+            Extraction extraction = extractions.get(i);
+            if (extraction.classCount == 0) {
+                continue;
+            }
+            config.classMapping.putAll(extraction.classMapping);
+            addClassMap(cus.get(i));
+            classCount += extraction.classCount;
+            methodCount += extraction.methodCount;
+        }
+    }
+
+    private Extraction extractClasses(CompilationUnit cu, int firstIndex, ClassInfoStore.Writer infoStore) {
+        List<ConstructorDeclaration> implicitConstructors = new ArrayList<>();
+        try {
+            Path output = outputPath;
+            String packageName = "";
+            if (cu.getPackageDeclaration().isPresent()) {
+                packageName = cu.getPackageDeclaration().get().getNameAsString();
+                output = outputPath.resolve(packageName.replace(".", File.separator));
+            }
+            implicitConstructors = insertImplicitConstructors(cu);
+            Extraction extraction = new Extraction();
+            ClassParser classParser = new ClassParser(workerParser.get(), config.getProject(), output,
+                    config.getLogger(),  config.getGSON(), new AtomicInteger(firstIndex), extraction.classMapping, config.ocm);
+            classParser.setContextIndex(contextIndex);
+            classParser.setResolutionCache(resolutionCache);
+            classParser.setBytecodeIndex(bytecodeIndex);
+            classParser.setInfoStore(infoStore, config.isExportClassInfoJson());
+            extraction.classCount = classParser.extractClass(cu);
+            extraction.methodCount = classParser.methodCount;
+            return extraction;
+        } catch (Exception e) {
+            throw new RuntimeException("In ProjectParser.parse: " + e);
+        } finally {
+            implicitConstructors.forEach(Node::remove);
+        }
+    }
+
+    /**
+     * Add the implicit default constructors as the SDG construction does, so that a class is extracted the same
+     * whether or not its compilation unit was used for mining examples before. They are removed after the
+     * extraction, so that the SDG that mines the examples from the same unit inserts them as implicit ones.
+     * @return the inserted constructors
+     */
+    private static List<ConstructorDeclaration> insertImplicitConstructors(CompilationUnit cu) {
+        List<ConstructorDeclaration> constructors = new ArrayList<>();
+        for (ClassOrInterfaceDeclaration classNode : cu.findAll(ClassOrInterfaceDeclaration.class)) {
+            if (!classNode.isInterface() && classNode.getConstructors().isEmpty()) {
+                constructors.add(classNode.addConstructor(Modifier.Keyword.PUBLIC));
+            }
+        }
+        return constructors;
+    }
+
+    /**
+     * Read the compiled classes of the project if {@link Config#isEnableBytecodeParse()},
+     * the sources are resolved instead if they cannot be read.
+     */
+    private void loadBytecodeIndex() {
+        if (!config.isEnableBytecodeParse()) {
+            return;
+        }
+        Path buildPath = config.getProject().getBuildPath();
+        if (!Files.isDirectory(buildPath)) {
+            config.getLogger().warn("No compiled classes found in " + buildPath + ", resolving the sources instead");
+            return;
+        }
+        try {
+            bytecodeIndex = runParallel(() -> BytecodeIndex.load(buildPath));
+            config.getLogger().info("Loaded " + bytecodeIndex.size() + " compiled classes from " + buildPath);
+        } catch (RuntimeException e) {
+            config.getLogger().warn("Cannot read compiled classes in " + buildPath + ", resolving the sources instead: " + e);
+        }
+    }
+
+    /**
+     * Result of the extraction of one compilation unit.
+     */
+    private static class Extraction {
+        int classCount;
+        int methodCount;
+        Map<String, Map<String, String>> classMapping = new LinkedHashMap<>();
+    }
+
+    /**
+     * A parser for a worker thread. The parsers share the symbol resolver of {@link Config#getParser()},
+     * wrapped in a {@link SynchronizedSymbolResolver}: JavaParser's symbol solver is not thread-safe, so the
+     * workers parse and extract in parallel but resolve symbols one at a time.
+     */
+    private JavaParser newWorkerParser() {
+        ParserConfiguration shared = parser.getParserConfiguration();
+        ParserConfiguration configuration = new ParserConfiguration()
+                .setLanguageLevel(shared.getLanguageLevel())
+                .setCharacterEncoding(shared.getCharacterEncoding());
+        if (workerResolver != null) {
+            configuration.setSymbolResolver(workerResolver);
+        }
+        return new JavaParser(configuration);
+    }
+
+    /**
+     * Run a parse on a fork-join pool of {@link Config#getParseThreads()} workers, shut down at the end,
+     * so that the worker threads (and their parsers) are reused by all the parallel steps of the run.
+     */
+    private void withPool(Runnable parse) {
+        pool = new ForkJoinPool(Math.max(1, config.getParseThreads()));
+        try {
+            parse.run();
+        } finally {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Run the task on the pool of the current parse run, parallel streams started by the task use the same pool.
+     */
+    private <T> T runParallel(Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("In ProjectParser.runParallel: " + e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new RuntimeException("In ProjectParser.runParallel: " + e.getCause());
         }
+    }
+
+    private ClassInfoStore.Writer openInfoStore() {
+        try {
+            return new ClassInfoStore.Writer(outputPath);
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.openInfoStore: " + e);
+        }
+    }
+
+    private void closeInfoStore(ClassInfoStore.Writer infoStore) {
+        try {
+            infoStore.close();
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.closeInfoStore: " + e);
+        }
+        AbstractRunner.INFO_CACHE.clear(); // infos cached before this parse are stale
+    }
+
+    private void exportParseOutput(Map<String, Map<String, List<String>>> usages, ParseManifest manifest) {
         exportClassMapping();
 //        exportOCC();
-        exportMethodExampleMap(methodExampleMap);
+        exportExampleUsages(usages);
+        exportContextIndex();
         exportJson(config.getClassNameMapPath(), classNameMap);
+        config.setClassNameIndex(new ClassNameIndex(classNameMap));
+        try {
+            manifest.export(outputPath);
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.exportParseOutput: " + e);
+        }
         config.getLogger().info("\nParsed classes: " + classCount + "\nParsed methods: " + methodCount);
     }
 
+    /**
+     * Load the class name map, class mapping and context index of the previous run,
+     * so that the re-parsed classes are added on top of them.
+     */
+    private void loadParseOutput() {
+        try {
+            Path classNameMapPath = config.getClassNameMapPath();
+            if (Files.exists(classNameMapPath)) {
+                Map<String, Set<String>> map = config.getGSON().fromJson(Files.readString(classNameMapPath, StandardCharsets.UTF_8),
+                        new TypeToken<Map<String, Set<String>>>() {}.getType());
+                if (map != null) {
+                    classNameMap = new HashMap<>(map);
+                }
+            }
+            Path classMappingPath = config.tmpOutput.resolve("classMapping.json");
+            if (Files.exists(classMappingPath)) {
+                Map<String, Map<String, String>> mapping = config.getGSON().fromJson(Files.readString(classMappingPath, StandardCharsets.UTF_8),
+                        new TypeToken<Map<String, Map<String, String>>>() {}.getType());
+                if (mapping != null) {
+                    config.classMapping.putAll(mapping);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.loadParseOutput: " + e);
+        }
+        // new classes get indexes after the existing ones
+        int nextIndex = config.classMapping.keySet().stream()
+                .filter(key -> key.matches("class\\d+"))
+                .mapToInt(key -> Integer.parseInt(key.substring("class".length())) + 1)
+                .max().orElse(0);
+        config.sharedInteger.set(Math.max(config.sharedInteger.get(), nextIndex));
+        contextIndex = ContextIndex.load(config.tmpOutput.resolve(ContextIndex.INDEX_FILE));
+    }
+
+    /**
+     * Drop the records of a class parsed by a previous run.
+     */
+    private void dropClass(String fullClassName, ClassInfoStore store, ClassInfoStore.Writer infoStore) {
+        ClassInfo classInfo = store.getClassInfo(fullClassName, "index", "classSignature");
+        if (classInfo != null) {
+            contextIndex.removeDocument(classInfo.classSignature);
+            config.classMapping.remove("class" + classInfo.index);
+        }
+        for (String methodSignature : store.getMethodSignatures(fullClassName)) {
+            MethodInfo methodInfo = store.getMethodInfo(fullClassName, methodSignature, "brief", "sourceCode");
+            contextIndex.removeDocument(methodInfo.brief + "\n" + methodInfo.sourceCode);
+        }
+        infoStore.remove(fullClassName);
+
+        String className = getSimpleName(fullClassName);
+        Set<String> fullClassNames = classNameMap.get(className);
+        if (fullClassNames != null) {
+            fullClassNames.remove(fullClassName);
+            if (fullClassNames.isEmpty()) {
+                classNameMap.remove(className);
+            }
+        }
+        File classOutputDir = outputPath.resolve(fullClassName.replace(".", File.separator)).toFile();
+        if (classOutputDir.isDirectory()) {
+            try {
+                FileUtils.deleteDirectory(classOutputDir);
+            } catch (IOException e) {
+                throw new RuntimeException("In ProjectParser.dropClass: " + e);
+            }
+        }
+    }
+
+    /**
+     * The call-graph neighbourhood of the changed classes: the changed files, the unchanged files that mention
+     * a changed class (possible callers) and the unchanged files declaring a class mentioned by a changed file
+     * (possible callees). Mentions are matched by simple class name.
+     */
+    private NodeList<CompilationUnit> findNeighbourhood(NodeList<CompilationUnit> changedCus, Set<String> changedPaths,
+                                                        Set<String> changedClasses, ParseManifest manifest) {
+        Set<String> changedNames = simpleNames(changedClasses);
+        Set<String> mentionedNames = new HashSet<>();
+        for (String classPath : changedPaths) {
+            mentionedNames.addAll(readIdentifiers(classPath));
+        }
+        List<String> neighbourPaths = new ArrayList<>();
+        manifest.files.forEach((classPath, entry) -> {
+            if (changedPaths.contains(classPath)) {
+                return;
+            }
+            boolean callee = entry.classes.keySet().stream().anyMatch(name -> mentionedNames.contains(getSimpleName(name)));
+            if (callee || !Collections.disjoint(readIdentifiers(classPath), changedNames)) {
+                neighbourPaths.add(classPath);
+            }
+        });
+        NodeList<CompilationUnit> neighbourhood = new NodeList<>(changedCus);
+        neighbourhood.addAll(parseFiles(neighbourPaths));
+        config.getLogger().info("Recomputing method examples in " + neighbourhood.size() + " of " + manifest.files.size() + " files");
+        return neighbourhood;
+    }
+
+    /**
+     * Merge the recomputed examples into the previous ones. The examples of the changed classes are replaced,
+     * those of the other classes in the neighbourhood are added to the previous ones.
+     */
+    private void updateExampleUsages(Map<String, Map<String, List<String>>> usages,
+                                     Map<String, Map<String, List<String>>> recomputed, Set<String> changedNames) {
+        usages.keySet().removeAll(changedNames);
+        recomputed.forEach((className, methodUsages) -> {
+            if (changedNames.contains(className)) {
+                usages.put(className, methodUsages);
+                return;
+            }
+            Map<String, List<String>> merged = usages.computeIfAbsent(className, k -> new TreeMap<>());
+            methodUsages.forEach((methodSig, codes) -> {
+                List<String> mergedCodes = merged.computeIfAbsent(methodSig, k -> new ArrayList<>());
+                for (String code : codes) {
+                    if (!mergedCodes.contains(code)) {
+                        mergedCodes.add(code);
+                    }
+                }
+                mergedCodes.sort(Comparator.comparingInt(String::length));
+            });
+        });
+    }
+
+    private static Set<String> readIdentifiers(String classPath) {
+        try {
+            return new HashSet<>(Arrays.asList(Files.readString(Paths.get(classPath), StandardCharsets.UTF_8)
+                    .split("[^A-Za-z0-9_$]+")));
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.readIdentifiers: " + e);
+        }
+    }
+
+    private static Set<String> simpleNames(Collection<String> fullClassNames) {
+        Set<String> names = new HashSet<>();
+        fullClassNames.forEach(name -> names.add(getSimpleName(name)));
+        return names;
+    }
+
+    private static String getSimpleName(String fullClassName) {
+        return fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
+    }
+
     private SDG createSDG(NodeList<CompilationUnit> cus) {
         SDG sdg = new JSysDG();
+        sdg.setParallelism(config.getSdgThreads());
         sdg.build(cus);
+        sdg.freeze();
         return sdg;
     }
 
-    private MethodExampleMap createMethodExampleMap(NodeList<CompilationUnit> cus) {
+    /**
+     * Add the examples of the methods declared in the targets, sliced from their callers in the SDG of the units.
+     * @param cus the compilation units to build the SDG over
+     * @param targets the compilation units whose methods get examples, a subset of {@code cus}
+     * @param methodExampleMap the map to add the examples to
+     * @return {@code methodExampleMap}
+     */
+    private MethodExampleMap createMethodExampleMap(NodeList<CompilationUnit> cus, List<CompilationUnit> targets,
+                                                    MethodExampleMap methodExampleMap) {
         config.getLogger().info("Starting to create method example map...");
-        MethodExampleMap methodExampleMap = new MethodExampleMap();
         SDG sdg = createSDG(cus);
 
         AtomicInteger cuIndex = new AtomicInteger();
         AtomicInteger methodIndex = new AtomicInteger();
-        int totalMethods = slicing.graphs.ClassGraph.getInstance().getMethodDeclarationMap().size();
-        cus.forEach(cu -> {
+        int totalMethods = sdg.getClassGraph().getMethodDeclarationMap().size();
+        targets.forEach(cu -> {
             cu.findAll(CallableDeclaration.class).forEach(callable -> {
                 Set<Edge<?>> edges = findEdgeByCallGraph(callable, sdg.getCallGraph());
                 if (!edges.isEmpty()) {
@@ -266,8 +831,7 @@ public class ProjectParser {
     public void addClassMap(CompilationUnit cu) {
         cu.findAll(ClassOrInterfaceDeclaration.class).forEach(classNode -> {
             String className = classNode.getNameAsString();
-            String fullClassName = cu.getPackageDeclaration().isPresent() ?
-                    cu.getPackageDeclaration().get().getNameAsString() + "." + className : className;
+            String fullClassName = getFullClassName(cu, classNode);
             if (classNameMap.containsKey(className)) {
                 classNameMap.get(className).add(fullClassName);
             } else {
@@ -278,6 +842,12 @@ public class ProjectParser {
         });
     }
 
+    private static String getFullClassName(CompilationUnit cu, ClassOrInterfaceDeclaration classNode) {
+        String className = classNode.getNameAsString();
+        return cu.getPackageDeclaration().isPresent() ?
+                cu.getPackageDeclaration().get().getNameAsString() + "." + className : className;
+    }
+
     public static void exportJson(Path path, Object obj) {
         if (!Files.exists(path.getParent())) {
             try {
@@ -293,23 +863,11 @@ public class ProjectParser {
         }
     }
 
+    /**
+     * Get the java files in all compile source roots of the project, from the shared {@link SourceFileIndex}.
+     */
     public static List<String> scanSourceDirectory(Project project) {
-        List<String> classPaths = new ArrayList<>();
-        File[] files = Paths.get(project.getCompileSourceRoots().get(0)).toFile().listFiles();
-        if (files != null) {
-            for (File file : files) {
-                try {
-                    Files.walk(file.toPath()).forEach(path -> {
-                        if (path.toString().endsWith(".java")) {
-                            classPaths.add(path.toString());
-                        }
-                    });
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            }
-        }
-        return classPaths;
+        return new ArrayList<>(SourceFileIndex.getInstance(project).getPaths());
     }
 
     public static void walkDep(DependencyNode node, Set<DependencyNode> depSet) {
@@ -329,9 +887,29 @@ public class ProjectParser {
         exportJson(savePath, config.ocm.getOCM());
     }
 
+    /**
+     * Export the example code as an indexed {@link ExampleUsage} store.
+     */
     public void exportMethodExampleMap(MethodExampleMap methodExampleMap) {
+        exportExampleUsages(methodExampleMap.getUsages());
+    }
+
+    public void exportExampleUsages(Map<String, Map<String, List<String>>> usages) {
         Path savePath = config.tmpOutput.resolve("methodExampleCode.json");
-        exportJson(savePath, methodExampleMap.getMEM());
+        try {
+            ExampleUsage.export(savePath, usages);
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.exportExampleUsages: " + e);
+        }
+    }
+
+    public void exportContextIndex() {
+        Path savePath = config.tmpOutput.resolve(ContextIndex.INDEX_FILE);
+        try {
+            contextIndex.export(savePath);
+        } catch (IOException e) {
+            throw new RuntimeException("In ProjectParser.exportContextIndex: " + e);
+        }
     }
 
     public static void setLanguageLevel(ParserConfiguration configuration) {
@@ -0,0 +1,377 @@
+package zju.cst.aces.parser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.Parameter;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.expr.SuperExpr;
+import com.github.javaparser.ast.expr.ThisExpr;
+import com.github.javaparser.ast.expr.VariableDeclarationExpr;
+import com.github.javaparser.ast.nodeTypes.NodeWithTypeParameters;
+import com.github.javaparser.ast.stmt.ExpressionStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.ast.type.TypeParameter;
+import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
+import slicing.utils.SynchronizedSymbolResolver;
+import zju.cst.aces.api.Project;
+import zju.cst.aces.util.WeightedCache;
+
+import java.io.File;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Memoized symbol resolution shared by the {@link ClassParser}s of a parse run.
+ *
+ * <P>
+ * Method calls and object creations are cached by keys computed from the source alone, without resolving
+ * anything: the declared types of the locals they mention and the call as written, see {@link #callKey}.
+ * Declared types (e.g. parameter types) are cached by their name and the package and imports of their compilation
+ * unit. Expressions whose key cannot be computed, e.g. calls with lambda arguments, are resolved without the cache.
+ * Failed resolutions are cached too.
+ * </P>
+ *
+ * <P>
+ * The resolved declarations solve their types lazily and are not thread-safe, so they are not shared between the
+ * parsers of the run: the names that the extraction uses are computed from them under the
+ * {@link SynchronizedSymbolResolver#LOCK}, and only those are cached.
+ * </P>
+ */
+public class ResolutionCache {
+
+    private static final long MAX_ENTRIES = 1 << 18;
+
+    private final WeightedCache<String, Optional<ResolvedCall>> methods = new WeightedCache<>(MAX_ENTRIES, v -> 1);
+    private final WeightedCache<String, Optional<String>> constructors = new WeightedCache<>(MAX_ENTRIES, v -> 1);
+    private final WeightedCache<String, Optional<String>> types = new WeightedCache<>(MAX_ENTRIES, v -> 1);
+    private final Map<CompilationUnit, String> unitContexts = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile Optional<Map<String, List<String>>> subClasses;
+
+    public Optional<ResolvedCall> resolveMethod(MethodCallExpr call) {
+        Supplier<ResolvedCall> resolver = () -> new ResolvedCall(call.resolve());
+        String key = callKey(call, call.getScope().orElse(null), call.getNameAsString(), call.getArguments());
+        if (key == null) {
+            return tryResolve(resolver);
+        }
+        return methods.get(key, k -> tryResolve(resolver));
+    }
+
+    /**
+     * @return the qualified name of the created type
+     */
+    public Optional<String> resolveConstructor(ObjectCreationExpr creation) {
+        Supplier<String> resolver = () -> creation.resolve().declaringType().getQualifiedName();
+        if (creation.getAnonymousClassBody().isPresent() || creation.getScope().isPresent()) {
+            return tryResolve(resolver);
+        }
+        String key = callKey(creation, null, "new " + typeKey(creation, creation.getType()), creation.getArguments());
+        if (key == null) {
+            return tryResolve(resolver);
+        }
+        return constructors.get(key, k -> tryResolve(resolver));
+    }
+
+    /**
+     * @return the described type of the parameter, the component type for arrays
+     */
+    public Optional<String> resolveParameterType(Parameter parameter) {
+        Type type = parameter.getType();
+        Supplier<String> resolver = type.isArrayType()
+                ? () -> parameter.resolve().getType().asArrayType().getComponentType().describe()
+                : () -> parameter.resolve().describeType();
+        String key = isTypeVariable(parameter, type.getElementType()) ? null : typeKey(parameter, type)
+                + (parameter.isVarArgs() ? "..." : "");
+        if (key == null) {
+            return tryResolve(resolver);
+        }
+        return types.get(key, k -> tryResolve(resolver));
+    }
+
+    /**
+     * Get the full names of the project classes that extend the given class. The project is scanned
+     * only once per run.
+     * @return the subclasses, or {@code null} if the project has no source file
+     */
+    public List<String> getSubClasses(String fullClassName, Project project, JavaParser parser) {
+        if (subClasses == null) {
+            synchronized (this) {
+                if (subClasses == null) {
+                    subClasses = scanSubClasses(project, parser);
+                }
+            }
+        }
+        return subClasses.map(map -> new ArrayList<>(map.getOrDefault(fullClassName, Collections.emptyList()))).orElse(null);
+    }
+
+    /**
+     * @return super class name (the package of the subclass and the name as written) → subclasses,
+     *         or empty if the project has no source file
+     */
+    private static Optional<Map<String, List<String>>> scanSubClasses(Project project, JavaParser parser) {
+        Map<String, List<String>> subClasses = new HashMap<>();
+        List<String> classPaths = ProjectParser.scanSourceDirectory(project);
+        if (classPaths.isEmpty()) {
+            return Optional.empty();
+        }
+        for (String classPath : classPaths) {
+            CompilationUnit cu;
+            try {
+                cu = parser.parse(new File(classPath)).getResult().orElseThrow();
+            } catch (Exception e) {
+                throw new RuntimeException("In ResolutionCache.scanSubClasses: " + e);
+            }
+            String packageName = cu.getPackageDeclaration().isEmpty() ? "" : cu.getPackageDeclaration().get().getNameAsString();
+            for (ClassOrInterfaceDeclaration classDeclaration : cu.findAll(ClassOrInterfaceDeclaration.class)) {
+                for (ClassOrInterfaceType extendedType : classDeclaration.getExtendedTypes()) {
+                    subClasses.computeIfAbsent(packageName + "." + extendedType.getNameAsString(), k -> new ArrayList<>())
+                            .add(classDeclaration.getFullyQualifiedName().orElseThrow());
+                }
+            }
+        }
+        return Optional.of(subClasses);
+    }
+
+    public String stats() {
+        return "methods [" + methods.stats() + "], constructors [" + constructors.stats()
+                + "], types [" + types.stats() + "]";
+    }
+
+    public long getHitCount() {
+        return methods.getHitCount() + constructors.getHitCount() + types.getHitCount();
+    }
+
+    public long getMissCount() {
+        return methods.getMissCount() + constructors.getMissCount() + types.getMissCount();
+    }
+
+    /**
+     * Key of a call: the package and imports of its compilation unit, the declared type of each local variable or
+     * parameter that it mentions, and the scope, name and arguments of the call as written. The enclosing type is
+     * part of the key too, unless the call has a scope and only mentions such locals, whose declared types do not
+     * name a type of the compilation unit: those calls are shared by all the members and types of the run.
+     * Returns {@code null} if the source alone may not determine the resolution: calls in anonymous or local
+     * classes, calls with lambda or method reference arguments, and calls that mention a local variable that is
+     * declared more than once in the enclosing member, that is not in scope, or whose type is inferred or mentions
+     * a type parameter.
+     */
+    private String callKey(Node call, Expression scope, String name, List<Expression> arguments) {
+        String typeName = enclosingTypeName(call);
+        boolean inLocalClass = call.findAncestor(ClassOrInterfaceDeclaration.class)
+                .map(ClassOrInterfaceDeclaration::isLocalClassDeclaration).orElse(false);
+        if (typeName.isEmpty() || inLocalClass || inAnonymousClass(call)) {
+            return null;
+        }
+        List<Expression> expressions = new ArrayList<>(arguments);
+        if (scope != null) {
+            expressions.add(scope);
+        }
+        Set<String> names = new TreeSet<>();
+        boolean inEnclosingType = scope == null;
+        for (Expression expression : expressions) {
+            if (expression.isLambdaExpr() || expression.isMethodReferenceExpr()) {
+                return null;
+            }
+            expression.findAll(NameExpr.class).forEach(n -> names.add(n.getNameAsString()));
+            inEnclosingType |= !expression.findAll(Type.class).isEmpty()
+                    || !expression.findAll(ThisExpr.class).isEmpty()
+                    || !expression.findAll(SuperExpr.class).isEmpty()
+                    || !expression.findAll(MethodCallExpr.class, m -> m.getScope().isEmpty()).isEmpty();
+        }
+
+        StringBuilder locals = new StringBuilder();
+        Optional<BodyDeclaration> member = call.findAncestor(BodyDeclaration.class);
+        for (String local : names) {
+            List<Node> declarations = new ArrayList<>();
+            if (member.isPresent()) {
+                member.get().findAll(Parameter.class, p -> p.getNameAsString().equals(local)).forEach(declarations::add);
+                member.get().findAll(VariableDeclarator.class, v -> v.getNameAsString().equals(local)).forEach(declarations::add);
+            }
+            if (declarations.isEmpty()) { // a field or a type
+                inEnclosingType = true;
+                continue;
+            }
+            Node declaration = declarations.get(0);
+            Type type = declaration instanceof Parameter
+                    ? ((Parameter) declaration).getType() : ((VariableDeclarator) declaration).getType();
+            if (declarations.size() > 1 || !inScope(declaration, call) || type.isVarType() || type.isUnknownType()
+                    || mentionsTypeParameter(call, type)) {
+                return null;
+            }
+            inEnclosingType |= mentionsUnitType(call, type);
+            locals.append(local).append(':').append(type.asString())
+                    .append(declaration instanceof Parameter && ((Parameter) declaration).isVarArgs() ? "..." : "")
+                    .append(';');
+        }
+
+        CompilationUnit cu = call.findCompilationUnit().orElse(null);
+        StringBuilder key = new StringBuilder(cu == null ? "" : unitContexts.computeIfAbsent(cu, ResolutionCache::unitContext));
+        key.append('|').append(inEnclosingType ? typeName : "").append('|').append(locals).append('#');
+        if (scope != null) {
+            key.append(scope).append('.');
+        }
+        key.append(name).append('(');
+        for (Expression argument : arguments) {
+            key.append(argument).append(',');
+        }
+        return key.append(')').toString();
+    }
+
+    /**
+     * Whether the call is in the scope of the declaration of a parameter or local variable.
+     */
+    private static boolean inScope(Node declaration, Node call) {
+        Node scope = declaration.getParentNode().orElse(null);
+        if (declaration instanceof VariableDeclarator) {
+            if (scope instanceof VariableDeclarationExpr) {
+                scope = scope.getParentNode().orElse(null);
+            }
+            if (scope instanceof ExpressionStmt) {
+                scope = scope.getParentNode().orElse(null);
+            }
+            if (declaration.getBegin().isEmpty() || call.getBegin().isEmpty()
+                    || declaration.getBegin().get().isAfter(call.getBegin().get())) {
+                return false;
+            }
+        }
+        return scope != null && scope.isAncestorOf(call);
+    }
+
+    /**
+     * Whether the type names a type parameter of a type or callable that encloses the node.
+     */
+    private static boolean mentionsTypeParameter(Node node, Type type) {
+        Set<String> typeNames = new HashSet<>();
+        type.findAll(ClassOrInterfaceType.class).forEach(t -> typeNames.add(t.getNameAsString()));
+        Optional<Node> parent = node.getParentNode();
+        while (parent.isPresent()) {
+            if (parent.get() instanceof NodeWithTypeParameters) {
+                for (TypeParameter typeParameter : ((NodeWithTypeParameters<?>) parent.get()).getTypeParameters()) {
+                    if (typeNames.contains(typeParameter.getNameAsString())) {
+                        return true;
+                    }
+                }
+            }
+            parent = parent.get().getParentNode();
+        }
+        return false;
+    }
+
+    /**
+     * Whether the type names, without qualifiers, a type declared in the compilation unit of the node, e.g. a nested
+     * type, whose resolution depends on the enclosing type. Member types inherited from a supertype are not detected.
+     */
+    private static boolean mentionsUnitType(Node node, Type type) {
+        Optional<CompilationUnit> cu = node.findCompilationUnit();
+        if (cu.isEmpty()) {
+            return true;
+        }
+        Set<String> unitTypes = new HashSet<>();
+        cu.get().findAll(TypeDeclaration.class).forEach(t -> unitTypes.add(t.getNameAsString()));
+        return type.findAll(ClassOrInterfaceType.class).stream()
+                .anyMatch(t -> t.getScope().isEmpty() && unitTypes.contains(t.getNameAsString()));
+    }
+
+    private static boolean inAnonymousClass(Node node) {
+        Optional<Node> parent = node.getParentNode();
+        while (parent.isPresent() && !(parent.get() instanceof TypeDeclaration)) {
+            if (parent.get() instanceof ObjectCreationExpr
+                    && ((ObjectCreationExpr) parent.get()).getAnonymousClassBody().isPresent()) {
+                return true;
+            }
+            parent = parent.get().getParentNode();
+        }
+        return false;
+    }
+
+    /**
+     * Key of a declared type: the package and imports of its compilation unit, the enclosing type
+     * (for nested types and type parameters) and the type as written.
+     */
+    private String typeKey(Node node, Type type) {
+        return typeKey(node, type.asString());
+    }
+
+    private String typeKey(Node node, String typeName) {
+        CompilationUnit cu = node.findCompilationUnit().orElse(null);
+        String unitContext = cu == null ? "" : unitContexts.computeIfAbsent(cu, ResolutionCache::unitContext);
+        return unitContext + "|" + enclosingTypeName(node) + "|" + typeName;
+    }
+
+    private static String unitContext(CompilationUnit cu) {
+        StringBuilder sb = new StringBuilder();
+        cu.getPackageDeclaration().ifPresent(p -> sb.append(p.getNameAsString()));
+        cu.getImports().forEach(i -> sb.append(';').append(i.isStatic() ? "static " : "")
+                .append(i.getNameAsString()).append(i.isAsterisk() ? ".*" : ""));
+        return sb.toString();
+    }
+
+    private static String enclosingTypeName(Node node) {
+        return node.findAncestor(TypeDeclaration.class)
+                .map(t -> (String) ((TypeDeclaration<?>) t).getFullyQualifiedName().orElse(t.getNameAsString()))
+                .orElse("");
+    }
+
+    private static boolean isTypeVariable(Node node, Type type) {
+        String name = type.asString();
+        return node.findAncestor(CallableDeclaration.class)
+                .map(c -> ((CallableDeclaration<?>) c).getTypeParameters().stream().map(TypeParameter::getNameAsString)
+                        .anyMatch(name::equals))
+                .orElse(false);
+    }
+
+    private static <T> Optional<T> tryResolve(Supplier<T> resolver) {
+        try {
+            synchronized (SynchronizedSymbolResolver.LOCK) {
+                return Optional.ofNullable(resolver.get());
+            }
+        } catch (Exception e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * The names of a resolved method call that the extraction uses.
+     */
+    public static class ResolvedCall {
+        /** The qualified name of the declaring type. */
+        final String declaringType;
+        /** The name and the parameter types without their qualifiers, e.g. {@code add(int, String)}. */
+        final String signature;
+        /** The qualified name of the return type, or {@code null} if it is not a reference type. */
+        final String returnType;
+
+        ResolvedCall(ResolvedMethodDeclaration md) {
+            this.declaringType = md.declaringType().getQualifiedName();
+            this.signature = getParamTypeInSig(md);
+            this.returnType = md.getReturnType().isReferenceType()
+                    ? md.getReturnType().asReferenceType().getQualifiedName() : null;
+        }
+
+        private static String getParamTypeInSig(ResolvedMethodDeclaration md) {
+            String sig = md.getName() + "(";
+            for (int i = 0; i < md.getNumberOfParams(); i++) {
+                String paramType = md.getParam(i).getType().describe();
+                if (paramType.contains(".")) {
+                    paramType = paramType.substring(paramType.lastIndexOf(".") + 1);
+                }
+                if (i == md.getNumberOfParams() - 1) {
+                    sig += paramType;
+                } else {
+                    sig += paramType + ", ";
+                }
+            }
+            sig += ")";
+            return sig;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package zju.cst.aces.parser;
+
+import zju.cst.aces.api.Project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Index of the java source files in all compile source roots of a project, including generated sources.
+ *
+ * <P>
+ * The roots are walked once, in parallel, and the index is shared by all users of the same roots in the run.
+ * The files are listed in the order of the roots, sorted within a root. A class declared in several roots is
+ * looked up in the first one.
+ * </P>
+ */
+public class SourceFileIndex {
+
+    private static final String JAVA_EXTENSION = ".java";
+    private static final Map<List<String>, SourceFileIndex> INSTANCES = new ConcurrentHashMap<>();
+
+    private final List<String> paths = new ArrayList<>();
+    private final Map<String, String> pathsByFullName = new HashMap<>();
+    private final Map<String, List<String>> pathsByName = new HashMap<>();
+
+    private SourceFileIndex(List<String> roots) {
+        Set<String> seen = new HashSet<>();
+        for (String root : roots) {
+            Path rootPath = Paths.get(root);
+            if (!Files.isDirectory(rootPath)) {
+                continue;
+            }
+            List<Path> files = ForkJoinPool.commonPool().invoke(new DirectoryWalk(rootPath));
+            Collections.sort(files);
+            for (Path file : files) {
+                String path = file.toString();
+                if (!seen.add(path)) {
+                    continue; // nested roots
+                }
+                paths.add(path);
+                String relative = rootPath.relativize(file).toString();
+                String fullClassName = relative.substring(0, relative.length() - JAVA_EXTENSION.length())
+                        .replace(File.separatorChar, '.');
+                pathsByFullName.putIfAbsent(fullClassName, path);
+                pathsByName.computeIfAbsent(getSimpleName(fullClassName), k -> new ArrayList<>()).add(path);
+            }
+        }
+    }
+
+    /**
+     * Get the shared index of the source roots of the project, built on the first call.
+     */
+    public static SourceFileIndex getInstance(Project project) {
+        return INSTANCES.computeIfAbsent(sourceRoots(project), SourceFileIndex::new);
+    }
+
+    /**
+     * Rebuild the shared index of the project, e.g. when source files are added or deleted during the run.
+     */
+    public static SourceFileIndex refresh(Project project) {
+        List<String> roots = sourceRoots(project);
+        SourceFileIndex index = new SourceFileIndex(roots);
+        INSTANCES.put(roots, index);
+        return index;
+    }
+
+    private static List<String> sourceRoots(Project project) {
+        List<String> roots = new ArrayList<>();
+        for (String root : project.getCompileSourceRoots()) {
+            roots.add(Paths.get(root).toAbsolutePath().normalize().toString());
+        }
+        return roots;
+    }
+
+    /**
+     * @return the paths of all source files
+     */
+    public List<String> getPaths() {
+        return Collections.unmodifiableList(paths);
+    }
+
+    /**
+     * @return the path of the file declaring the top level class, by the package directories
+     */
+    public Optional<String> getPath(String fullClassName) {
+        return Optional.ofNullable(pathsByFullName.get(fullClassName));
+    }
+
+    /**
+     * @return the paths of the files named after the class, in any package
+     */
+    public List<String> getPathsByClassName(String className) {
+        return Collections.unmodifiableList(pathsByName.getOrDefault(className, Collections.emptyList()));
+    }
+
+    public int size() {
+        return paths.size();
+    }
+
+    private static String getSimpleName(String fullClassName) {
+        return fullClassName.substring(fullClassName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Lists the java files under a directory, forking a sub task per sub directory.
+     * Symbolic links to directories are not followed.
+     */
+    private static class DirectoryWalk extends RecursiveTask<List<Path>> {
+        private final Path dir;
+
+        DirectoryWalk(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected List<Path> compute() {
+            List<Path> files = new ArrayList<>();
+            List<DirectoryWalk> subWalks = new ArrayList<>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                        DirectoryWalk subWalk = new DirectoryWalk(entry);
+                        subWalk.fork();
+                        subWalks.add(subWalk);
+                    } else if (entry.toString().endsWith(JAVA_EXTENSION)) {
+                        files.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("In SourceFileIndex.DirectoryWalk: " + e);
+            }
+            for (DirectoryWalk subWalk : subWalks) {
+                files.addAll(subWalk.join());
+            }
+            return files;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package zju.cst.aces.prompt;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.comments.Comment;
+import com.github.javaparser.ast.expr.ArrayInitializerExpr;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.expr.NameExpr;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.printer.DefaultPrettyPrinter;
+import com.github.javaparser.printer.configuration.DefaultConfigurationOption;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration;
+import com.github.javaparser.printer.configuration.DefaultPrinterConfiguration.ConfigOption;
+import com.github.javaparser.printer.configuration.Indentation;
+import com.github.javaparser.printer.configuration.PrinterConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Code context minifier used when a prompt exceeds the token budget.
+ *
+ * <P>
+ * Code snippets are parsed with JavaParser and printed back at the requested level:
+ * <ul>
+ *     <li>{@link Level#LIGHT}: strip comments and Javadoc, normalize whitespace.</li>
+ *     <li>{@link Level#MODERATE}: also elide long array initializers and string literals.</li>
+ *     <li>{@link Level#AGGRESSIVE}: also collapse the bodies of non-focal methods to signatures.</li>
+ * </ul>
+ * Snippets that do not parse (e.g. partial code) only get comments and blank lines removed.
+ * </P>
+ */
+public class ContextCompressor {
+
+    public enum Level { NONE, LIGHT, MODERATE, AGGRESSIVE }
+
+    private static final String WRAPPER_NAME = "ContextCompressorWrapper";
+    private static final int MAX_ARRAY_ELEMENTS = 3;
+    private static final int MAX_STRING_LENGTH = 32;
+
+    private final JavaParser parser = new JavaParser();
+    private final PrinterConfiguration printerConfiguration = new DefaultPrinterConfiguration()
+            .removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_COMMENTS))
+            .removeOption(new DefaultConfigurationOption(ConfigOption.PRINT_JAVADOC))
+            .addOption(new DefaultConfigurationOption(ConfigOption.INDENTATION,
+                    new Indentation(Indentation.IndentType.SPACES, 1)));
+    private final String focalMethodName;
+
+    /**
+     * @param focalMethodName name of the focal method, its body is never collapsed
+     */
+    public ContextCompressor(String focalMethodName) {
+        this.focalMethodName = focalMethodName;
+    }
+
+    public String compress(String code, Level level) {
+        if (code == null || code.isEmpty() || level == Level.NONE) {
+            return code;
+        }
+        try {
+            ParseResult<CompilationUnit> result = parser.parse(code);
+            if (result.isSuccessful() && result.getResult().isPresent()
+                    && !result.getResult().get().getTypes().isEmpty()) {
+                CompilationUnit cu = result.getResult().get();
+                minify(cu, level);
+                return print(cu);
+            }
+            // members of a class, e.g. method bodies, fields or signatures
+            result = parser.parse("class " + WRAPPER_NAME + " {\n" + code + "\n}");
+            if (result.isSuccessful() && result.getResult().isPresent()) {
+                ClassOrInterfaceDeclaration wrapper = result.getResult().get().getClassByName(WRAPPER_NAME).orElse(null);
+                if (wrapper != null && !wrapper.getMembers().isEmpty()) {
+                    minify(wrapper, level);
+                    List<String> members = new ArrayList<>();
+                    for (BodyDeclaration<?> member : wrapper.getMembers()) {
+                        members.add(print(member));
+                    }
+                    return String.join("\n", members);
+                }
+            }
+        } catch (Exception e) {
+            // fall through to the textual minification
+        }
+        return normalizeWhitespace(stripComments(code));
+    }
+
+    private void minify(Node root, Level level) {
+        for (Comment comment : root.getAllContainedComments()) {
+            comment.remove();
+        }
+        root.getComment().ifPresent(Comment::remove);
+        if (level.compareTo(Level.MODERATE) >= 0) {
+            for (ArrayInitializerExpr array : root.findAll(ArrayInitializerExpr.class)) {
+                NodeList<Expression> values = array.getValues();
+                if (values.size() > MAX_ARRAY_ELEMENTS + 1) {
+                    NodeList<Expression> kept = new NodeList<>();
+                    for (int i = 0; i < MAX_ARRAY_ELEMENTS; i++) {
+                        kept.add(values.get(i).clone());
+                    }
+                    kept.add(new NameExpr("..."));
+                    array.setValues(kept);
+                }
+            }
+            for (StringLiteralExpr literal : root.findAll(StringLiteralExpr.class)) {
+                String value = literal.getValue();
+                if (value.length() > MAX_STRING_LENGTH) {
+                    literal.setValue(value.substring(0, MAX_STRING_LENGTH) + "...");
+                }
+            }
+        }
+        if (level.compareTo(Level.AGGRESSIVE) >= 0) {
+            for (MethodDeclaration method : root.findAll(MethodDeclaration.class)) {
+                if (!method.getNameAsString().equals(focalMethodName)) {
+                    method.removeBody();
+                }
+            }
+        }
+    }
+
+    private String print(Node node) {
+        return normalizeWhitespace(new DefaultPrettyPrinter(printerConfiguration).print(node));
+    }
+
+    /**
+     * Remove line and block comments outside of string and character literals.
+     */
+    public static String stripComments(String code) {
+        StringBuilder sb = new StringBuilder(code.length());
+        int i = 0;
+        int n = code.length();
+        while (i < n) {
+            char c = code.charAt(i);
+            if (c == '"' || c == '\'') {
+                int end = i + 1;
+                while (end < n && code.charAt(end) != c && code.charAt(end) != '\n') {
+                    end += code.charAt(end) == '\\' ? 2 : 1;
+                }
+                end = Math.min(end + 1, n);
+                sb.append(code, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '/') {
+                while (i < n && code.charAt(i) != '\n') {
+                    i++;
+                }
+            } else if (c == '/' && i + 1 < n && code.charAt(i + 1) == '*') {
+                int end = code.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 2;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Remove trailing spaces and blank lines.
+     */
+    public static String normalizeWhitespace(String code) {
+        return code.lines()
+                .map(String::stripTrailing)
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.joining("\n"));
+    }
+}
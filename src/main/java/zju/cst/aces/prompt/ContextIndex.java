@@ -0,0 +1,178 @@
+package zju.cst.aces.prompt;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lexical retrieval index (BM25) over the parsed project.
+ *
+ * <P>
+ * The index is built at parse time from the class signatures, method briefs and method source code,
+ * and only keeps the corpus statistics (document frequency per term, document count and average length).
+ * Prompt construction uses it to rank candidate dependency snippets by relevance to the focal method,
+ * so that the most relevant ones are kept when the prompt exceeds the token budget.
+ * </P>
+ */
+public class ContextIndex {
+
+    public static final String INDEX_FILE = "contextIndex.json";
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final Map<Path, ContextIndex> INSTANCES = new ConcurrentHashMap<>();
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+            "public", "private", "protected", "static", "final", "abstract", "synchronized", "void",
+            "return", "new", "this", "super", "null", "true", "false", "if", "else", "for", "while",
+            "do", "try", "catch", "finally", "throw", "throws", "class", "interface", "extends",
+            "implements", "import", "package", "int", "long", "short", "byte", "char", "boolean",
+            "double", "float", "var", "case", "switch", "break", "continue", "default", "instanceof"));
+
+    public int docCount = 0;
+    public long totalLength = 0;
+    public Map<String, Integer> docFreq = new HashMap<>();
+
+    /**
+     * Add a document (class signature, method brief or method source code) to the index.
+     */
+    public synchronized void addDocument(String text) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        List<String> terms = tokenize(text);
+        docCount++;
+        totalLength += terms.size();
+        for (String term : new HashSet<>(terms)) {
+            docFreq.merge(term, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Remove a document added before, e.g. when its source file is re-parsed.
+     */
+    public synchronized void removeDocument(String text) {
+        if (text == null || text.isEmpty() || docCount == 0) {
+            return;
+        }
+        List<String> terms = tokenize(text);
+        docCount--;
+        totalLength = Math.max(0, totalLength - terms.size());
+        for (String term : new HashSet<>(terms)) {
+            docFreq.computeIfPresent(term, (k, df) -> df > 1 ? df - 1 : null);
+        }
+    }
+
+    public double idf(String term) {
+        int df = docFreq.getOrDefault(term, 0);
+        return Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+    }
+
+    /**
+     * BM25 score of a snippet for the given query terms.
+     */
+    public double score(Collection<String> queryTerms, String snippet) {
+        if (snippet == null || snippet.isEmpty()) {
+            return 0;
+        }
+        List<String> terms = tokenize(snippet);
+        Map<String, Integer> tf = new HashMap<>();
+        for (String term : terms) {
+            tf.merge(term, 1, Integer::sum);
+        }
+        double avgLength = docCount == 0 ? terms.size() : Math.max(1.0, (double) totalLength / docCount);
+        double norm = K1 * (1 - B + B * terms.size() / avgLength);
+        double score = 0;
+        for (String term : new HashSet<>(queryTerms)) {
+            Integer freq = tf.get(term);
+            if (freq == null) {
+                continue;
+            }
+            score += idf(term) * freq * (K1 + 1) / (freq + norm);
+        }
+        return score;
+    }
+
+    /**
+     * Rank the candidate snippets by relevance to the query, the most relevant first.
+     * @param queryTerms terms of the focal method, see {@link #tokenize}
+     * @param candidates candidate snippets keyed by an identifier (e.g. the dependent class name)
+     * @return candidate keys in descending order of relevance
+     */
+    public List<String> rank(Collection<String> queryTerms, Map<String, String> candidates) {
+        Map<String, Double> scores = new HashMap<>();
+        candidates.forEach((key, snippet) -> scores.put(key, score(queryTerms, key + "\n" + snippet)));
+        List<String> ranked = new ArrayList<>(candidates.keySet());
+        ranked.sort((a, b) -> Double.compare(scores.get(b), scores.get(a)));
+        return ranked;
+    }
+
+    /**
+     * Split the text into lower-cased terms. Identifiers are kept as a whole
+     * and also split by camel case and underscores, e.g. {@code getUserName} gives
+     * {@code getusername, get, user, name}.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        for (String identifier : text.split("[^A-Za-z0-9_$]+")) {
+            if (identifier.isEmpty() || Character.isDigit(identifier.charAt(0))) {
+                continue;
+            }
+            String lower = identifier.toLowerCase();
+            if (STOP_WORDS.contains(lower)) {
+                continue;
+            }
+            terms.add(lower);
+            String[] parts = identifier.split("_|\\$|(?<=[a-z0-9])(?=[A-Z])|(?<=[A-Z])(?=[A-Z][a-z])");
+            if (parts.length > 1) {
+                for (String part : parts) {
+                    if (part.length() > 1) {
+                        terms.add(part.toLowerCase());
+                    }
+                }
+            }
+        }
+        return terms;
+    }
+
+    public void export(Path path) throws IOException {
+        if (!Files.exists(path.getParent())) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, GSON.toJson(this), StandardCharsets.UTF_8);
+        INSTANCES.remove(path);
+    }
+
+    /**
+     * Get the index of the project, it is loaded from disk only once per run.
+     * An empty index is returned if the project was parsed without one, the ranking then
+     * falls back to plain term overlap.
+     * @param path path of the exported index
+     */
+    public static ContextIndex getInstance(Path path) {
+        return INSTANCES.computeIfAbsent(path, ContextIndex::load);
+    }
+
+    /**
+     * Load a modifiable copy of the exported index, empty if it is missing or unreadable.
+     */
+    public static ContextIndex load(Path path) {
+        if (!Files.exists(path)) {
+            return new ContextIndex();
+        }
+        try {
+            ContextIndex index = GSON.fromJson(Files.readString(path, StandardCharsets.UTF_8), ContextIndex.class);
+            return index == null ? new ContextIndex() : index;
+        } catch (Exception e) {
+            return new ContextIndex();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package zju.cst.aces.prompt;
 
 import zju.cst.aces.api.config.Config;
 import zju.cst.aces.dto.*;
+import zju.cst.aces.runner.AbstractRunner;
+import zju.cst.aces.util.TestProcessor;
 import zju.cst.aces.util.TokenCounter;
 
 import java.io.IOException;
@@ -34,6 +36,9 @@ public class PromptGenerator {
      */
     public List<ChatMessage> generateMessages(PromptInfo promptInfo) {
         List<ChatMessage> chatMessages = new ArrayList<>();
+        if (promptInfo.errorMsg == null && promptInfo.initialPrompt != null) { // round 0, already rendered
+            return promptInfo.initialPrompt.getMessages();
+        }
         if (promptInfo.errorMsg == null) { // round 0
             chatMessages.add(ChatMessage.ofSystem(createSystemPrompt(promptInfo, promptTemplate.TEMPLATE_INIT)));
             chatMessages.add(ChatMessage.of(createUserPrompt(promptInfo, promptTemplate.TEMPLATE_INIT)));
@@ -43,6 +48,18 @@ public class PromptGenerator {
         return chatMessages;
     }
 
+    /**
+     * Render the round-0 messages once so that they can be shared by all attempts of the focal method.
+     * @param promptInfo prompt word information without errors
+     * @return the rendered messages and their token count
+     */
+    public RenderedPrompt renderInitialPrompt(PromptInfo promptInfo) {
+        List<ChatMessage> chatMessages = new ArrayList<>();
+        chatMessages.add(ChatMessage.ofSystem(createSystemPrompt(promptInfo, promptTemplate.TEMPLATE_INIT)));
+        chatMessages.add(ChatMessage.of(createUserPrompt(promptInfo, promptTemplate.TEMPLATE_INIT)));
+        return new RenderedPrompt(chatMessages, AbstractRunner.countTokens(chatMessages));
+    }
+
     public List<ChatMessage> generateMessages(PromptInfo promptInfo, String templateName) {
         List<ChatMessage> chatMessages = new ArrayList<>();
         chatMessages.add(ChatMessage.ofSystem(createSystemPrompt(promptInfo, templateName)));
@@ -53,6 +70,8 @@ public class PromptGenerator {
     /**
      * Generate user prompts, call {@link PromptTemplate#buildDataModel} to generate {@code datamodel},
      * and add error information and defective unit test code generated in the previous round to the prompts when repairs are needed.
+     * With {@code enableDiffRepair}, only the test methods with errors are added and the unit test is kept in
+     * {@link PromptInfo#retainedTest} to splice the fixed methods into.
      * Call {@link PromptTemplate#renderTemplate} to render the datamodel to the prompt template
      * to generate the final prompt.
      * @param promptInfo prompt word information
@@ -63,16 +82,32 @@ public class PromptGenerator {
         try {
             this.promptTemplate.buildDataModel(config, promptInfo);
             if (templateName.equals(promptTemplate.TEMPLATE_REPAIR)) { // repair process
+                String unitTest = promptInfo.getUnitTest();
+                List<String> errors = promptInfo.getErrorMsg().getErrorMessage();
+                String repairTemplate = promptTemplate.TEMPLATE_REPAIR;
+                promptInfo.setRetainedTest(null);
+                if (config.isEnableDiffRepair() && !config.isEnableObfuscate()
+                        && promptTemplate.hasTemplate(promptTemplate.TEMPLATE_REPAIR_DIFF)) {
+                    TestProcessor testProcessor = new TestProcessor(promptInfo.getFullTestName());
+                    Map<String, List<String>> located = testProcessor.locateErrors(unitTest, promptInfo.getErrorMsg());
+                    if (located != null && !located.isEmpty()) { // only send the methods with errors
+                        promptInfo.setRetainedTest(unitTest);
+                        unitTest = testProcessor.extractMethods(unitTest, located.keySet());
+                        errors = new ArrayList<>();
+                        located.values().forEach(errors::addAll);
+                        repairTemplate = promptTemplate.TEMPLATE_REPAIR_DIFF;
+                        config.getLogger().debug("Diff repair of methods: " + located.keySet());
+                    }
+                }
 
-                int promptTokens = TokenCounter.countToken(promptInfo.getUnitTest())
+                int promptTokens = TokenCounter.countToken(unitTest)
                         + TokenCounter.countToken(promptInfo.getMethodSignature())
                         + TokenCounter.countToken(promptInfo.getClassName())
                         + TokenCounter.countToken(promptInfo.getContext())
                         + TokenCounter.countToken(promptInfo.getOtherMethodBrief());
                 int allowedTokens = Math.max(config.getMaxPromptTokens() - promptTokens, config.getMinErrorTokens());
-                TestMessage errorMsg = promptInfo.getErrorMsg();
                 String processedErrorMsg = "";
-                for (String error : errorMsg.getErrorMessage()) {
+                for (String error : errors) {
                     if (TokenCounter.countToken(processedErrorMsg + error + "\n") <= allowedTokens) {
                         processedErrorMsg += error + "\n";
                     }
@@ -80,10 +115,10 @@ public class PromptGenerator {
                 config.getLogger().debug("Allowed tokens: " + allowedTokens);
                 config.getLogger().debug("Processed error message: \n" + processedErrorMsg);
 
-                promptTemplate.dataModel.put("unit_test", promptInfo.getUnitTest());
+                promptTemplate.dataModel.put("unit_test", unitTest);
                 promptTemplate.dataModel.put("error_message", processedErrorMsg);
 
-                return promptTemplate.renderTemplate(promptTemplate.TEMPLATE_REPAIR);
+                return promptTemplate.renderTemplate(repairTemplate);
             } else {
                 return promptTemplate.renderTemplate(templateName);
             }
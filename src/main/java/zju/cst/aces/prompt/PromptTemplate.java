@@ -14,6 +14,7 @@ import zju.cst.aces.dto.MethodInfo;
 import zju.cst.aces.dto.PromptInfo;
 import zju.cst.aces.parser.ProjectParser;
 import zju.cst.aces.runner.AbstractRunner;
+import zju.cst.aces.util.TokenCounter;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,11 +40,20 @@ public class PromptTemplate {
     public String TEMPLATE_INIT = "";
     public String TEMPLATE_EXTRA = "";
     public String TEMPLATE_REPAIR = "";
+    public String TEMPLATE_REPAIR_DIFF = "";
     public Map<String, Object> dataModel = new HashMap<>();
     public Properties properties;
     public Path promptPath;
     public int maxPromptTokens;
     public Config config;
+    public List<String> focalTerms = new ArrayList<>();
+    private ContextIndex contextIndex;
+    // tokens taken by the template text around each listed dependency
+    private static final int ENTRY_OVERHEAD_TOKENS = 16;
+    // identifiers, focal code and texts that keep their comments on purpose
+    private static final Set<String> UNCOMPRESSED_KEYS = new HashSet<>(Arrays.asList(
+            "method_name", "full_class_name", "method_sig", "method_body", "class_name", "class_sig", "package",
+            "imports", "dep_packages", "dep_imports", "dep_m_sigs_ano_com", "full_method_info", "unit_test", "error_message"));
 
     public PromptTemplate(Config config, Properties properties, Path promptPath, int maxPromptTokens) {
         this.config = config;
@@ -53,12 +63,18 @@ public class PromptTemplate {
         TEMPLATE_INIT = properties.getProperty("PROMPT_TEMPLATE_INIT");
         TEMPLATE_EXTRA = properties.getProperty("PROMPT_TEMPLATE_EXTRA");
         TEMPLATE_REPAIR = properties.getProperty("PROMPT_TEMPLATE_REPAIR");
+        TEMPLATE_REPAIR_DIFF = properties.getProperty("PROMPT_TEMPLATE_REPAIR_DIFF", "repair_diff.ftl");
     }
 
     /**
      * Load the prompt word template and use regular expressions
      * to generate a key list that matches the key information of the target class.
-     * If the generated prompt word text exceeds maxtoken,
+     * If the generated prompt word text exceeds maxtoken, the code sections are first minified
+     * at increasing levels, see {@link #compressContext}.
+     * If it still exceeds maxtoken, the dependency snippets listed by the template
+     * are ranked by relevance to the focal method and packed greedily into the token budget,
+     * see {@link #packRelevantContext}.
+     * If it still exceeds maxtoken,
      * extract the key from the key list from back to front and remove the value of the key in the {@code datamodel}.
      * @param templateFileName prompt word template file name
      * @return prompt word text
@@ -87,31 +103,175 @@ public class PromptTemplate {
             }
         }
 
-        String generatedText;
+        String generatedText = processTemplate(template);
+        if (AbstractRunner.isExceedMaxTokens(this.maxPromptTokens, generatedText)) {
+            List<String> keys = new ArrayList<>(matches);
+            findListedMaps(template.toString()).stream().filter(k -> !keys.contains(k)).forEach(keys::add);
+            generatedText = compressContext(template, keys);
+        }
+        if (AbstractRunner.isExceedMaxTokens(this.maxPromptTokens, generatedText)) {
+            generatedText = packRelevantContext(template, findListedMaps(template.toString()));
+        }
         // adaptive foal context
-        do {
-            StringWriter writer = new StringWriter();
-            template.process(dataModel, writer);
-            generatedText = writer.toString();
-            if (matches.size() > 0) {
-                String key = matches.get(matches.size()-1);
-                if (dataModel.containsKey(key)) {
-                    if (dataModel.get(key) instanceof String) {
-                        dataModel.put(key, "");
-                    } else if (dataModel.get(key) instanceof List) {
-                        dataModel.put(key, new ArrayList<String>());
-                    } else if (dataModel.get(key) instanceof Map) {
-                        dataModel.put(key, new HashMap<String, String>());
-                    } else {
-                        break;
-                    }
+        while (AbstractRunner.isExceedMaxTokens(this.maxPromptTokens, generatedText) && matches.size() > 0) {
+            String key = matches.get(matches.size()-1);
+            if (dataModel.containsKey(key)) {
+                if (dataModel.get(key) instanceof String) {
+                    dataModel.put(key, "");
+                } else if (dataModel.get(key) instanceof List) {
+                    dataModel.put(key, new ArrayList<String>());
+                } else if (dataModel.get(key) instanceof Map) {
+                    dataModel.put(key, new HashMap<String, String>());
+                } else {
+                    break;
+                }
+            }
+            matches.remove(matches.size()-1);
+            generatedText = processTemplate(template);
+        }
+        return generatedText;
+    }
+
+    /**
+     * Check if the template exists in the prompt path, or in the built-in templates if no prompt path is set.
+     */
+    public boolean hasTemplate(String templateFileName) {
+        if (templateFileName == null || templateFileName.isEmpty()) {
+            return false;
+        }
+        if (this.promptPath == null) {
+            return PromptTemplate.class.getResource("/prompt/" + templateFileName) != null;
+        }
+        return Files.exists(this.promptPath.resolve(templateFileName));
+    }
+
+    private String processTemplate(Template template) throws IOException, TemplateException {
+        StringWriter writer = new StringWriter();
+        template.process(dataModel, writer);
+        return writer.toString();
+    }
+
+    /**
+     * Minify the code sections used by the template with {@link ContextCompressor},
+     * raising the level until the prompt fits into the token budget.
+     * The focal method and the sections in {@link #UNCOMPRESSED_KEYS} are kept as they are.
+     * @param template the prompt template
+     * @param keys keys of the {@code datamodel} used by the template
+     * @return the prompt word text with the minified sections
+     */
+    private String compressContext(Template template, List<String> keys) throws IOException, TemplateException {
+        ContextCompressor compressor = new ContextCompressor((String) dataModel.get("method_name"));
+        Map<String, Object> original = new HashMap<>();
+        for (String key : keys) {
+            if (!UNCOMPRESSED_KEYS.contains(key) && dataModel.containsKey(key)) {
+                original.put(key, dataModel.get(key));
+            }
+        }
+        String generatedText = null;
+        ContextCompressor.Level[] levels = {ContextCompressor.Level.LIGHT,
+                ContextCompressor.Level.MODERATE, ContextCompressor.Level.AGGRESSIVE};
+        for (ContextCompressor.Level level : levels) {
+            Map<String, String> compressed = new HashMap<>(); // the same snippet is often listed by several sections
+            for (Map.Entry<String, Object> entry : original.entrySet()) {
+                Object value = entry.getValue();
+                if (value instanceof String) {
+                    dataModel.put(entry.getKey(), compressed.computeIfAbsent((String) value, v -> compressor.compress(v, level)));
+                } else if (value instanceof Map) {
+                    Map<Object, Object> deps = new LinkedHashMap<>();
+                    ((Map<?, ?>) value).forEach((k, v) -> deps.put(k, v instanceof String ?
+                            compressed.computeIfAbsent((String) v, c -> compressor.compress(c, level)) : v));
+                    dataModel.put(entry.getKey(), deps);
+                }
+            }
+            generatedText = processTemplate(template);
+            if (!AbstractRunner.isExceedMaxTokens(this.maxPromptTokens, generatedText)) {
+                config.getLogger().debug("Compressed prompt context at level " + level);
+                break;
+            }
+        }
+        return generatedText;
+    }
+
+    /**
+     * Find the map keys of the {@code datamodel} that the template iterates over, e.g. {@code <#list c_deps?keys as key>}.
+     */
+    private List<String> findListedMaps(String templateText) {
+        Matcher matcher = Pattern.compile("([a-zA-Z_][\\w]*)(\\?keys|\\[)").matcher(templateText);
+        List<String> keys = new ArrayList<>();
+        while (matcher.find()) {
+            String key = matcher.group(1);
+            if (!keys.contains(key) && dataModel.get(key) instanceof Map) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Rank the dependency snippets of all listed maps by their relevance to the focal method with the
+     * project {@link ContextIndex}, and greedily keep the best ones that fit into the remaining token budget,
+     * instead of dropping whole maps.
+     * @param template the prompt template
+     * @param mapKeys keys of the maps in {@code datamodel} listed by the template
+     * @return the prompt word text with the packed dependencies
+     */
+    private String packRelevantContext(Template template, List<String> mapKeys) throws IOException, TemplateException {
+        Map<String, String> candidates = new LinkedHashMap<>();
+        Map<String, String[]> origins = new HashMap<>();
+        for (String mapKey : mapKeys) {
+            Map<?, ?> deps = (Map<?, ?>) dataModel.get(mapKey);
+            for (Map.Entry<?, ?> entry : deps.entrySet()) {
+                if (!(entry.getKey() instanceof String) || !(entry.getValue() instanceof String)) {
+                    continue;
+                }
+                String id = mapKey + "#" + entry.getKey();
+                candidates.put(id, (String) entry.getValue());
+                origins.put(id, new String[]{mapKey, (String) entry.getKey()});
+            }
+            dataModel.put(mapKey, new LinkedHashMap<String, String>());
+        }
+        int budget = maxPromptTokens - TokenCounter.countToken(processTemplate(template));
+        List<String> packed = new ArrayList<>();
+        if (budget > 0) {
+            for (String id : getContextIndex().rank(focalTerms, candidates)) {
+                String depClassName = origins.get(id)[1];
+                int cost = TokenCounter.countToken(candidates.get(id)) + TokenCounter.countToken(depClassName) + ENTRY_OVERHEAD_TOKENS;
+                if (cost <= budget) {
+                    packed.add(id);
+                    budget -= cost;
                 }
-                matches.remove(matches.size()-1);
             }
-        } while (AbstractRunner.isExceedMaxTokens(this.maxPromptTokens, generatedText) && matches.size()>0);
+        }
+
+        String generatedText;
+        do {
+            Map<String, Map<String, String>> packedMaps = new LinkedHashMap<>();
+            for (String mapKey : mapKeys) {
+                packedMaps.put(mapKey, new LinkedHashMap<>());
+            }
+            for (String id : packed) {
+                String[] origin = origins.get(id);
+                packedMaps.get(origin[0]).put(origin[1], candidates.get(id));
+            }
+            dataModel.putAll(packedMaps);
+            generatedText = processTemplate(template);
+            if (packed.isEmpty() || !AbstractRunner.isExceedMaxTokens(this.maxPromptTokens, generatedText)) {
+                break;
+            }
+            // the overhead is an estimate, drop the least relevant snippet and retry
+            packed.remove(packed.size() - 1);
+        } while (true);
+        config.getLogger().debug("Packed " + packed.size() + " of " + candidates.size() + " dependency snippets by relevance");
         return generatedText;
     }
 
+    private ContextIndex getContextIndex() {
+        if (this.contextIndex == null) {
+            this.contextIndex = ContextIndex.getInstance(config.getTmpOutput().resolve(ContextIndex.INDEX_FILE));
+        }
+        return this.contextIndex;
+    }
+
     /**
      * Extract the focal class's dependencies, classes, methods, constructors,
      * and getter information and store them in the {@code datamodel}.
@@ -192,6 +352,7 @@ public class PromptTemplate {
         this.dataModel.put("c_deps", cdep_temp);
         this.dataModel.put("m_deps", mdep_temp);
         this.dataModel.put("full_fm", promptInfo.getContext());
+        this.focalTerms = ContextIndex.tokenize(promptInfo.getMethodSignature() + "\n" + promptInfo.getMethodInfo().sourceCode);
     }
 
     public Map<String, String> getDepBrief(MethodInfo methodInfo) throws IOException {
@@ -199,13 +360,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : methodInfo.dependentMethods.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depBrief;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depBrief;
             }
             String info = "";
             for (String depMethodSig : entry.getValue()) {
@@ -296,13 +453,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : methodInfo.dependentMethods.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depBodies;
             }
             String info = "";
             for (String depMethodSig : entry.getValue()) {
@@ -322,13 +475,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depFields;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depFields;
             }
             depFields.put(depClassName, AbstractRunner.joinLines(depClassInfo.fields));
         }
@@ -339,13 +488,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depFields;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depFields;
             }
             depFields.put(depClassName, AbstractRunner.joinLines(depClassInfo.fields));
         }
@@ -357,13 +502,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depConstructorSigs;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depConstructorSigs;
             }
             depConstructorSigs.put(depClassName, AbstractRunner.joinLines(depClassInfo.constructorBrief));
         }
@@ -374,13 +515,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depConstructorSigs;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depConstructorSigs;
             }
             depConstructorSigs.put(depClassName, AbstractRunner.joinLines(depClassInfo.constructorBrief));
         }
@@ -392,13 +529,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depConstructorBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depConstructorBodies;
             }
 
             String info = "";
@@ -418,13 +551,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depConstructorBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depConstructorBodies;
             }
 
             String info = "";
@@ -448,12 +577,7 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-//                return depClassSigs;
-                continue;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
                 continue;
             }
@@ -466,12 +590,7 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-//                return depClassSigs;
-                continue;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
                 continue;
             }
@@ -485,13 +604,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depClassSigs;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depClassSigs;
             }
             depClassSigs.put(depClassName, depClassInfo);
         }
@@ -502,11 +617,7 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                continue;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
                 continue;
             }
@@ -520,13 +631,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depClassBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depClassBodies;
             }
             depClassBodies.put(depClassName, depClassInfo.classDeclarationCode);
         }
@@ -537,13 +644,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depClassBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depClassBodies;
             }
             depClassBodies.put(depClassName, depClassInfo.classDeclarationCode);
         }
@@ -555,13 +658,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depPackages;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depPackages;
             }
             depPackages.put(depClassName, depClassInfo.packageName);
         }
@@ -572,13 +671,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depPackages;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depPackages;
             }
             depPackages.put(depClassName, depClassInfo.packageName);
         }
@@ -590,13 +685,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depImports;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depImports;
             }
             depImports.put(depClassName, AbstractRunner.joinLines(depClassInfo.imports));
         }
@@ -607,13 +698,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depImports;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depImports;
             }
             depImports.put(depClassName, AbstractRunner.joinLines(depClassInfo.imports));
         }
@@ -625,13 +712,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depGSSigs;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depGSSigs;
             }
             depGSSigs.put(depClassName, AbstractRunner.joinLines(depClassInfo.getterSetterSigs));
         }
@@ -642,13 +725,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depGSSigs;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depGSSigs;
             }
             depGSSigs.put(depClassName, AbstractRunner.joinLines(depClassInfo.getterSetterSigs));
         }
@@ -660,13 +739,9 @@ public class PromptTemplate {
         for (Map.Entry<String, Set<String>> entry : classInfo.constructorDeps.entrySet()) {
             String depClassName = entry.getKey();
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depGSBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depGSBodies;
             }
 
             String info = "";
@@ -686,13 +761,9 @@ public class PromptTemplate {
                 continue;
             }
             String fullDepClassName = Task.getFullClassName(config, depClassName);
-            Path depClassInfoPath = config.getParseOutput().resolve(fullDepClassName.replace(".", File.separator)).resolve("class.json");
-            if (!depClassInfoPath.toFile().exists()) {
-                return depGSBodies;
-            }
-            ClassInfo depClassInfo = GSON.fromJson(Files.readString(depClassInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            ClassInfo depClassInfo = AbstractRunner.getClassInfo(config, fullDepClassName);
             if (depClassInfo == null) {
-                continue;
+                return depGSBodies;
             }
 
             String info = "";
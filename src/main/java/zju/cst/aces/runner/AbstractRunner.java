@@ -10,11 +10,13 @@ import org.junit.platform.launcher.listeners.TestExecutionSummary;
 import zju.cst.aces.api.Task;
 import zju.cst.aces.api.config.Config;
 import zju.cst.aces.dto.*;
+import zju.cst.aces.parser.ClassInfoStore;
 import zju.cst.aces.parser.ClassParser;
 import zju.cst.aces.prompt.PromptGenerator;
 import zju.cst.aces.util.CodeExtractor;
 import zju.cst.aces.util.TestProcessor;
 import zju.cst.aces.util.TokenCounter;
+import zju.cst.aces.util.WeightedCache;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
@@ -33,6 +35,8 @@ public abstract class AbstractRunner {
     public String fullClassName;
     public Config config;
     public PromptGenerator promptGenerator;
+    // parsed class and method infos shared by all runners, missing infos are cached as empty
+    public static final WeightedCache<String, Optional<?>> INFO_CACHE = new WeightedCache<>(64L << 20, WeightedCache::estimateSize);
     // get configuration from Config, and move init() to Config
     public AbstractRunner(Config config, String fullClassname) throws IOException {
         fullClassName = fullClassname;
@@ -278,20 +282,68 @@ public abstract class AbstractRunner {
         }
     }
 
+    /**
+     * Get the parsed class info, the infos are cached in {@link #INFO_CACHE} and must not be modified.
+     */
     public static ClassInfo getClassInfo(Config config, String className) throws IOException {
         try {
             String fullClassName = Task.getFullClassName(config, className);
-            Path classInfoPath = config.getParseOutput().resolve(fullClassName.replace(".", File.separator)).resolve("class.json");
-            if (!classInfoPath.toFile().exists()) {
-                return null;
-            }
-            return GSON.fromJson(Files.readString(classInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
+            String key = config.getParseOutput() + File.pathSeparator + ClassInfoStore.classKey(fullClassName);
+            return (ClassInfo) INFO_CACHE.get(key, k -> {
+                try {
+                    return Optional.ofNullable(loadClassInfo(config, fullClassName));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).orElse(null);
         } catch (InvalidPathException e) {
             return null;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static ClassInfo loadClassInfo(Config config, String fullClassName) throws IOException {
+        ClassInfoStore store = ClassInfoStore.getInstance(config.getParseOutput());
+        if (store != null) {
+            ClassInfo classInfo = store.getClassInfo(fullClassName);
+            if (classInfo != null) {
+                return classInfo;
+            }
+        }
+        Path classInfoPath = config.getParseOutput().resolve(fullClassName.replace(".", File.separator)).resolve("class.json");
+        if (!classInfoPath.toFile().exists()) {
+            return null;
         }
+        return GSON.fromJson(Files.readString(classInfoPath, StandardCharsets.UTF_8), ClassInfo.class);
     }
 
+    /**
+     * Get the parsed method info, the infos are cached in {@link #INFO_CACHE} and must not be modified.
+     */
     public static MethodInfo getMethodInfo(Config config, ClassInfo info, String mSig) throws IOException {
+        String key = config.getParseOutput() + File.pathSeparator + ClassInfoStore.methodKey(ClassInfoStore.fullClassName(info), mSig);
+        try {
+            return (MethodInfo) INFO_CACHE.get(key, k -> {
+                try {
+                    return Optional.ofNullable(loadMethodInfo(config, info, mSig));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).orElse(null);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static MethodInfo loadMethodInfo(Config config, ClassInfo info, String mSig) throws IOException {
+        ClassInfoStore store = ClassInfoStore.getInstance(config.getParseOutput());
+        if (store != null) {
+            MethodInfo methodInfo = store.getMethodInfo(ClassInfoStore.fullClassName(info), mSig);
+            if (methodInfo != null) {
+                return methodInfo;
+            }
+        }
         String packagePath = info.getPackageName()
                 .replace("package ", "")
                 .replace(".", File.separator)
@@ -450,11 +502,16 @@ public abstract class AbstractRunner {
         }
     }
 
-    public static boolean isExceedMaxTokens(int maxPromptTokens, List<ChatMessage> prompt) {
+    public static int countTokens(List<ChatMessage> prompt) {
         int count = 0;
         for (ChatMessage p : prompt) {
             count += TokenCounter.countToken(p.getContent());
         }
+        return count;
+    }
+
+    public static boolean isExceedMaxTokens(int maxPromptTokens, List<ChatMessage> prompt) {
+        int count = countTokens(prompt);
         if (count > maxPromptTokens) {
             return true;
         }
@@ -3,13 +3,12 @@ package zju.cst.aces.runner;
 import zju.cst.aces.dto.ClassInfo;
 import zju.cst.aces.dto.MethodInfo;
 import zju.cst.aces.api.config.Config;
+import zju.cst.aces.parser.ClassInfoStore;
 import zju.cst.aces.util.Counter;
 import zju.cst.aces.util.TestClassMerger;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.*;
@@ -35,11 +34,11 @@ public class ClassRunner extends AbstractRunner {
     public ClassRunner(Config config, String fullClassName) throws IOException {
         super(config, fullClassName);
         infoDir = config.getParseOutput().resolve(fullClassName.replace(".", File.separator)).toFile();
-        if (!infoDir.isDirectory()) {
+        ClassInfoStore store = ClassInfoStore.getInstance(config.getParseOutput());
+        if (!infoDir.isDirectory() && (store == null || !store.contains(ClassInfoStore.classKey(fullClassName)))) {
             config.getLogger().warn("Error: " + fullClassName + " no parsed info found");
         }
-        File classInfoFile = new File(infoDir + File.separator + "class.json");
-        classInfo = GSON.fromJson(Files.readString(classInfoFile.toPath(), StandardCharsets.UTF_8), ClassInfo.class);
+        classInfo = getClassInfo(config, fullClassName);
     }
 
     /**
@@ -25,15 +25,20 @@ public class MethodRunner extends ClassRunner {
         this.methodInfo = methodInfo;
     }
 
+    /**
+     * The prompt information and round-0 prompt are built once by {@link Phase.PromptGeneration#prepare()}
+     * and shared by all {@code TestNumber} attempts.
+     */
     @Override
     public void start() throws IOException {
+        PromptInfo basePromptInfo = new Phase(config).new PromptGeneration(classInfo, methodInfo).prepare();
         if (!config.isStopWhenSuccess() && config.isEnableMultithreading()) {
             ExecutorService executor = Executors.newFixedThreadPool(config.getTestNumber());
             List<Future<String>> futures = new ArrayList<>();
             for (int num = 0; num < config.getTestNumber(); num++) {
                 int finalNum = num;
                 Callable<String> callable = () -> {
-                    startRounds(finalNum);
+                    startRounds(finalNum, basePromptInfo);
                     return "";
                 };
                 Future<String> future = executor.submit(callable);
@@ -53,7 +58,7 @@ public class MethodRunner extends ClassRunner {
             executor.shutdown();
         } else {
             for (int num = 0; num < config.getTestNumber(); num++) {
-                boolean result = startRounds(num);
+                boolean result = startRounds(num, basePromptInfo);
                 if (result && config.isStopWhenSuccess()) {
                     break;
                 }
@@ -70,11 +75,25 @@ public class MethodRunner extends ClassRunner {
      *         {@code false} otherwise.
      */
     public boolean startRounds(final int num) {
+        return startRounds(num, null);
+    }
+
+    /**
+     * Same as {@link #startRounds(int)}, but reuses the prompt information shared by all attempts.
+     * @param num the number of current loops
+     * @param basePromptInfo prompt information built by {@link Phase.PromptGeneration#prepare()},
+     *                       or {@code null} to build it for this attempt
+     * @return {@code true} if the unit test code validation passes;
+     *         {@code false} otherwise.
+     */
+    public boolean startRounds(final int num, PromptInfo basePromptInfo) {
 
         Phase phase = new Phase(config);
 
         // Prompt Construction Phase
-        PromptConstructorImpl pc = phase.new PromptGeneration(classInfo, methodInfo).execute(num);
+        Phase.PromptGeneration promptGeneration = phase.new PromptGeneration(classInfo, methodInfo);
+        PromptConstructorImpl pc = basePromptInfo == null ?
+                promptGeneration.execute(num) : promptGeneration.execute(num, basePromptInfo);
         PromptInfo promptInfo = pc.getPromptInfo();
         promptInfo.setRound(0);
 
@@ -6,6 +6,7 @@ import com.google.gson.JsonParseException;
 import zju.cst.aces.api.config.Config;
 import zju.cst.aces.dto.ClassInfo;
 import zju.cst.aces.dto.MethodInfo;
+import zju.cst.aces.parser.ClassInfoStore;
 import zju.cst.aces.parser.ClassParser;
 import zju.cst.aces.parser.ProjectParser;
 import zju.cst.aces.runner.MethodRunner;
@@ -65,16 +66,7 @@ public class Counter {
 
     public static Map<String, List<String>> countClassMethod(Path parseOutputPath) throws IOException {
         Map<String, List<String>> testMap = new HashMap<>();
-        // get all json files names "class.json"
-        List<String> classJsonFiles = Files.walk(parseOutputPath)
-                .filter(Files::isRegularFile)
-                .map(Path::toString)
-                .filter(f -> f.endsWith("class.json"))
-                .collect(Collectors.toList());
-
-        for (String classJsonFile : classJsonFiles) {
-            File classInfoFile = new File(classJsonFile);
-            ClassInfo classInfo = GSON.fromJson(Files.readString(classInfoFile.toPath(), StandardCharsets.UTF_8), ClassInfo.class);
+        for (ClassInfo classInfo : loadClassInfos(parseOutputPath)) {
 
             if (!filter(classInfo)) {
                 continue;
@@ -109,16 +101,7 @@ public class Counter {
     public static void countClassMethod(Path parseOutputPath, String outputCsvPath) throws IOException {
         Map<String, List<String>> testMap = new HashMap<>();
 
-        // get all json files names "class.json"
-        List<String> classJsonFiles = Files.walk(parseOutputPath)
-                .filter(Files::isRegularFile)
-                .map(Path::toString)
-                .filter(f -> f.endsWith("class.json"))
-                .collect(Collectors.toList());
-
-        for (String classJsonFile : classJsonFiles) {
-            File classInfoFile = new File(classJsonFile);
-            ClassInfo classInfo = GSON.fromJson(Files.readString(classInfoFile.toPath(), StandardCharsets.UTF_8), ClassInfo.class);
+        for (ClassInfo classInfo : loadClassInfos(parseOutputPath)) {
 
             if (!filter(classInfo)) {
                 continue;
@@ -160,16 +143,7 @@ public class Counter {
     public static int countMethod(Path tmpOutputPath) throws IOException {
         Path parseOutputPath = tmpOutputPath.resolve("class-info");
         Map<String, List<String>> testMap = new HashMap<>();
-        // get all json files names "class.json"
-        List<String> classJsonFiles = Files.walk(parseOutputPath)
-                .filter(Files::isRegularFile)
-                .map(Path::toString)
-                .filter(f -> f.endsWith("class.json"))
-                .collect(Collectors.toList());
-
-        for (String classJsonFile : classJsonFiles) {
-            File classInfoFile = new File(classJsonFile);
-            ClassInfo classInfo = GSON.fromJson(Files.readString(classInfoFile.toPath(), StandardCharsets.UTF_8), ClassInfo.class);
+        for (ClassInfo classInfo : loadClassInfos(parseOutputPath)) {
 
             if (!filter(classInfo)) {
                 continue;
@@ -188,7 +162,44 @@ public class Counter {
         return testMap.values().stream().mapToInt(List::size).sum();
     }
 
+    /**
+     * Load the parsed class infos from the class info store, or from the "class.json" files of older parse outputs.
+     */
+    public static List<ClassInfo> loadClassInfos(Path parseOutputPath) throws IOException {
+        List<ClassInfo> classInfos = new ArrayList<>();
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutputPath);
+        if (store != null) {
+            for (String fullClassName : store.getClassNames()) {
+                ClassInfo classInfo = store.getClassInfo(fullClassName, "fullClassName", "className", "packageName",
+                        "isPublic", "isAbstract", "isInterface", "methodSigs");
+                if (classInfo.fullClassName == null) {
+                    classInfo.fullClassName = fullClassName;
+                }
+                classInfos.add(classInfo);
+            }
+            return classInfos;
+        }
+        // get all json files names "class.json"
+        List<String> classJsonFiles = Files.walk(parseOutputPath)
+                .filter(Files::isRegularFile)
+                .map(Path::toString)
+                .filter(f -> f.endsWith("class.json"))
+                .collect(Collectors.toList());
+        for (String classJsonFile : classJsonFiles) {
+            File classInfoFile = new File(classJsonFile);
+            classInfos.add(GSON.fromJson(Files.readString(classInfoFile.toPath(), StandardCharsets.UTF_8), ClassInfo.class));
+        }
+        return classInfos;
+    }
+
     public static MethodInfo getMethodInfo(Path parseOutputPath, ClassInfo info, String mSig) throws IOException {
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutputPath);
+        if (store != null) {
+            MethodInfo methodInfo = store.getMethodInfo(ClassInfoStore.fullClassName(info), mSig);
+            if (methodInfo != null) {
+                return methodInfo;
+            }
+        }
         String packagePath = info.getPackageName()
                 .replace("package ", "")
                 .replace(".", File.separator)
@@ -8,7 +8,7 @@ import com.github.javaparser.ast.expr.*;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import zju.cst.aces.api.config.Config;
-import zju.cst.aces.parser.ProjectParser;
+import zju.cst.aces.parser.SourceFileIndex;
 import zju.cst.aces.runner.AbstractRunner;
 
 import java.io.File;
@@ -101,14 +101,16 @@ public class TestClassMerger {
     }
 
     private void deleteRepeatTestFile(List<String> classNameToDel) {
-        List<String> classPaths = ProjectParser.scanSourceDirectory(config.getProject());
-        classPaths.forEach(classPath -> {
-            String className = classPath.substring(classPath.lastIndexOf(File.separator) + 1, classPath.lastIndexOf("."));
-            if(classNameToDel.contains(className)) {
-                File classFile = new File(classPath);
-                classFile.delete();
+        SourceFileIndex index = SourceFileIndex.getInstance(config.getProject());
+        boolean deleted = false;
+        for (String className : classNameToDel) {
+            for (String classPath : index.getPathsByClassName(className)) {
+                deleted |= new File(classPath).delete();
             }
-        });
+        }
+        if (deleted) {
+            SourceFileIndex.refresh(config.getProject());
+        }
     }
 
     public boolean export(String code) {
@@ -2,13 +2,21 @@ package zju.cst.aces.util;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseResult;
+import com.github.javaparser.Position;
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
 import org.junit.platform.launcher.listeners.TestExecutionSummary;
 import zju.cst.aces.dto.PromptInfo;
+import zju.cst.aces.dto.TestMessage;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -19,6 +27,8 @@ import java.util.stream.Collectors;
 //TODO: remove correct test case in the repair prompt.
 public class TestProcessor {
     private static final JavaParser parser = new JavaParser();
+    private static final Pattern ERROR_LINE = Pattern.compile(": line (-?\\d+) : ");
+    private static final String PATCH_CLASS_NAME = "PatchedMethods";
     private String fullTestName;
 
     public TestProcessor(String fullTestName) {
@@ -123,4 +133,197 @@ public class TestProcessor {
         promptInfo.setUnitTest(result);
         return result;
     }
+
+    /**
+     * Locate the error messages in the methods of the unit test, compilation errors by their line numbers
+     * and runtime errors by the name of the failed test case.
+     * The line numbers of the located compilation errors are made relative to the first line of the method.
+     * @param unitTest the unit test that produced the errors
+     * @param errorMsg the error messages
+     * @return method name → located error messages, or {@code null} if an error is not located in a method
+     */
+    public Map<String, List<String>> locateErrors(String unitTest, TestMessage errorMsg) {
+        if (errorMsg == null || errorMsg.getErrorMessage() == null || errorMsg.getErrorMessage().isEmpty()) {
+            return null;
+        }
+        try {
+            CompilationUnit cu = parser.parse(unitTest).getResult().orElseThrow();
+            List<MethodDeclaration> methods = cu.findAll(MethodDeclaration.class); // outer methods come first
+            Map<String, List<String>> located = new LinkedHashMap<>();
+            for (String error : errorMsg.getErrorMessage()) {
+                MethodDeclaration target = null;
+                String relocated = error;
+                Matcher matcher = ERROR_LINE.matcher(error);
+                if (errorMsg.getErrorType() == TestMessage.ErrorType.COMPILE_ERROR) {
+                    if (matcher.find()) {
+                        int line = Integer.parseInt(matcher.group(1));
+                        target = methods.stream().filter(m -> m.getBegin().isPresent() && m.getEnd().isPresent()
+                                && line >= m.getBegin().get().line && line <= m.getEnd().get().line).findFirst().orElse(null);
+                        if (target != null) {
+                            relocated = "Error in " + target.getNameAsString() + ": line "
+                                    + (line - target.getBegin().get().line + 1) + " : " + error.substring(matcher.end());
+                        }
+                    }
+                } else {
+                    target = methods.stream().filter(m -> error.startsWith("Error in " + m.getNameAsString() + "("))
+                            .findFirst().orElse(null);
+                    // the line numbers point to the test before the correct methods were removed
+                    relocated = matcher.find() ? error.substring(0, matcher.start()) + " : " + error.substring(matcher.end()) : error;
+                }
+                if (target == null) {
+                    return null;
+                }
+                List<String> errors = located.computeIfAbsent(target.getNameAsString(), k -> new ArrayList<>());
+                if (!errors.contains(relocated)) {
+                    errors.add(relocated);
+                }
+            }
+            return located;
+        } catch (Exception e) {
+            System.out.println("In TestProcessor.locateErrors: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Extract the source code of the methods with the given names, as they are written in the unit test.
+     */
+    public String extractMethods(String unitTest, Collection<String> methodNames) {
+        CompilationUnit cu = parser.parse(unitTest).getResult().orElseThrow();
+        String[] lines = unitTest.split("\\r?\\n", -1);
+        List<String> sources = new ArrayList<>();
+        for (MethodDeclaration method : cu.findAll(MethodDeclaration.class)) {
+            if (!methodNames.contains(method.getNameAsString()) || !method.getBegin().isPresent() || !method.getEnd().isPresent()
+                    || method.findAncestor(MethodDeclaration.class).isPresent()) {
+                continue;
+            }
+            sources.add(String.join("\n", Arrays.asList(lines).subList(method.getBegin().get().line - 1, method.getEnd().get().line)));
+        }
+        return String.join("\n\n", sources);
+    }
+
+    /**
+     * Splice the fixed methods into the retained unit test: methods with the same name and number of
+     * parameters are replaced, new methods, fields and imports are added.
+     * The retained test is edited as text, so the untouched code keeps its exact formatting.
+     * @param retainedTest the unit test that was repaired
+     * @param patch the fixed methods, either a test class or only its methods
+     * @return the spliced unit test, or {@code null} if the patch has no methods
+     */
+    public String spliceMethods(String retainedTest, String patch) {
+        try {
+            CompilationUnit cu = parser.parse(retainedTest).getResult().orElseThrow();
+            TypeDeclaration<?> testClass = cu.getTypes().stream()
+                    .filter(t -> !t.getMethods().isEmpty()).findFirst().orElseThrow();
+
+            String patchSource = patch;
+            ParseResult<CompilationUnit> patchResult = parser.parse(patchSource);
+            if (!patchResult.isSuccessful() || !patchResult.getResult().isPresent()
+                    || patchResult.getResult().get().getTypes().isEmpty()) {
+                StringBuilder header = new StringBuilder();
+                StringBuilder body = new StringBuilder();
+                for (String line : patch.split("\\r?\\n")) {
+                    String trimmed = line.trim();
+                    (trimmed.startsWith("import ") || trimmed.startsWith("package ") ? header : body).append(line).append("\n");
+                }
+                patchSource = header + "class " + PATCH_CLASS_NAME + " {\n" + body + "\n}";
+                patchResult = parser.parse(patchSource);
+            }
+            CompilationUnit patchCu = patchResult.getResult().orElseThrow();
+            List<BodyDeclaration<?>> members = new ArrayList<>();
+            patchCu.getTypes().forEach(t -> members.addAll(t.getMembers()));
+            if (members.stream().noneMatch(BodyDeclaration::isMethodDeclaration)) {
+                return null;
+            }
+
+            int[] lineOffsets = lineOffsets(retainedTest);
+            int[] patchLineOffsets = lineOffsets(patchSource);
+            // offset in the retained test → text to put there, and the offset where the replaced text ends
+            TreeMap<Integer, Map.Entry<Integer, String>> edits = new TreeMap<>();
+            int classEnd = offset(lineOffsets, testClass.getEnd().orElseThrow());
+            StringBuilder added = new StringBuilder();
+            for (BodyDeclaration<?> member : members) {
+                String source = sourceOf(patchSource, patchLineOffsets, member);
+                if (member.isMethodDeclaration()) {
+                    MethodDeclaration method = member.asMethodDeclaration();
+                    Optional<MethodDeclaration> retained = testClass.getMethodsByName(method.getNameAsString()).stream()
+                            .filter(m -> m.getParameters().size() == method.getParameters().size()).findFirst();
+                    if (retained.isPresent()) {
+                        int begin = offset(lineOffsets, retained.get().getBegin().orElseThrow());
+                        int end = offset(lineOffsets, retained.get().getEnd().orElseThrow()) + 1;
+                        edits.put(begin, new AbstractMap.SimpleEntry<>(end, source));
+                    } else {
+                        added.append("\n").append(indentationOf(patchSource, patchLineOffsets, member)).append(source).append("\n");
+                    }
+                } else if (member.isFieldDeclaration()) {
+                    FieldDeclaration field = member.asFieldDeclaration();
+                    boolean exists = field.getVariables().stream()
+                            .anyMatch(v -> testClass.getFieldByName(v.getNameAsString()).isPresent());
+                    if (!exists) {
+                        added.append(indentationOf(patchSource, patchLineOffsets, member)).append(source).append("\n");
+                    }
+                }
+            }
+            if (added.length() > 0) {
+                edits.put(classEnd, new AbstractMap.SimpleEntry<>(classEnd, added.toString()));
+            }
+            StringBuilder imports = new StringBuilder();
+            for (ImportDeclaration importDeclaration : patchCu.getImports()) {
+                if (!cu.getImports().contains(importDeclaration)) {
+                    imports.append(importDeclaration.toString().trim()).append("\n");
+                }
+            }
+            if (imports.length() > 0) {
+                int importsAt = 0;
+                if (!cu.getImports().isEmpty()) {
+                    importsAt = offset(lineOffsets, cu.getImports().getLast().orElseThrow().getEnd().orElseThrow()) + 1;
+                } else if (cu.getPackageDeclaration().isPresent()) {
+                    importsAt = offset(lineOffsets, cu.getPackageDeclaration().get().getEnd().orElseThrow()) + 1;
+                }
+                String text = importsAt == 0 ? imports.toString() : "\n" + imports.substring(0, imports.length() - 1);
+                edits.put(importsAt, new AbstractMap.SimpleEntry<>(importsAt, text));
+            }
+
+            StringBuilder result = new StringBuilder(retainedTest);
+            for (Map.Entry<Integer, Map.Entry<Integer, String>> edit : edits.descendingMap().entrySet()) {
+                result.replace(edit.getKey(), edit.getValue().getKey(), edit.getValue().getValue());
+            }
+            return result.toString();
+        } catch (Exception e) {
+            System.out.println("In TestProcessor.spliceMethods: " + e);
+            return null;
+        }
+    }
+
+    /**
+     * The offset of the first character of each line in the text.
+     */
+    private static int[] lineOffsets(String text) {
+        List<Integer> offsets = new ArrayList<>();
+        offsets.add(0);
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                offsets.add(i + 1);
+            }
+        }
+        return offsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int offset(int[] lineOffsets, Position position) {
+        return lineOffsets[position.line - 1] + position.column - 1;
+    }
+
+    private static String sourceOf(String text, int[] lineOffsets, Node node) {
+        return text.substring(offset(lineOffsets, node.getBegin().orElseThrow()),
+                offset(lineOffsets, node.getEnd().orElseThrow()) + 1);
+    }
+
+    /**
+     * The whitespace before the node in its first line.
+     */
+    private static String indentationOf(String text, int[] lineOffsets, Node node) {
+        Position begin = node.getBegin().orElseThrow();
+        String before = text.substring(lineOffsets[begin.line - 1], offset(lineOffsets, begin));
+        return before.isBlank() ? before : "    ";
+    }
 }
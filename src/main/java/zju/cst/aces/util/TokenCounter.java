@@ -2,7 +2,6 @@ package zju.cst.aces.util;
 
 import com.knuddels.jtokkit.Encodings;
 import com.knuddels.jtokkit.api.Encoding;
-import com.knuddels.jtokkit.api.EncodingRegistry;
 import com.knuddels.jtokkit.api.ModelType;
 
 /**
@@ -14,14 +13,13 @@ import com.knuddels.jtokkit.api.ModelType;
  */
 public class TokenCounter {
 
+    // the encoding is immutable and thread-safe, create it once instead of per call
+    private static final Encoding ENCODING = Encodings.newDefaultEncodingRegistry().getEncodingForModel(ModelType.GPT_3_5_TURBO);
+
     public TokenCounter() {
     }
 
     public static int countToken(String error_message){
-        EncodingRegistry registry = Encodings.newDefaultEncodingRegistry();
-        // Get encoding for a specific model via string name
-        Encoding encoding = registry.getEncodingForModel(ModelType.GPT_3_5_TURBO);
-        int tokenCount = encoding.countTokens(error_message);
-        return tokenCount;
+        return ENCODING.countTokens(error_message);
     }
 }
@@ -0,0 +1,229 @@
+package zju.cst.aces.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread-safe, size-weighted cache with a segmented LRU policy.
+ *
+ * <P>
+ * New entries go to the probation segment and are promoted to the protected segment on their second hit,
+ * so the dependency classes used by many prompts stay cached while one-off lookups are evicted first.
+ * Cached values are shared between threads and must not be modified.
+ * </P>
+ */
+public class WeightedCache<K, V> {
+
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final long maxWeight;
+    private final long maxProtectedWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Entry<V>> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private long probationWeight = 0;
+    private long protectedWeight = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class Entry<V> {
+        final V value;
+        final long weight;
+
+        Entry(V value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * @param maxWeight the maximum total weight of the cached values
+     * @param weigher the weight of a value, e.g. its estimated size in bytes
+     */
+    public WeightedCache(long maxWeight, ToLongFunction<V> weigher) {
+        this.maxWeight = maxWeight;
+        this.maxProtectedWeight = (long) (maxWeight * PROTECTED_RATIO);
+        this.weigher = weigher;
+    }
+
+    /**
+     * Get the cached value, or load and cache it. The loader is called without holding the lock,
+     * so concurrent misses of the same key may load it more than once.
+     * @param key the key
+     * @param loader loads the value on a miss, {@code null} values are not cached
+     * @return the value
+     */
+    public V get(K key, Function<K, V> loader) {
+        V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+
+    public synchronized V getIfPresent(K key) {
+        Entry<V> entry = protectedSegment.get(key);
+        if (entry == null) {
+            entry = probation.remove(key);
+            if (entry != null) { // second hit, promote
+                probationWeight -= entry.weight;
+                protectedSegment.put(key, entry);
+                protectedWeight += entry.weight;
+                demoteProtected();
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long weight = Math.max(1, weigher.applyAsLong(value));
+        if (weight > maxWeight) {
+            return;
+        }
+        remove(key);
+        probation.put(key, new Entry<>(value, weight));
+        probationWeight += weight;
+        evict();
+    }
+
+    public synchronized void remove(K key) {
+        Entry<V> entry = probation.remove(key);
+        if (entry != null) {
+            probationWeight -= entry.weight;
+        }
+        entry = protectedSegment.remove(key);
+        if (entry != null) {
+            protectedWeight -= entry.weight;
+        }
+    }
+
+    public synchronized void clear() {
+        probation.clear();
+        protectedSegment.clear();
+        probationWeight = 0;
+        protectedWeight = 0;
+    }
+
+    /**
+     * Move the least recently used protected entries back to probation.
+     */
+    private void demoteProtected() {
+        Iterator<Map.Entry<K, Entry<V>>> it = protectedSegment.entrySet().iterator();
+        while (protectedWeight > maxProtectedWeight && it.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = it.next();
+            it.remove();
+            protectedWeight -= eldest.getValue().weight;
+            probation.put(eldest.getKey(), eldest.getValue());
+            probationWeight += eldest.getValue().weight;
+        }
+        evict();
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<K, Entry<V>>> it = probation.entrySet().iterator();
+        while (probationWeight + protectedWeight > maxWeight && it.hasNext()) {
+            probationWeight -= it.next().getValue().weight;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+        it = protectedSegment.entrySet().iterator();
+        while (probationWeight + protectedWeight > maxWeight && it.hasNext()) {
+            protectedWeight -= it.next().getValue().weight;
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public synchronized long getWeight() {
+        return probationWeight + protectedWeight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    public synchronized int size() {
+        return probation.size() + protectedSegment.size();
+    }
+
+    public String stats() {
+        long requests = getHitCount() + getMissCount();
+        return String.format("hits: %d, misses: %d, hit rate: %.2f%%, evictions: %d, entries: %d, weight: %d / %d",
+                getHitCount(), getMissCount(), requests == 0 ? 0.0 : 100.0 * getHitCount() / requests,
+                getEvictionCount(), size(), getWeight(), maxWeight);
+    }
+
+    /**
+     * Estimate the size in bytes of a DTO by its strings, collections and maps.
+     */
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 8;
+        }
+        if (value instanceof String) {
+            return 40 + 2L * ((String) value).length();
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return 16;
+        }
+        if (value instanceof Optional) {
+            return 16 + estimateSize(((Optional<?>) value).orElse(null));
+        }
+        if (value instanceof Collection) {
+            long size = 32;
+            for (Object element : (Collection<?>) value) {
+                size += 8 + estimateSize(element);
+            }
+            return size;
+        }
+        if (value instanceof Map) {
+            long size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                size += 32 + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+            return size;
+        }
+        long size = 16;
+        for (Field field : value.getClass().getFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            try {
+                size += field.getType().isPrimitive() ? 8 : 8 + estimateSize(field.get(value));
+            } catch (IllegalAccessException e) {
+                size += 8;
+            }
+        }
+        return size;
+    }
+}
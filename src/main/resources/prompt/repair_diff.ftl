@@ -0,0 +1,24 @@
+I need you to fix errors in some methods of a unit test, the errors occurred while compiling and executing
+
+The methods with errors are:
+```
+${unit_test}
+```
+
+The error chatMessage is (the line numbers count from the first line of each method):
+```
+${error_message}
+```
+
+The unit test is testing the method `${method_sig}` in the class `${class_name}`,
+the source code of the method under test and its class is:
+```
+${full_fm}
+```
+<#if other_method_sigs?has_content>
+```
+The signatures of other methods in its class are `${other_method_sigs}`
+```
+</#if>
+
+Please fix the errors and return only the fixed methods with their original names, the other methods, fields and imports of the unit test are kept as they are. You can use Junit 5, Mockito 3 and reflection. No explanation is needed.
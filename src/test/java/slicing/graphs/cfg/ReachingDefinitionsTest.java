@@ -0,0 +1,159 @@
+package slicing.graphs.cfg;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.Test;
+import slicing.graphs.ClassGraph;
+import slicing.graphs.augmented.ACFG;
+import slicing.graphs.exceptionsensitive.ESCFG;
+import slicing.graphs.jsysdg.JSysCFG;
+import slicing.nodes.GraphNode;
+import slicing.nodes.VariableAction;
+import slicing.utils.TestSources;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ReachingDefinitionsTest {
+
+    public static final String FIXTURES = "package fixture;\n\n" +
+            "public class Flows {\n" +
+            "    static class Point {\n" +
+            "        int x;\n" +
+            "        int y;\n" +
+            "        Point next;\n" +
+            "    }\n" +
+            "    int total;\n" +
+            "    int optional(int a, boolean b) {\n" +
+            "        int x = 0;\n" +
+            "        int y;\n" +
+            "        if (b && (x = a) > 1)\n" +
+            "            y = x;\n" +
+            "        else\n" +
+            "            y = b ? (x = 2) : (x = 3);\n" +
+            "        return x + y;\n" +
+            "    }\n" +
+            "    int loops(int n) {\n" +
+            "        int i = 0, sum = 0;\n" +
+            "        while (i < n) {\n" +
+            "            sum = sum + i;\n" +
+            "            i++;\n" +
+            "            total += i;\n" +
+            "        }\n" +
+            "        for (int j = sum; j > 0; j -= 2)\n" +
+            "            sum += j;\n" +
+            "        do n--; while (n > sum);\n" +
+            "        return sum + n + total;\n" +
+            "    }\n" +
+            "    int objects(Point p, boolean b) {\n" +
+            "        Point q = new Point();\n" +
+            "        q.x = p.x;\n" +
+            "        if (b) {\n" +
+            "            q = p;\n" +
+            "            q.y = 1;\n" +
+            "        } else {\n" +
+            "            q.next = new Point();\n" +
+            "        }\n" +
+            "        q.next.x = q.y;\n" +
+            "        return q.x + q.next.x;\n" +
+            "    }\n" +
+            "    int exceptions(String s) {\n" +
+            "        int n = -1;\n" +
+            "        try {\n" +
+            "            n = Integer.parseInt(s);\n" +
+            "        } catch (NumberFormatException e) {\n" +
+            "            n = 0;\n" +
+            "        } finally {\n" +
+            "            n++;\n" +
+            "        }\n" +
+            "        return n;\n" +
+            "    }\n" +
+            "}\n";
+
+    /** Every action of each variant of the CFG is reached by the same definitions and declarations
+     *  as found by the backward search of the CFG. */
+    @Test
+    public void reachingActionsMatchTheBackwardSearch() {
+        NodeList<CompilationUnit> cus = TestSources.parse(FIXTURES);
+        ClassGraph classGraph = new ClassGraph();
+        classGraph.build(cus);
+        classGraph.withCurrent(() -> {
+            int reachingCount = 0;
+            for (MethodDeclaration method : cus.get(0).findAll(MethodDeclaration.class)) {
+                String name = method.getNameAsString();
+                reachingCount += assertSameAsBackwardSearch(name + " CFG", build(CFG::new, method));
+                reachingCount += assertSameAsBackwardSearch(name + " ACFG", build(ACFG::new, method));
+                reachingCount += assertSameAsBackwardSearch(name + " ESCFG", build(ESCFG::new, method));
+                JSysCFG jSysCFG = new JSysCFG();
+                jSysCFG.build(method, Set.of(), classGraph);
+                reachingCount += assertSameAsBackwardSearch(name + " JSysCFG", jSysCFG);
+            }
+            assertTrue(reachingCount > 0);
+        });
+    }
+
+    /** The fixtures contain the cases in which the analysis differs from a textbook one. */
+    @Test
+    public void fixturesCoverTheSpecialCases() {
+        NodeList<CompilationUnit> cus = TestSources.parse(FIXTURES);
+        ClassGraph classGraph = new ClassGraph();
+        classGraph.build(cus);
+        List<VariableAction> actions = new ArrayList<>();
+        classGraph.withCurrent(() -> {
+            for (MethodDeclaration method : cus.get(0).findAll(MethodDeclaration.class)) {
+                JSysCFG jSysCFG = new JSysCFG();
+                jSysCFG.build(method, Set.of(), classGraph);
+                jSysCFG.vertexSet().forEach(node -> actions.addAll(node.getVariableActions()));
+            }
+        });
+        assertTrue(actions.stream().anyMatch(action -> action.isDefinition() && action.isOptional()));
+        assertTrue(actions.stream().anyMatch(action -> action.isDefinition() && action.hasObjectTree()));
+        // a node that defines a variable it uses, inside a loop: the definition only reaches it through the loop
+        assertTrue(actions.stream().anyMatch(action -> action.isUsage() && action.getGraphNode().getVariableActions().stream()
+                .anyMatch(other -> other.isDefinition() && other.getName().equals(action.getName()))));
+    }
+
+    private static CFG build(Supplier<CFG> constructor, MethodDeclaration method) {
+        CFG cfg = constructor.get();
+        cfg.build(method);
+        return cfg;
+    }
+
+    /** @return the number of reaching actions found. */
+    private static int assertSameAsBackwardSearch(String variant, CFG cfg) {
+        ReachingDefinitions definitions = new ReachingDefinitions(cfg, VariableAction::isDefinition);
+        ReachingDefinitions declarations = new ReachingDefinitions(cfg, VariableAction::isDeclaration);
+        int reachingCount = 0;
+        for (GraphNode<?> node : cfg.vertexSet()) {
+            for (VariableAction action : node.getVariableActions()) {
+                String query = variant + ": " + describe(action);
+                Set<String> lastDefinitions = describe(definitions.findLastActionsFrom(action));
+                assertEquals(query, describe(cfg.findLastDefinitionsFrom(action)), lastDefinitions);
+                Set<String> lastDeclarations = describe(declarations.findLastActionsFrom(action));
+                assertEquals(query, describe(cfg.findDeclarationFor(action).map(List::of).orElse(List.of())),
+                        lastDeclarations);
+                reachingCount += lastDefinitions.size() + lastDeclarations.size();
+            }
+        }
+        return reachingCount;
+    }
+
+    private static Set<String> describe(List<VariableAction> actions) {
+        Set<String> descriptions = new TreeSet<>();
+        for (VariableAction action : actions)
+            descriptions.add(describe(action));
+        return descriptions;
+    }
+
+    /** An action by its node and its position in the node, as actions are equal by name. */
+    private static String describe(VariableAction action) {
+        List<VariableAction> nodeActions = action.getGraphNode().getVariableActions();
+        int position = 0;
+        while (position < nodeActions.size() && nodeActions.get(position) != action)
+            position++;
+        return action.getGraphNode().getId() + "#" + position + " " + action;
+    }
+}
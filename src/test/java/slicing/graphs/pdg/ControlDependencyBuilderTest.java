@@ -0,0 +1,218 @@
+package slicing.graphs.pdg;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.Test;
+import slicing.arcs.Arc;
+import slicing.arcs.cfg.ControlFlowArc;
+import slicing.graphs.ClassGraph;
+import slicing.graphs.augmented.ACFG;
+import slicing.graphs.augmented.PPControlDependencyBuilder;
+import slicing.graphs.augmented.PPDG;
+import slicing.graphs.cfg.CFG;
+import slicing.graphs.exceptionsensitive.ESCFG;
+import slicing.graphs.jsysdg.JSysCFG;
+import slicing.nodes.GraphNode;
+import slicing.utils.TestSources;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class ControlDependencyBuilderTest {
+
+    public static final String FIXTURES = "package fixture;\n\n" +
+            "public class Fixtures {\n" +
+            "    int fallThrough(int x) {\n" +
+            "        int y = 0;\n" +
+            "        switch (x) {\n" +
+            "            case 0: y++;\n" +
+            "            case 1: y += 2; break;\n" +
+            "            case 2: return -1;\n" +
+            "            default: y = 3;\n" +
+            "        }\n" +
+            "        return y;\n" +
+            "    }\n" +
+            "    int tryCatch(String s) {\n" +
+            "        int n = 0;\n" +
+            "        try {\n" +
+            "            n = Integer.parseInt(s);\n" +
+            "            if (n < 0) throw new IllegalArgumentException(s);\n" +
+            "        } catch (NumberFormatException e) {\n" +
+            "            n = -1;\n" +
+            "        } finally {\n" +
+            "            n++;\n" +
+            "        }\n" +
+            "        return n;\n" +
+            "    }\n" +
+            "    int jumps(int[] values) {\n" +
+            "        int sum = 0;\n" +
+            "        outer:\n" +
+            "        for (int i = 0; i < values.length; i++) {\n" +
+            "            for (int j = i; j < values.length; j++) {\n" +
+            "                if (values[j] < 0) continue outer;\n" +
+            "                if (values[j] == 0) break outer;\n" +
+            "                if (values[j] > 100) break;\n" +
+            "                sum += values[j];\n" +
+            "            }\n" +
+            "        }\n" +
+            "        return sum;\n" +
+            "    }\n" +
+            "    void endless(int x) {\n" +
+            "        while (x > 0) x--;\n" +
+            "        while (true) {\n" +
+            "            if (x == 10) x = 0;\n" +
+            "            x++;\n" +
+            "        }\n" +
+            "    }\n" +
+            "    // the exit of the loop is removed from the CFG\n" +
+            "    void spin(int x) {\n" +
+            "        if (x < 0)\n" +
+            "            for (;;)\n" +
+            "                x++;\n" +
+            "        x--;\n" +
+            "    }\n" +
+            "    int endlessUntilReturn(int x) {\n" +
+            "        do {\n" +
+            "            if (x > 10) return x;\n" +
+            "            x *= 2;\n" +
+            "        } while (true);\n" +
+            "    }\n" +
+            "    int returns(int x) {\n" +
+            "        if (x < 0) return -1;\n" +
+            "        else if (x == 0) return 0;\n" +
+            "        for (int i = 0; i < x; i++)\n" +
+            "            if (i * i == x) return i;\n" +
+            "        return x;\n" +
+            "    }\n" +
+            "}\n";
+
+    /** Each variant of the CFG, with the plain and (for the augmented ones) the pseudo-predicate builder,
+     *  finds the same control dependencies in the same order as the path search, and gives the same
+     *  answer to every post-dominance query. */
+    @Test
+    public void controlDependenciesMatchThePathSearch() {
+        NodeList<CompilationUnit> cus = TestSources.parse(FIXTURES);
+        ClassGraph classGraph = new ClassGraph();
+        classGraph.build(cus);
+        classGraph.withCurrent(() -> {
+            int arcCount = 0;
+            for (MethodDeclaration method : cus.get(0).findAll(MethodDeclaration.class)) {
+                String name = method.getNameAsString();
+                arcCount += assertSameAsPathSearch(name + " CFG", build(CFG::new, method), false);
+                for (boolean pp : List.of(false, true)) {
+                    arcCount += assertSameAsPathSearch(name + " ACFG " + pp, build(ACFG::new, method), pp);
+                    arcCount += assertSameAsPathSearch(name + " ESCFG " + pp, build(ESCFG::new, method), pp);
+                    JSysCFG jSysCFG = new JSysCFG();
+                    jSysCFG.build(method, Set.of(), classGraph);
+                    arcCount += assertSameAsPathSearch(name + " JSysCFG " + pp, jSysCFG, pp);
+                }
+            }
+            assertTrue(arcCount > 0);
+        });
+    }
+
+    private static CFG build(Supplier<CFG> constructor, MethodDeclaration method) {
+        CFG cfg = constructor.get();
+        cfg.build(method);
+        return cfg;
+    }
+
+    /** @return the number of control dependencies found. */
+    private static int assertSameAsPathSearch(String variant, CFG cfg, boolean pp) {
+        if (variant.startsWith("spin"))
+            removeLoopExit(cfg);
+        PDG pdg = pp ? new PPDG((ACFG) cfg) : new PDG(cfg);
+        cfg.vertexSet().forEach(pdg::addVertex);
+        ControlDependencyBuilder builder = pp ?
+                new PPControlDependencyBuilder((ACFG) cfg, (PPDG) pdg) :
+                new ControlDependencyBuilder(cfg, pdg);
+        builder.build();
+        List<String> arcs = new ArrayList<>();
+        for (Arc arc : pdg.edgeSet())
+            arcs.add(pdg.getEdgeSource(arc).getId() + " -> " + pdg.getEdgeTarget(arc).getId());
+
+        PathSearch reference = new PathSearch(cfg, pp);
+        assertEquals(variant, reference.controlDependencies(pdg.vertexSet()), arcs);
+        for (GraphNode<?> a : cfg.vertexSet())
+            for (GraphNode<?> b : cfg.vertexSet())
+                assertEquals(variant + ": " + a.getId() + " post-dominated by " + b.getId(),
+                        reference.postDominates(a, b), builder.postDominates(a, b));
+        return arcs.size();
+    }
+
+    /** Removes the arc that leaves the {@code for (;;)} loop, as a builder that folds constant conditions
+     *  would, so that the nodes of the loop cannot reach the Exit node. */
+    private static void removeLoopExit(CFG cfg) {
+        List<Arc> loopExits = new ArrayList<>();
+        for (GraphNode<?> node : cfg.vertexSet())
+            if (node.getLabel().equals("for (;true;)"))
+                for (Arc arc : cfg.outgoingEdgesOf(node))
+                    if (cfg.getEdgeTarget(arc).getLabel().equals("x--;"))
+                        loopExits.add(arc);
+        assertEquals(1, loopExits.size());
+        cfg.removeEdge(loopExits.get(0));
+    }
+
+    /** The previous implementation of the builder, which tests every pair of nodes with a path search. */
+    private static class PathSearch {
+        private final CFG cfg;
+        /** Whether only executable arcs are traversed, as in a PPDG. */
+        private final boolean pp;
+
+        PathSearch(CFG cfg, boolean pp) {
+            this.cfg = cfg;
+            this.pp = pp;
+        }
+
+        List<String> controlDependencies(Set<GraphNode<?>> nodes) {
+            Arc enterExitArc = null;
+            if (!cfg.containsEdge(cfg.getRootNode(), cfg.getExitNode())) {
+                enterExitArc = new ControlFlowArc();
+                cfg.addEdge(cfg.getRootNode(), cfg.getExitNode(), enterExitArc);
+            }
+            List<String> arcs = new ArrayList<>();
+            for (GraphNode<?> a : nodes)
+                for (GraphNode<?> b : nodes)
+                    if (a != b && hasControlDependence(a, b))
+                        arcs.add(a.getId() + " -> " + b.getId());
+            if (enterExitArc != null)
+                cfg.removeEdge(enterExitArc);
+            return arcs;
+        }
+
+        boolean hasControlDependence(GraphNode<?> a, GraphNode<?> b) {
+            int yes = 0;
+            Set<Arc> arcs = cfg.outgoingEdgesOf(a);
+            if (arcs.size() < 2)
+                return false;
+            for (Arc arc : arcs)
+                if (postDominates(cfg.getEdgeTarget(arc), b))
+                    yes++;
+            return yes > 0 && arcs.size() - yes > 0;
+        }
+
+        boolean postDominates(GraphNode<?> a, GraphNode<?> b) {
+            return postDominates(a, b, new HashSet<>());
+        }
+
+        boolean postDominates(GraphNode<?> a, GraphNode<?> b, Set<GraphNode<?>> visited) {
+            if (a.equals(b) || visited.contains(a))
+                return true;
+            Set<Arc> outgoing = cfg.outgoingEdgesOf(a);
+            if (pp) {
+                outgoing = new HashSet<>(outgoing);
+                outgoing.removeIf(arc -> !arc.isExecutableControlFlowArc());
+            }
+            if (outgoing.isEmpty())
+                return false;
+            visited.add(a);
+            for (Arc out : outgoing)
+                if (!postDominates(cfg.getEdgeTarget(out), b, visited))
+                    return false;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package slicing.graphs.sdg;
+
+import com.github.javaparser.ast.stmt.Statement;
+import org.junit.Test;
+import slicing.arcs.Arc;
+import slicing.graphs.BackwardDataFlowAnalysis;
+import slicing.graphs.CallGraph;
+import slicing.graphs.jsysdg.JSysDG;
+import slicing.nodes.GraphNode;
+import slicing.nodes.io.IONode;
+import slicing.utils.TestSources;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SDGParallelismTest {
+
+    /** Mutually recursive, recursive and non-recursive methods, with objects passed between them. */
+    public static final String PROGRAM = "package fixture;\n\n" +
+            "class Counter {\n" +
+            "    int value;\n" +
+            "    void add(int n) { value += n; }\n" +
+            "    int get() { return value; }\n" +
+            "}\n\n" +
+            "public class Program {\n" +
+            "    static int even(int n) {\n" +
+            "        if (n == 0) return 1;\n" +
+            "        return odd(n - 1);\n" +
+            "    }\n" +
+            "    static int odd(int n) {\n" +
+            "        if (n == 0) return 0;\n" +
+            "        return even(n - 1);\n" +
+            "    }\n" +
+            "    static int fact(int n) {\n" +
+            "        return n <= 1 ? 1 : n * fact(n - 1);\n" +
+            "    }\n" +
+            "    static int sum(int[] values) {\n" +
+            "        int s = 0;\n" +
+            "        for (int v : values)\n" +
+            "            s += v;\n" +
+            "        return s;\n" +
+            "    }\n" +
+            "    static void count(Counter counter, int times) {\n" +
+            "        for (int i = 0; i < times; i++)\n" +
+            "            counter.add(even(i));\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        Counter counter = new Counter();\n" +
+            "        count(counter, args.length);\n" +
+            "        int f = fact(counter.get());\n" +
+            "        int s = sum(new int[] { f, odd(f) });\n" +
+            "        System.out.println(s);\n" +
+            "        System.out.println(counter.get());\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void parallelBuildsAreIdenticalToSequentialOnes() {
+        SDG sequential = build(1);
+        SDG parallel = build(4);
+
+        assertEquals(TestSources.describeNodes(sequential), TestSources.describeNodes(parallel));
+        assertEquals(TestSources.describeArcs(sequential), TestSources.describeArcs(parallel));
+        assertEquals(slices(sequential), slices(parallel));
+    }
+
+    @Test
+    public void parallelSummariesAreIdenticalToSequentialOnes() {
+        SDG sequential = build(1);
+        SDG parallel = build(4);
+
+        // even and odd share a component, the other methods have their own
+        int components = componentCount(sequential.callGraph);
+        assertTrue(components > 1 && components < sequential.callGraph.vertexSet().size());
+        assertFalse(summaryArcs(sequential).isEmpty());
+        assertEquals(summaryArcs(sequential), summaryArcs(parallel));
+        assertEquals(ioNodes(sequential), ioNodes(parallel));
+    }
+
+    public static SDG build(int parallelism) {
+        SDG sdg = new JSysDG();
+        sdg.setParallelism(parallelism);
+        sdg.build(TestSources.parse(PROGRAM));
+        return sdg;
+    }
+
+    private static int componentCount(CallGraph callGraph) {
+        BackwardDataFlowAnalysis<CallGraph.Vertex, CallGraph.Edge<?>, Boolean> analysis =
+                new BackwardDataFlowAnalysis<>(callGraph) {
+                    @Override
+                    protected Boolean compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
+                        return true;
+                    }
+
+                    @Override
+                    protected Boolean initialValue(CallGraph.Vertex vertex) {
+                        return true;
+                    }
+                };
+        analysis.analyze();
+        return analysis.getComponentCount();
+    }
+
+    /** The summary arcs, by the relative ids and labels of their ends. */
+    private static Set<String> summaryArcs(SDG sdg) {
+        Set<String> arcs = new TreeSet<>();
+        for (Arc arc : sdg.edgeSet())
+            if (arc.isSummaryArc())
+                arcs.add(describe(sdg, sdg.getEdgeSource(arc)) + " -> " + describe(sdg, sdg.getEdgeTarget(arc)));
+        return arcs;
+    }
+
+    /** The actual and formal nodes, by relative id and label. */
+    private static Set<String> ioNodes(SDG sdg) {
+        Set<String> nodes = new TreeSet<>();
+        for (GraphNode<?> node : sdg.vertexSet())
+            if (node instanceof IONode)
+                nodes.add(node.getClass().getSimpleName() + " " + describe(sdg, node));
+        return nodes;
+    }
+
+    private static String describe(SDG sdg, GraphNode<?> node) {
+        return TestSources.relativeId(sdg, node) + " " + node.getLabel();
+    }
+
+    /** The slice of each statement, by the relative ids of its nodes. */
+    private static List<String> slices(SDG sdg) {
+        List<String> slices = new ArrayList<>();
+        List<GraphNode<?>> statements = sdg.vertexSet().stream()
+                .filter(node -> node.getAstNode() instanceof Statement)
+                .sorted(Comparator.comparingLong(GraphNode::getId))
+                .collect(Collectors.toList());
+        assertFalse(statements.isEmpty());
+        for (GraphNode<?> statement : statements)
+            slices.add(TestSources.relativeId(sdg, statement) + ": " + sdg.slice(graph -> Set.of(statement))
+                    .getGraphNodes().stream()
+                    .map(node -> TestSources.relativeId(sdg, node))
+                    .sorted()
+                    .collect(Collectors.toList()));
+        return slices;
+    }
+}
@@ -0,0 +1,59 @@
+package slicing.graphs.sdg;
+
+import org.junit.Test;
+import slicing.arcs.Arc;
+import slicing.graphs.jsysdg.JSysDG;
+import slicing.nodes.GraphNode;
+import slicing.utils.TestSources;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SummaryArcTest {
+
+    /** The output of outer depends on its input through a call to inner. */
+    public static final String CHAIN = "package fixture;\n\n" +
+            "public class Chain {\n" +
+            "    static int inner(int x) {\n" +
+            "        return x + 1;\n" +
+            "    }\n" +
+            "    static int outer(int y) {\n" +
+            "        return inner(y);\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int a = args.length;\n" +
+            "        int b = outer(a);\n" +
+            "        System.out.println(b);\n" +
+            "    }\n" +
+            "}\n";
+
+    /** The summary of outer is only known once the summary arcs of its call to inner have been placed:
+     *  its change must be detected and then saved at the call to outer. */
+    @Test
+    public void summariesFollowNestedCalls() {
+        SDG sdg = new JSysDG();
+        sdg.build(TestSources.parse(CHAIN));
+
+        assertEquals(List.of("x_in = y -> call return", "y_in = a -> call return"), summaryArcs(sdg));
+        GraphNode<?> print = sdg.vertexSet().stream()
+                .filter(node -> node.getLabel().equals("System.out.println(b);"))
+                .findFirst().orElseThrow();
+        Set<String> slice = sdg.slice(graph -> Set.of(print)).getGraphNodes().stream()
+                .map(GraphNode::getLabel)
+                .collect(Collectors.toSet());
+        assertTrue(slice.toString(), slice.contains("int a = args.length;"));
+    }
+
+    private static List<String> summaryArcs(SDG sdg) {
+        List<String> arcs = new ArrayList<>();
+        for (Arc arc : sdg.edgeSet())
+            if (arc.isSummaryArc())
+                arcs.add(sdg.getEdgeSource(arc).getLabel() + " -> " + sdg.getEdgeTarget(arc).getLabel());
+        arcs.sort(null);
+        return arcs;
+    }
+}
@@ -0,0 +1,90 @@
+package slicing.slicing;
+
+import com.github.javaparser.ast.stmt.Statement;
+import org.junit.Test;
+import slicing.graphs.augmented.PSDG;
+import slicing.graphs.jsysdg.JSysDG;
+import slicing.graphs.sdg.SDG;
+import slicing.nodes.GraphNode;
+import slicing.utils.TestSources;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class FrozenSlicingTest {
+
+    /** Unconditional jumps (pseudo-predicates), recursion and calls between methods. */
+    public static final String PROGRAM = "package fixture;\n\n" +
+            "public class Loops {\n" +
+            "    static int find(int[] values, int target) {\n" +
+            "        int found = -1;\n" +
+            "        for (int i = 0; i < values.length; i++) {\n" +
+            "            if (values[i] < 0) continue;\n" +
+            "            if (values[i] == target) {\n" +
+            "                found = i;\n" +
+            "                break;\n" +
+            "            }\n" +
+            "        }\n" +
+            "        return found;\n" +
+            "    }\n" +
+            "    static int countDown(int n) {\n" +
+            "        if (n <= 0) return 0;\n" +
+            "        return 1 + countDown(n - 1);\n" +
+            "    }\n" +
+            "    public static void main(String[] args) {\n" +
+            "        int[] values = new int[args.length];\n" +
+            "        for (int i = 0; i < args.length; i++)\n" +
+            "            values[i] = args[i].length();\n" +
+            "        int index = find(values, 3);\n" +
+            "        int steps = countDown(index);\n" +
+            "        System.out.println(index + steps);\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void classicSlicesAreTheSameOnFrozenGraphs() {
+        assertSameSlices(SDG::new, ClassicSlicingAlgorithm::new);
+    }
+
+    @Test
+    public void pseudoPredicateSlicesAreTheSameOnFrozenGraphs() {
+        assertSameSlices(PSDG::new, sdg -> new PseudoPredicateSlicingAlgorithm((PSDG) sdg));
+    }
+
+    @Test
+    public void exceptionSensitiveSlicesAreTheSameOnFrozenGraphs() {
+        assertSameSlices(JSysDG::new, sdg -> new JSysDGSlicingAlgorithm((JSysDG) sdg));
+    }
+
+    /** Slices each statement, interprocedurally and intraprocedurally, before and after freezing the graph. */
+    private static void assertSameSlices(Supplier<SDG> constructor, Function<SDG, SlicingAlgorithm> algorithm) {
+        SDG sdg = constructor.get();
+        sdg.build(TestSources.parse(PROGRAM));
+        List<String> slices = slices(sdg, algorithm);
+        sdg.freeze();
+        assertTrue(sdg.getFrozenGraph().isPresent());
+        assertEquals(slices, slices(sdg, algorithm));
+    }
+
+    private static List<String> slices(SDG sdg, Function<SDG, SlicingAlgorithm> algorithm) {
+        List<GraphNode<?>> statements = sdg.vertexSet().stream()
+                .filter(node -> node.getAstNode() instanceof Statement)
+                .sorted(Comparator.comparingLong(GraphNode::getId))
+                .collect(Collectors.toList());
+        assertFalse(statements.isEmpty());
+        List<String> slices = new ArrayList<>();
+        for (GraphNode<?> statement : statements) {
+            slices.add(statement.getId() + ": " + ids(algorithm.apply(sdg).traverse(Set.of(statement))));
+            slices.add(statement.getId() + " (procedure): " + ids(algorithm.apply(sdg).traverseProcedure(statement)));
+        }
+        return slices;
+    }
+
+    private static List<Long> ids(Slice slice) {
+        return slice.getGraphNodes().stream().map(GraphNode::getId).sorted().collect(Collectors.toList());
+    }
+}
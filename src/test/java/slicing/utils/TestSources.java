@@ -0,0 +1,51 @@
+package slicing.utils;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import slicing.arcs.Arc;
+import slicing.graphs.Graph;
+import slicing.nodes.GraphNode;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/** Parses test sources with the {@link StaticTypeSolver}, which resolves the JRE and the types
+ *  declared in the same compilation unit, and describes the graphs built from them. */
+public class TestSources {
+    static {
+        StaticTypeSolver.addTypeSolverJRE();
+    }
+
+    /** Parse each source as a compilation unit. A new AST is returned on each call. */
+    public static NodeList<CompilationUnit> parse(String... sources) {
+        NodeList<CompilationUnit> cus = new NodeList<>();
+        for (String source : sources)
+            cus.add(StaticJavaParser.parse(source));
+        return cus;
+    }
+
+    /** The id of each node relative to the lowest id in the graph. */
+    public static long relativeId(Graph graph, GraphNode<?> node) {
+        return node.getId() - graph.vertexSet().stream().mapToLong(GraphNode::getId).min().orElse(0);
+    }
+
+    /** The nodes of the graph (by relative id, type and label) in the order of their ids. */
+    public static List<String> describeNodes(Graph graph) {
+        List<String> nodes = new ArrayList<>();
+        graph.vertexSet().stream()
+                .sorted(Comparator.comparingLong(GraphNode::getId))
+                .forEach(node -> nodes.add(relativeId(graph, node) + " " + node.getClass().getSimpleName() + " " + node.getLabel()));
+        return nodes;
+    }
+
+    /** The arcs of the graph (by the relative ids of their ends, type and label) in iteration order. */
+    public static List<String> describeArcs(Graph graph) {
+        List<String> arcs = new ArrayList<>();
+        for (Arc arc : graph.edgeSet())
+            arcs.add(relativeId(graph, graph.getEdgeSource(arc)) + " -> " + relativeId(graph, graph.getEdgeTarget(arc))
+                    + " " + arc.getClass().getSimpleName() + " " + arc.getLabel());
+        return arcs;
+    }
+}
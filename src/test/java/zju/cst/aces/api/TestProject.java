@@ -0,0 +1,115 @@
+package zju.cst.aces.api;
+
+import zju.cst.aces.api.config.Config;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A single-module project in a temporary directory, with its sources under {@code src/main/java}
+ * and its temporary output under {@code chatunitest-info}, for the tests that need a {@link Config}.
+ */
+public class TestProject implements Project {
+
+    private final Path basedir;
+
+    public TestProject() {
+        try {
+            this.basedir = Files.createTempDirectory("chatunitest-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Write a source file of the project, e.g. {@code addSource("com/example/Foo.java", code)}.
+     */
+    public Path addSource(String relativePath, String code) {
+        try {
+            Path file = getSourceRoot().resolve(relativePath);
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, code, StandardCharsets.UTF_8);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Path getSourceRoot() {
+        return basedir.resolve("src").resolve("main").resolve("java");
+    }
+
+    public Config.ConfigBuilder configBuilder() {
+        return new Config.ConfigBuilder(this).tmpOutput(basedir.resolve("chatunitest-info"));
+    }
+
+    public Config config() {
+        return configBuilder().build();
+    }
+
+    /**
+     * Delete the project directory and everything in it.
+     */
+    public void delete() {
+        try (Stream<Path> paths = Files.walk(basedir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Project getParent() {
+        return null;
+    }
+
+    @Override
+    public File getBasedir() {
+        return basedir.toFile();
+    }
+
+    @Override
+    public String getPackaging() {
+        return "jar";
+    }
+
+    @Override
+    public String getGroupId() {
+        return "com.example";
+    }
+
+    @Override
+    public String getArtifactId() {
+        return "test-project";
+    }
+
+    @Override
+    public List<String> getCompileSourceRoots() {
+        List<String> roots = new ArrayList<>();
+        roots.add(getSourceRoot().toString());
+        return roots;
+    }
+
+    @Override
+    public Path getArtifactPath() {
+        return basedir.resolve("target").resolve("test-project.jar");
+    }
+
+    @Override
+    public Path getBuildPath() {
+        return basedir.resolve("target").resolve("classes");
+    }
+
+    @Override
+    public List<String> getClassPaths() {
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,110 @@
+package zju.cst.aces.parser;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zju.cst.aces.api.TestProject;
+import zju.cst.aces.api.config.Config;
+
+import javax.tools.ToolProvider;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class BytecodeIndexTest {
+
+    private static final String DISPATCHER = "package com.example;\n\n" +
+            "import java.util.ArrayList;\n" +
+            "import java.util.List;\n\n" +
+            "public class Dispatcher {\n" +
+            "    private final List<Runnable> tasks = new ArrayList<>();\n\n" +
+            "    public void submit(String name) {\n" +
+            "        tasks.add(() -> log(name));\n" +
+            "        tasks.add(new Runnable() {\n" +
+            "            public void run() {\n" +
+            "                flush();\n" +
+            "            }\n" +
+            "        });\n" +
+            "    }\n\n" +
+            "    void log(String message) {\n" +
+            "    }\n\n" +
+            "    void flush() {\n" +
+            "    }\n" +
+            "}\n";
+    private static final String WORKER = "package com.example;\n\n" +
+            "public class Worker {\n" +
+            "    public void process() {\n" +
+            "        first();\n" +
+            "    }\n\n" +
+            "    void first() {\n" +
+            "    }\n" +
+            "}\n";
+    private static final String WORKER_CHANGED = "package com.example;\n\n" +
+            "public class Worker {\n" +
+            "    void first() {\n" +
+            "    }\n\n" +
+            "    void second() {\n" +
+            "    }\n\n" +
+            "    public void process() {\n" +
+            "        second();\n" +
+            "    }\n" +
+            "}\n";
+
+    private TestProject project;
+
+    @Before
+    public void setUp() {
+        project = new TestProject();
+    }
+
+    @After
+    public void tearDown() {
+        project.delete();
+    }
+
+    @Test
+    public void callsOfLambdasAndAnonymousClassesBelongToTheirMethod() throws Exception {
+        compile(project.addSource("com/example/Dispatcher.java", DISPATCHER));
+        BytecodeIndex index = BytecodeIndex.load(project.getBuildPath());
+
+        BytecodeIndex.Method submit = index.findMethod(method(DISPATCHER, "submit"));
+        assertNotNull(submit);
+        assertEquals(Map.of("java.util.List", Set.of("add(Object)"),
+                        "com.example.Dispatcher", Set.of("log(String)", "flush()")),
+                index.getInvocations(submit, Set.of("add", "log", "flush")));
+    }
+
+    @Test
+    public void staleClassesFallBackToTheSource() throws Exception {
+        compile(project.addSource("com/example/Worker.java", WORKER));
+        BytecodeIndex index = BytecodeIndex.load(project.getBuildPath());
+        assertNotNull(index.findMethod(method(WORKER, "process")));
+        // the only compiled process() has no line in the changed declaration
+        assertNull(index.findMethod(method(WORKER_CHANGED, "process")));
+
+        project.addSource("com/example/Worker.java", WORKER_CHANGED);
+        Config config = project.configBuilder().enableBytecodeParse(true).build();
+        new ProjectParser(config).parse();
+        ClassInfoStore store = ClassInfoStore.getInstance(config.getParseOutput());
+        assertEquals(Map.of("com.example.Worker", Set.of("second()")),
+                store.getMethodInfo("com.example.Worker", "process()").dependentMethods);
+    }
+
+    private void compile(Path source) throws Exception {
+        Files.createDirectories(project.getBuildPath());
+        int status = ToolProvider.getSystemJavaCompiler().run(null, null, null,
+                "-g", "-d", project.getBuildPath().toString(), source.toString());
+        assertEquals(0, status);
+    }
+
+    private static MethodDeclaration method(String source, String name) {
+        CompilationUnit cu = StaticJavaParser.parse(source);
+        return cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals(name)).orElseThrow();
+    }
+}
@@ -0,0 +1,185 @@
+package zju.cst.aces.parser;
+
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zju.cst.aces.dto.ClassInfo;
+import zju.cst.aces.dto.MethodInfo;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class ClassInfoStoreTest {
+
+    private static final Gson GSON = new Gson();
+    private Path parseOutput;
+
+    @Before
+    public void setUp() throws Exception {
+        parseOutput = Files.createTempDirectory("class-info");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(parseOutput)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void recordsRoundTrip() throws Exception {
+        ClassInfo classInfo = classInfo("com.example", "Calculator");
+        MethodInfo methodInfo = methodInfo("add(int, int)");
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(classInfo);
+            writer.addMethodInfo("com.example.Calculator", "add(int, int)", methodInfo);
+        }
+
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutput);
+        assertEquals(GSON.toJson(classInfo), GSON.toJson(store.getClassInfo("com.example.Calculator")));
+        assertEquals(GSON.toJson(methodInfo), GSON.toJson(store.getMethodInfo("com.example.Calculator", "add(int, int)")));
+        assertNull(store.getClassInfo("com.example.Missing"));
+        assertNull(store.getMethodInfo("com.example.Calculator", "missing()"));
+    }
+
+    @Test
+    public void onlyTheRequestedFieldsAreDecoded() throws Exception {
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(classInfo("com.example", "Calculator"));
+            writer.addMethodInfo("com.example.Calculator", "add(int, int)", methodInfo("add(int, int)"));
+        }
+
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutput);
+        ClassInfo classInfo = store.getClassInfo("com.example.Calculator", "className", "isPublic", "methodSigs");
+        assertEquals("Calculator", classInfo.className);
+        assertTrue(classInfo.isPublic);
+        assertEquals(Map.of("add(int, int)", "int add(int, int)"), classInfo.methodSigs);
+        assertNull(classInfo.fullClassName);
+        assertNull(classInfo.imports);
+        assertNull(classInfo.constructorDeps);
+        assertFalse(classInfo.isInterface);
+        assertEquals(0, classInfo.index);
+
+        MethodInfo methodInfo = store.getMethodInfo("com.example.Calculator", "add(int, int)", "dependentMethods");
+        assertEquals(methodInfo("add(int, int)").dependentMethods, methodInfo.dependentMethods);
+        assertNull(methodInfo.sourceCode);
+    }
+
+    @Test
+    public void classesAreKeyedByTheirFullName() throws Exception {
+        ClassInfo nested = classInfo("com.example", "Entry");
+        nested.fullClassName = "com.example.Registry.Entry";
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(nested);
+        }
+
+        assertEquals("com.example.Registry.Entry", ClassInfoStore.fullClassName(nested));
+        assertEquals(List.of("com.example.Registry.Entry"), ClassInfoStore.getInstance(parseOutput).getClassNames());
+
+        ClassInfo legacy = classInfo("com.example", "Calculator");
+        legacy.fullClassName = null;
+        assertEquals("com.example.Calculator", ClassInfoStore.fullClassName(legacy));
+    }
+
+    @Test
+    public void reopenedStoresReplaceAndRemoveRecords() throws Exception {
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(classInfo("com.example", "Calculator"));
+            writer.addMethodInfo("com.example.Calculator", "add(int, int)", methodInfo("add(int, int)"));
+            writer.addMethodInfo("com.example.Calculator", "sub(int, int)", methodInfo("sub(int, int)"));
+            writer.addClassInfo(classInfo("com.example", "Printer"));
+        }
+        assertEquals(List.of("com.example.Calculator", "com.example.Printer"),
+                ClassInfoStore.getInstance(parseOutput).getClassNames());
+
+        ClassInfo changed = classInfo("com.example", "Calculator");
+        changed.classSignature = "public final class Calculator";
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.remove("com.example.Calculator");
+            writer.addClassInfo(changed);
+            writer.addMethodInfo("com.example.Calculator", "add(int, int)", methodInfo("add(int, int)"));
+            writer.remove("com.example.Printer");
+        }
+
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutput);
+        assertEquals(List.of("com.example.Calculator"), store.getClassNames());
+        assertEquals("public final class Calculator",
+                store.getClassInfo("com.example.Calculator", "classSignature").classSignature);
+        assertEquals(List.of("add(int, int)"), store.getMethodSignatures("com.example.Calculator"));
+        assertEquals(GSON.toJson(methodInfo("add(int, int)")),
+                GSON.toJson(store.getMethodInfo("com.example.Calculator", "add(int, int)")));
+    }
+
+    @Test
+    public void segmentsAreCompactedWhenMostRecordsAreDead() throws Exception {
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(classInfo("com.example", "Calculator"));
+            writer.addClassInfo(classInfo("com.example", "Printer"));
+        }
+        Path segment = parseOutput.resolve(ClassInfoStore.SEGMENT_FILE);
+        long liveSize = Files.size(segment);
+
+        // less than half of the segment is dead: kept as it is
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(classInfo("com.example", "Printer"));
+        }
+        assertTrue(Files.size(segment) > liveSize);
+
+        ClassInfo changed = classInfo("com.example", "Calculator");
+        changed.classSignature = "public final class Calculator";
+        try (ClassInfoStore.Writer writer = new ClassInfoStore.Writer(parseOutput)) {
+            writer.addClassInfo(classInfo("com.example", "Printer"));
+            writer.addClassInfo(changed);
+        }
+        assertEquals(liveSize + "final ".length(), Files.size(segment));
+        assertFalse(Files.exists(parseOutput.resolve(ClassInfoStore.SEGMENT_FILE + ".tmp")));
+
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutput);
+        assertEquals(GSON.toJson(changed), GSON.toJson(store.getClassInfo("com.example.Calculator")));
+        assertEquals(GSON.toJson(classInfo("com.example", "Printer")), GSON.toJson(store.getClassInfo("com.example.Printer")));
+    }
+
+    private static ClassInfo classInfo(String packageName, String className) {
+        ClassInfo info = new ClassInfo();
+        info.fullClassName = packageName + "." + className;
+        info.className = className;
+        info.index = 3;
+        info.modifier = "[public]";
+        info.packageName = packageName;
+        info.packageDeclaration = "package " + packageName + ";";
+        info.classSignature = "public class " + className;
+        info.hasConstructor = true;
+        info.isPublic = true;
+        info.imports = new ArrayList<>(List.of("import java.util.List;", "import java.util.Map;"));
+        info.fields = new ArrayList<>(List.of("private final String name = \"été ✓\";"));
+        info.superClasses = new ArrayList<>();
+        Map<String, String> methodSigs = new LinkedHashMap<>();
+        methodSigs.put("add(int, int)", "int add(int, int)");
+        info.methodSigs = methodSigs;
+        Map<String, Set<String>> constructorDeps = new LinkedHashMap<>();
+        constructorDeps.put("Printer", new LinkedHashSet<>(List.of("print(String)", "flush()")));
+        info.constructorDeps = constructorDeps;
+        info.compilationUnitCode = "package " + packageName + ";\n\npublic class " + className + " {}\n";
+        return info;
+    }
+
+    private static MethodInfo methodInfo(String signature) {
+        MethodInfo info = new MethodInfo();
+        info.className = "Calculator";
+        info.methodName = signature.substring(0, signature.indexOf('('));
+        info.methodSignature = signature;
+        info.sourceCode = "public int " + signature.replace("int, int", "int a, int b") + " { return a + b; }";
+        info.isPublic = true;
+        info.parameters = new ArrayList<>(List.of("int a", "int b"));
+        Map<String, Set<String>> dependentMethods = new LinkedHashMap<>();
+        dependentMethods.put("Printer", new LinkedHashSet<>(List.of("print(String)")));
+        info.dependentMethods = dependentMethods;
+        return info;
+    }
+}
@@ -0,0 +1,197 @@
+package zju.cst.aces.parser;
+
+import com.google.gson.Gson;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zju.cst.aces.api.TestProject;
+import zju.cst.aces.api.config.Config;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ProjectParserTest {
+
+    private static final String ACCOUNT = "package com.example;\n\n" +
+            "public class Account {\n" +
+            "    private final Ledger ledger = new Ledger();\n\n" +
+            "    public void deposit(int amount) {\n" +
+            "        ledger.record(amount);\n" +
+            "    }\n" +
+            "}\n";
+    private static final String LEDGER = "package com.example;\n\n" +
+            "public class Ledger {\n" +
+            "    private int total;\n\n" +
+            "    public void record(int amount) {\n" +
+            "        total += amount;\n" +
+            "    }\n" +
+            "}\n";
+    private static final String LEDGER_CHANGED = "package com.example;\n\n" +
+            "public class Ledger {\n" +
+            "    private int total;\n\n" +
+            "    public void record(int amount) {\n" +
+            "        total += amount;\n" +
+            "    }\n\n" +
+            "    public int getTotal() {\n" +
+            "        return total;\n" +
+            "    }\n" +
+            "}\n";
+    private static final String AUDIT = "package com.example.audit;\n\n" +
+            "public class Audit {\n" +
+            "    public boolean check(int total) {\n" +
+            "        return total >= 0;\n" +
+            "    }\n" +
+            "}\n";
+    private static final String REPORT = "package com.example;\n\n" +
+            "public class Report {\n" +
+            "    public String print(int total) {\n" +
+            "        return \"total: \" + total;\n" +
+            "    }\n" +
+            "}\n";
+
+    private static final String TELLER = "package com.example;\n\n" +
+            "public class Teller {\n" +
+            "    private final Ledger ledger = new Ledger();\n\n" +
+            "    public void deposit(int amount) {\n" +
+            "        Counter counter = new Counter();\n" +
+            "        counter.add(amount);\n" +
+            "        ledger.record(counter.get());\n" +
+            "    }\n" +
+            "}\n";
+    private static final String COUNTER = "package com.example;\n\n" +
+            "public class Counter {\n" +
+            "    private int value;\n\n" +
+            "    public void add(int n) {\n" +
+            "        value += n;\n" +
+            "    }\n\n" +
+            "    public int get() {\n" +
+            "        return value;\n" +
+            "    }\n" +
+            "}\n";
+
+    private TestProject project;
+
+    @Before
+    public void setUp() {
+        project = new TestProject();
+    }
+
+    @After
+    public void tearDown() {
+        project.delete();
+    }
+
+    @Test
+    public void incrementalParseFollowsTheManifestDiff() {
+        Path account = project.addSource("com/example/Account.java", ACCOUNT);
+        Path ledger = project.addSource("com/example/Ledger.java", LEDGER);
+        Path audit = project.addSource("com/example/audit/Audit.java", AUDIT);
+        Config config = project.config();
+        new ProjectParser(config).parse();
+
+        Path parseOutput = config.getParseOutput();
+        ParseManifest before = ParseManifest.load(parseOutput);
+        assertEquals(Set.of(account.toString(), ledger.toString(), audit.toString()), before.files.keySet());
+
+        project.addSource("com/example/Ledger.java", LEDGER_CHANGED);
+        Path report = project.addSource("com/example/Report.java", REPORT);
+        assertTrue(audit.toFile().delete());
+        ProjectParser incremental = new ProjectParser(project.config());
+        incremental.parseIncremental();
+
+        ParseManifest after = ParseManifest.load(parseOutput);
+        assertEquals(Set.of(account.toString(), ledger.toString(), report.toString()), after.files.keySet());
+        // unchanged
+        assertEquals(before.files.get(account.toString()).hash, after.files.get(account.toString()).hash);
+        assertEquals(before.files.get(account.toString()).classes, after.files.get(account.toString()).classes);
+        // modified
+        assertNotEquals(before.files.get(ledger.toString()).hash, after.files.get(ledger.toString()).hash);
+        assertNotEquals(before.files.get(ledger.toString()).classes.get("com.example.Ledger"),
+                after.files.get(ledger.toString()).classes.get("com.example.Ledger"));
+        // added
+        assertEquals(Set.of("com.example.Report"), after.files.get(report.toString()).classes.keySet());
+
+        ClassInfoStore store = ClassInfoStore.getInstance(parseOutput);
+        assertEquals(List.of("com.example.Account", "com.example.Ledger", "com.example.Report"), store.getClassNames());
+        assertTrue(store.getMethodSignatures("com.example.Ledger").contains("getTotal()"));
+        assertTrue(store.getMethodSignatures("com.example.audit.Audit").isEmpty());
+        // the totals of the project, not only the re-parsed classes
+        assertEquals(3, incremental.classCount);
+        assertEquals(4, incremental.methodCount);
+    }
+
+    @Test
+    public void parallelParseMatchesSequentialParse() throws Exception {
+        project.addSource("com/example/Account.java", ACCOUNT);
+        project.addSource("com/example/Ledger.java", LEDGER_CHANGED);
+        project.addSource("com/example/Report.java", REPORT);
+        project.addSource("com/example/audit/Audit.java", AUDIT);
+        Path basedir = project.getBasedir().toPath();
+        Config sequential = project.configBuilder().parseThreads(1).tmpOutput(basedir.resolve("sequential")).build();
+        Config parallel = project.configBuilder().parseThreads(4).tmpOutput(basedir.resolve("parallel")).build();
+        new ProjectParser(sequential).parse();
+        new ProjectParser(parallel).parse();
+
+        assertEquals(storedRecords(sequential), storedRecords(parallel));
+        String examples = Files.readString(sequential.tmpOutput.resolve("methodExampleCode.json"));
+        assertTrue(examples, examples.contains("ledger.record(amount)"));
+        assertEquals(examples, Files.readString(parallel.tmpOutput.resolve("methodExampleCode.json")));
+    }
+
+    @Test
+    public void batchesIncludeTheCalleesOfTheirCallers() throws Exception {
+        project.addSource("com/example/Counter.java", COUNTER);
+        project.addSource("com/example/Ledger.java", LEDGER);
+        project.addSource("com/example/Teller.java", TELLER);
+        Path basedir = project.getBasedir().toPath();
+        Config whole = project.configBuilder().tmpOutput(basedir.resolve("whole")).build();
+        Config batched = project.configBuilder().parseBatchSize(1).tmpOutput(basedir.resolve("batched")).build();
+        new ProjectParser(whole).parse();
+        new ProjectParser(batched).parse();
+
+        String examples = Files.readString(whole.tmpOutput.resolve("methodExampleCode.json"));
+        // the state of the counter passed to Ledger.record is set by Counter.add, a callee of the caller
+        assertTrue(examples, examples.contains("counter.add(amount);"));
+        assertEquals(examples, Files.readString(batched.tmpOutput.resolve("methodExampleCode.json")));
+    }
+
+    @Test
+    public void unchangedSourcesAreNotParsedAgain() throws Exception {
+        project.addSource("com/example/Account.java", ACCOUNT);
+        project.addSource("com/example/Ledger.java", LEDGER);
+        Config config = project.config();
+        new ProjectParser(config).parse();
+        Path manifestPath = config.getParseOutput().resolve(ParseManifest.MANIFEST_FILE);
+        String manifest = Files.readString(manifestPath);
+        long modified = Files.getLastModifiedTime(manifestPath).toMillis();
+
+        ProjectParser incremental = new ProjectParser(project.config());
+        incremental.parseIncremental();
+
+        assertEquals(manifest, Files.readString(manifestPath));
+        assertEquals(modified, Files.getLastModifiedTime(manifestPath).toMillis());
+        assertEquals(0, incremental.classCount);
+    }
+
+    /**
+     * The class and method records of the info store, serialized.
+     */
+    private static List<String> storedRecords(Config config) {
+        Gson gson = new Gson();
+        ClassInfoStore store = ClassInfoStore.getInstance(config.getParseOutput());
+        List<String> records = new ArrayList<>();
+        for (String className : store.getClassNames()) {
+            records.add(gson.toJson(store.getClassInfo(className)));
+            for (String signature : store.getMethodSignatures(className)) {
+                records.add(gson.toJson(store.getMethodInfo(className, signature)));
+            }
+        }
+        assertFalse(records.isEmpty());
+        return records;
+    }
+}
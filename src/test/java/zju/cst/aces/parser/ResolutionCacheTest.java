@@ -0,0 +1,88 @@
+package zju.cst.aces.parser;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ResolutionCacheTest {
+
+    private static final String CALLS = "package com.example;\n\n" +
+            "public class Calls {\n" +
+            "    private String name;\n\n" +
+            "    void strings() { String value = \"a\"; print(value); }\n" +
+            "    void ints() { int value = 1; print(value); }\n" +
+            "    void fields() { print(name); print(name); }\n" +
+            "    void blocks(boolean b) {\n" +
+            "        if (b) { String v = \"\"; print(v); } else { int v = 0; print(v); }\n" +
+            "    }\n" +
+            "    void shadows() { int name = 0; print(name); }\n" +
+            "    void print(String s) { }\n" +
+            "    void print(int i) { }\n" +
+            "}\n";
+
+    private static final String FIRST = "package com.example;\n\n" +
+            "import java.util.List;\n\n" +
+            "public class First {\n" +
+            "    void add(List<String> items, String value) { items.add(value); }\n" +
+            "    void addLocal(List<String> items) { String value = \"a\"; items.add(value); }\n" +
+            "}\n";
+    private static final String SECOND = "package com.example;\n\n" +
+            "import java.util.List;\n\n" +
+            "public class Second {\n" +
+            "    static class Item { }\n\n" +
+            "    void add(List<String> items, String value) { items.add(value); }\n" +
+            "    void addNumber(List<Integer> items, Integer value) { items.add(value); }\n" +
+            "    void addItem(List<Item> items, Item value) { items.add(value); }\n" +
+            "}\n";
+
+    @Test
+    public void callsAreKeyedByTheirSourceInTheirScope() {
+        CompilationUnit cu = new JavaParser(new ParserConfiguration()
+                .setSymbolResolver(new JavaSymbolSolver(new ReflectionTypeSolver())))
+                .parse(CALLS).getResult().orElseThrow();
+        ResolutionCache cache = new ResolutionCache();
+
+        assertEquals(List.of("print(String)"), resolve(cache, cu, "strings"));
+        assertEquals(List.of("print(int)"), resolve(cache, cu, "ints"));
+        assertEquals(List.of("print(String)", "print(String)"), resolve(cache, cu, "fields"));
+        assertEquals(List.of("print(String)", "print(int)"), resolve(cache, cu, "blocks"));
+        assertEquals(List.of("print(int)"), resolve(cache, cu, "shadows"));
+        // only the second call on the field is served by the cache
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void callsOnSameTypedLocalsAreSharedAcrossMembersAndTypes() {
+        JavaParser parser = new JavaParser(new ParserConfiguration()
+                .setSymbolResolver(new JavaSymbolSolver(new ReflectionTypeSolver())));
+        CompilationUnit first = parser.parse(FIRST).getResult().orElseThrow();
+        CompilationUnit second = parser.parse(SECOND).getResult().orElseThrow();
+        ResolutionCache cache = new ResolutionCache();
+
+        assertEquals(List.of("add(E)"), resolve(cache, first, "add"));
+        assertEquals(List.of("add(E)"), resolve(cache, first, "addLocal"));
+        assertEquals(List.of("add(E)"), resolve(cache, second, "add"));
+        assertEquals(List.of("add(E)"), resolve(cache, second, "addNumber"));
+        assertEquals(List.of("add(E)"), resolve(cache, second, "addItem"));
+        // the same text on a same-typed receiver, in another method and in another class
+        assertEquals(2, cache.getHitCount());
+    }
+
+    private static List<String> resolve(ResolutionCache cache, CompilationUnit cu, String methodName) {
+        MethodDeclaration method = cu.findFirst(MethodDeclaration.class, m -> m.getNameAsString().equals(methodName))
+                .orElseThrow();
+        return method.findAll(MethodCallExpr.class).stream()
+                .map(call -> cache.resolveMethod(call).map(resolved -> resolved.signature).orElse(null))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,120 @@
+package zju.cst.aces.prompt;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zju.cst.aces.api.TestProject;
+import zju.cst.aces.util.TokenCounter;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class ContextCompressorTest {
+
+    private static final String FOCAL_METHOD = "parse";
+    private static final String FOCAL_CODE = "public int parse(String text) {\n" +
+            "    // the comment of the focal method is kept\n" +
+            "    return Integer.parseInt(text.trim());\n" +
+            "}";
+    private static final String CLASS_SIG = "/** Parses numbers. */\npublic class NumberParser";
+    private static final String DEPENDENCY = "/**\n * A dependency.\n */\n" +
+            "public class Formatter {\n" +
+            "    // a line comment\n" +
+            "    private static final String[] UNITS = {\"B\", \"KB\", \"MB\", \"GB\", \"TB\", \"PB\"};\n" +
+            "    private static final String BANNER = \"a string literal that is longer than the limit of the compressor\";\n" +
+            "\n" +
+            "    public String format(long size) {\n" +
+            "        int unit = 0;\n" +
+            "        while (size > 1024 && unit < UNITS.length - 1) {\n" +
+            "            size /= 1024;\n" +
+            "            unit++;\n" +
+            "        }\n" +
+            "        return size + UNITS[unit];\n" +
+            "    }\n" +
+            "\n" +
+            "    public int parse(String text) {\n" +
+            "        return Integer.parseInt(text);\n" +
+            "    }\n" +
+            "}";
+
+    private TestProject project;
+    private Path promptPath;
+
+    @Before
+    public void setUp() throws Exception {
+        project = new TestProject();
+        promptPath = project.getBasedir().toPath().resolve("prompt");
+        Files.createDirectories(promptPath);
+        Files.writeString(promptPath.resolve("compress.ftl"), "Focal method ${method_name} of ${class_sig}:\n" +
+                "${full_method_info}\n" +
+                "<#list c_deps?keys as key>\n${key}: ${c_deps[key]}\n</#list>\n", StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() {
+        project.delete();
+    }
+
+    @Test
+    public void lightRemovesCommentsOnly() {
+        String light = new ContextCompressor(FOCAL_METHOD).compress(DEPENDENCY, ContextCompressor.Level.LIGHT);
+
+        assertFalse(light, light.contains("A dependency"));
+        assertFalse(light, light.contains("a line comment"));
+        assertTrue(light, light.contains("\"PB\""));
+        assertTrue(light, light.contains("longer than the limit of the compressor"));
+        assertTrue(light, light.contains("size /= 1024;"));
+    }
+
+    @Test
+    public void moderateElidesLiterals() {
+        String moderate = new ContextCompressor(FOCAL_METHOD).compress(DEPENDENCY, ContextCompressor.Level.MODERATE);
+
+        assertFalse(moderate, moderate.contains("\"PB\""));
+        assertFalse(moderate, moderate.contains("longer than the limit of the compressor"));
+        assertTrue(moderate, moderate.contains("size /= 1024;"));
+    }
+
+    @Test
+    public void aggressiveKeepsOnlyTheFocalMethodBody() {
+        String aggressive = new ContextCompressor(FOCAL_METHOD).compress(DEPENDENCY, ContextCompressor.Level.AGGRESSIVE);
+
+        assertFalse(aggressive, aggressive.contains("size /= 1024;"));
+        assertTrue(aggressive, aggressive.contains("String format(long size);"));
+        assertTrue(aggressive, aggressive.contains("return Integer.parseInt(text);"));
+    }
+
+    @Test
+    public void everyLevelKeepsTheFocalMethodAndUncompressedKeys() throws Exception {
+        ContextCompressor compressor = new ContextCompressor(FOCAL_METHOD);
+        for (ContextCompressor.Level level : new ContextCompressor.Level[]{ContextCompressor.Level.LIGHT,
+                ContextCompressor.Level.MODERATE, ContextCompressor.Level.AGGRESSIVE}) {
+            String expected = render(Integer.MAX_VALUE, compressor.compress(DEPENDENCY, level));
+            // exactly the size of the prompt compressed at this level, so the lower levels do not fit
+            String prompt = render(TokenCounter.countToken(expected), DEPENDENCY);
+
+            assertEquals(level.toString(), expected, prompt);
+            assertTrue(level.toString(), prompt.contains(FOCAL_CODE));
+            assertTrue(level.toString(), prompt.contains(CLASS_SIG));
+            assertTrue(level.toString(), prompt.contains("Focal method " + FOCAL_METHOD));
+            assertFalse(level.toString(), prompt.contains("a line comment"));
+        }
+    }
+
+    private String render(int maxTokens, String dependency) throws Exception {
+        PromptTemplate template = new PromptTemplate(project.config(), new Properties(), promptPath, maxTokens);
+        Map<String, String> deps = new LinkedHashMap<>();
+        deps.put("Formatter", dependency);
+        template.dataModel.put("method_name", FOCAL_METHOD);
+        template.dataModel.put("class_sig", CLASS_SIG);
+        template.dataModel.put("full_method_info", FOCAL_CODE);
+        template.dataModel.put("c_deps", deps);
+        return template.renderTemplate("compress.ftl");
+    }
+}
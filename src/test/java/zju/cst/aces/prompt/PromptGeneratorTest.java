@@ -1,13 +1,98 @@
 package zju.cst.aces.prompt;
 
-import org.junit.jupiter.api.Test;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import zju.cst.aces.api.TestProject;
+import zju.cst.aces.util.TokenCounter;
 
-import static org.junit.jupiter.api.Assertions.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
 
-class PromptGeneratorTest {
+import static org.junit.Assert.*;
+
+public class PromptGeneratorTest {
+
+    private static final String FOCAL_METHOD = "computeTax";
+    private static final String RELEVANT = "interface TaxTable { double rateFor(int income); double computeTax(double amount); }";
+    private static final String SMALL_IRRELEVANT = "interface Clock { long now(); void sleep(long millis); }";
+
+    private TestProject project;
+    private Path promptPath;
+
+    @Before
+    public void setUp() throws Exception {
+        project = new TestProject();
+        promptPath = project.getBasedir().toPath().resolve("prompt");
+        Files.createDirectories(promptPath);
+        Files.writeString(promptPath.resolve("short.ftl"), "Focal method: ${method_name}\n" +
+                "<#list c_deps?keys as key>\n${key}: ${c_deps[key]}\n</#list>\n", StandardCharsets.UTF_8);
+        // much more text around each entry than packRelevantContext estimates
+        Files.writeString(promptPath.resolve("long.ftl"), "Focal method: ${method_name}\n" +
+                "<#list c_deps?keys as key>\n" +
+                "The following dependency is used by the focal method, read its members carefully before " +
+                "writing any assertion about the behaviour of the focal method under test:\n" +
+                "${key}: ${c_deps[key]}\n</#list>\n", StandardCharsets.UTF_8);
+    }
+
+    @After
+    public void tearDown() {
+        project.delete();
+    }
+
+    @Test
+    public void packKeepsTheMostRelevantSnippetsThatFit() throws Exception {
+        int maxTokens = TokenCounter.countToken(render("short.ftl", Integer.MAX_VALUE, relevantOnly())) + 24;
+        String prompt = render("short.ftl", maxTokens, withLargeDependencies(SMALL_IRRELEVANT));
+
+        assertFalse(TokenCounter.countToken(prompt) > maxTokens);
+        assertTrue(prompt, prompt.contains("TaxTable"));
+        assertFalse(prompt, prompt.contains("Clock"));
+        assertFalse(prompt, prompt.contains("Renderer"));
+    }
 
     @Test
-    void createUserPrompt() {
-        System.out.println("true = " + true);
+    public void packDropsTheLeastRelevantSnippetWhenTheEstimateIsTooLow() throws Exception {
+        int maxTokens = TokenCounter.countToken(render("long.ftl", Integer.MAX_VALUE, relevantOnly())) + 10;
+        String prompt = render("long.ftl", maxTokens, withLargeDependencies("interface Unit { }"));
+
+        assertFalse(TokenCounter.countToken(prompt) > maxTokens);
+        assertTrue(prompt, prompt.contains("TaxTable"));
+        assertFalse(prompt, prompt.contains("Unit"));
+    }
+
+    private Map<String, String> relevantOnly() {
+        Map<String, String> deps = new LinkedHashMap<>();
+        deps.put("TaxTable", RELEVANT);
+        return deps;
+    }
+
+    /**
+     * The relevant snippet, a small irrelevant one listed first and two that can never fit.
+     */
+    private Map<String, String> withLargeDependencies(String smallIrrelevant) {
+        Map<String, String> deps = new LinkedHashMap<>();
+        deps.put(smallIrrelevant.split(" ")[1], smallIrrelevant);
+        for (String name : new String[]{"Renderer", "Canvas"}) {
+            StringBuilder sb = new StringBuilder("interface ").append(name).append(" {");
+            for (int i = 0; i < 80; i++) {
+                sb.append(" void draw").append(i).append("(int x, int y, String label);");
+            }
+            deps.put(name, sb.append(" }").toString());
+        }
+        deps.putAll(relevantOnly());
+        return deps;
+    }
+
+    private String render(String templateFileName, int maxTokens, Map<String, String> deps) throws Exception {
+        PromptTemplate template = new PromptTemplate(project.config(), new Properties(), promptPath, maxTokens);
+        template.dataModel.put("method_name", FOCAL_METHOD);
+        template.dataModel.put("c_deps", new LinkedHashMap<>(deps));
+        template.focalTerms = ContextIndex.tokenize("double computeTax(double amount) { return table.rateFor(income) * amount; }");
+        return template.renderTemplate(templateFileName);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,101 @@
+package zju.cst.aces.util;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import org.junit.Test;
+import zju.cst.aces.dto.TestMessage;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TestProcessorTest {
+
+    private static final String HEADER = "package com.example;\n" +
+            "\n" +
+            "import org.junit.jupiter.api.Test;\n" +
+            "import static org.junit.jupiter.api.Assertions.*;\n" +
+            "\n" +
+            "public class CalculatorTest {\n" +
+            "    private  Calculator calculator = new Calculator();   // odd spacing is kept\n" +
+            "\n";
+    private static final String UNTOUCHED_BEFORE = "    @Test\n" +
+            "    public void testAdd()   {\n" +
+            "\tassertEquals(3, calculator.add(1,2));  // tab indented\n" +
+            "    }\n";
+    private static final String BROKEN = "    @Test\n" +
+            "    public void testDivide() {\n" +
+            "        assertEquals(2, calculator.divde(4, 2));\n" +
+            "    }\n";
+    private static final String UNTOUCHED_AFTER = "    /** A comment on a test. */\n" +
+            "    @Test\n" +
+            "    public void testSubtract() {\n" +
+            "        assertEquals(1,\n" +
+            "                     calculator.subtract(3, 2));\n" +
+            "    }\n";
+    private static final String RETAINED = HEADER + UNTOUCHED_BEFORE + "\n" + BROKEN + "\n" + UNTOUCHED_AFTER + "}\n";
+
+    private static final String FIXED = "    @Test\n" +
+            "    public void testDivide() {\n" +
+            "        assertEquals(2, calculator.divide(4, 2));\n" +
+            "    }";
+    private static final String ADDED = "    @Test\n" +
+            "    public void testDivideByZero() {\n" +
+            "        assertThrows(ArithmeticException.class, () -> calculator.divide(1, 0));\n" +
+            "        assertNotNull(Arrays.asList(1));\n" +
+            "    }";
+
+    private final TestProcessor processor = new TestProcessor("com.example.CalculatorTest");
+
+    @Test
+    public void spliceReplacesOnlyTheRepairedMethod() {
+        String spliced = processor.spliceMethods(RETAINED, "import java.util.Arrays;\n\n" + FIXED + "\n\n" + ADDED + "\n");
+
+        String expected = RETAINED.replace(BROKEN, FIXED + "\n")
+                .replace("Assertions.*;\n", "Assertions.*;\nimport java.util.Arrays;\n")
+                .replace(UNTOUCHED_AFTER + "}", UNTOUCHED_AFTER + "\n" + ADDED + "\n}");
+        assertEquals(expected, spliced);
+        assertEquals(Arrays.asList("testAdd", "testDivide", "testSubtract", "testDivideByZero"),
+                StaticJavaParser.parse(spliced).findAll(MethodDeclaration.class).stream()
+                        .map(MethodDeclaration::getNameAsString).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void spliceKeepsTheUntouchedTextByteForByte() {
+        String spliced = processor.spliceMethods(RETAINED, FIXED);
+
+        assertEquals(RETAINED.replace(BROKEN, FIXED + "\n"), spliced);
+    }
+
+    @Test
+    public void spliceAcceptsAWholeTestClass() {
+        String patch = "package com.example;\n\nimport org.junit.jupiter.api.Test;\n\n" +
+                "public class CalculatorTest {\n" +
+                "    private Calculator calculator = new Calculator();\n\n" +
+                FIXED + "\n}\n";
+
+        assertEquals(RETAINED.replace(BROKEN, FIXED + "\n"), processor.spliceMethods(RETAINED, patch));
+    }
+
+    @Test
+    public void spliceWithoutMethodsIsRejected() {
+        assertNull(processor.spliceMethods(RETAINED, "private int unused;"));
+    }
+
+    @Test
+    public void errorsAreLocatedAndExtractedByMethod() {
+        int line = (HEADER + UNTOUCHED_BEFORE + "\n").split("\n", -1).length + 2; // the third line of testDivide
+        TestMessage message = new TestMessage();
+        message.setErrorType(TestMessage.ErrorType.COMPILE_ERROR);
+        message.setErrorMessage(List.of("Error in CalculatorTest: line " + line + " : cannot find symbol"));
+
+        Map<String, List<String>> located = processor.locateErrors(RETAINED, message);
+
+        assertEquals(List.of("testDivide"), List.copyOf(located.keySet()));
+        assertEquals(List.of("Error in testDivide: line 3 : cannot find symbol"), located.get("testDivide"));
+        assertEquals(BROKEN.substring(0, BROKEN.length() - 1), processor.extractMethods(RETAINED, located.keySet()));
+    }
+}
@@ -0,0 +1,104 @@
+package zju.cst.aces.util;
+
+import org.junit.Test;
+import zju.cst.aces.runner.AbstractRunner;
+
+import static org.junit.Assert.*;
+
+public class WeightedCacheTest {
+
+    private static WeightedCache<String, String> unitCache(long maxWeight) {
+        return new WeightedCache<>(maxWeight, v -> 1);
+    }
+
+    @Test
+    public void probationIsEvictedInLeastRecentlyUsedOrder() {
+        WeightedCache<String, String> cache = unitCache(3);
+        for (String key : new String[]{"a", "b", "c", "d", "e"}) {
+            cache.put(key, key);
+        }
+
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.getWeight());
+        assertEquals(2, cache.getEvictionCount());
+        assertNull(cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("c", cache.getIfPresent("c"));
+        assertEquals("d", cache.getIfPresent("d"));
+        assertEquals("e", cache.getIfPresent("e"));
+    }
+
+    @Test
+    public void entriesHitTwiceSurviveOneOffLookups() {
+        WeightedCache<String, String> cache = unitCache(5);
+        cache.put("hot", "hot");
+        cache.put("cold", "cold");
+        assertEquals("hot", cache.getIfPresent("hot")); // promoted to the protected segment
+        for (int i = 0; i < 10; i++) {
+            cache.put("once" + i, "once" + i);
+        }
+
+        assertEquals("hot", cache.getIfPresent("hot"));
+        assertNull(cache.getIfPresent("cold"));
+        assertNull(cache.getIfPresent("once5"));
+        assertEquals("once9", cache.getIfPresent("once9"));
+        assertEquals(5, cache.getWeight());
+    }
+
+    @Test
+    public void leastRecentlyUsedProtectedEntriesAreDemoted() {
+        WeightedCache<String, String> cache = unitCache(10); // at most 8 protected
+        for (int i = 0; i < 9; i++) {
+            cache.put("k" + i, "v" + i);
+            cache.getIfPresent("k" + i);
+        }
+        // k0 is back in probation, so it is the first one evicted
+        cache.put("x", "x");
+        cache.put("y", "y");
+
+        assertEquals(10, cache.size());
+        assertNull(cache.getIfPresent("k0"));
+        for (int i = 1; i < 9; i++) {
+            assertEquals("v" + i, cache.getIfPresent("k" + i));
+        }
+    }
+
+    @Test
+    public void weightsAreAccountedOnReplaceAndRemove() {
+        WeightedCache<String, String> cache = new WeightedCache<>(100, v -> v.length());
+        cache.put("a", "1234567890");
+        cache.put("b", "12345");
+        cache.getIfPresent("a");
+        assertEquals(15, cache.getWeight());
+
+        cache.put("a", "123");
+        assertEquals(8, cache.getWeight());
+        cache.remove("b");
+        assertEquals(3, cache.getWeight());
+        cache.put("big", new String(new char[101]));
+        assertNull(cache.getIfPresent("big"));
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.getWeight());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void infoCacheStaysWithin64MB() {
+        assertEquals(64L << 20, AbstractRunner.INFO_CACHE.getMaxWeight());
+
+        WeightedCache<String, String> cache = new WeightedCache<>(64L << 20, WeightedCache::estimateSize);
+        String value = new String(new char[1 << 20]); // about 2MB
+        for (int i = 0; i < 100; i++) {
+            cache.get("k" + i, k -> value + k);
+            assertTrue(cache.getWeight() <= 64L << 20);
+        }
+
+        int expectedEntries = (int) ((64L << 20) / WeightedCache.estimateSize(value + "k10"));
+        assertEquals(expectedEntries, cache.size());
+        assertEquals(100 - expectedEntries, cache.getEvictionCount());
+        assertEquals(100, cache.getMissCount());
+        assertNotNull(cache.getIfPresent("k99"));
+        assertNull(cache.getIfPresent("k0"));
+    }
+}